@@ -0,0 +1,99 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.context.Shared;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of fixed-size memory chunks for {@link TemporaryOutputStream}.
+ * <p>
+ * Total size of allocated chunks is limited for all streams together: when limit is reached,
+ * streams write data to temporary files instead of memory. Released chunks are reused.
+ */
+public final class TemporaryBufferPool implements Shared {
+  @SuppressWarnings("MagicNumber")
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  @SuppressWarnings("MagicNumber")
+  public static final long DEFAULT_MEMORY_LIMIT = 128 * 1024 * 1024;
+
+  private final int chunkSize;
+  private final long memoryLimit;
+  private final boolean offHeap;
+  @NotNull
+  private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+  @NotNull
+  private final AtomicLong allocated = new AtomicLong();
+
+  public TemporaryBufferPool() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_MEMORY_LIMIT, false);
+  }
+
+  /**
+   * @param chunkSize   Chunk size in bytes.
+   * @param memoryLimit Total size limit of allocated chunks in bytes.
+   * @param offHeap     Allocate chunks outside of Java heap.
+   */
+  public TemporaryBufferPool(int chunkSize, long memoryLimit, boolean offHeap) {
+    this.chunkSize = Math.max(1, chunkSize);
+    this.memoryLimit = memoryLimit;
+    this.offHeap = offHeap;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * @return Total size of allocated chunks, both used and free.
+   */
+  public long getAllocated() {
+    return allocated.get();
+  }
+
+  /**
+   * Take empty chunk from pool.
+   *
+   * @return Chunk or null if memory limit is reached.
+   */
+  @Nullable
+  ByteBuffer acquire() {
+    final ByteBuffer chunk = free.poll();
+    if (chunk != null) {
+      chunk.clear();
+      return chunk;
+    }
+    while (true) {
+      final long size = allocated.get();
+      if (size + chunkSize > memoryLimit) {
+        return null;
+      }
+      if (allocated.compareAndSet(size, size + chunkSize)) {
+        break;
+      }
+    }
+    return offHeap ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+  }
+
+  /**
+   * Return chunk to pool. Chunk must not be used after this call.
+   */
+  void release(@NotNull ByteBuffer chunk) {
+    free.add(chunk);
+  }
+
+  @Override
+  public void close() {
+    free.clear();
+  }
+}
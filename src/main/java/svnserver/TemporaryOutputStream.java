@@ -12,11 +12,17 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Stream for write-then-read functionality.
+ * <p>
+ * Data is kept in memory chunks up to memory size limit and then is written to temporary file.
+ * With {@link TemporaryBufferPool} chunks are reused and also limited by pool memory limit.
  *
  * @author Artem V. Navrotskiy
  * @author Marat Radchenko <marat@slonopotamus.org>
@@ -25,9 +31,12 @@ public final class TemporaryOutputStream extends OutputStream {
   @SuppressWarnings("MagicNumber")
   public static final int MAX_MEMORY_SIZE = 8 * 1024 * 1024;
 
+  @Nullable
+  private final TemporaryBufferPool pool;
   private final int maxMemorySize;
   @NotNull
-  private final ByteArrayOutputStream memoryStream = new ByteArrayOutputStream();
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private int memorySize = 0;
   @Nullable
   private Path file;
   @Nullable
@@ -36,10 +45,23 @@ public final class TemporaryOutputStream extends OutputStream {
   private boolean closed;
 
   public TemporaryOutputStream() {
-    this(MAX_MEMORY_SIZE);
+    this(null, MAX_MEMORY_SIZE);
   }
 
   public TemporaryOutputStream(int maxMemorySize) {
+    this(null, maxMemorySize);
+  }
+
+  public TemporaryOutputStream(@Nullable TemporaryBufferPool pool) {
+    this(pool, MAX_MEMORY_SIZE);
+  }
+
+  /**
+   * @param pool          Memory chunks pool. Without pool chunks are allocated on heap for every stream.
+   * @param maxMemorySize Memory size limit for this stream.
+   */
+  public TemporaryOutputStream(@Nullable TemporaryBufferPool pool, int maxMemorySize) {
+    this.pool = pool;
     this.maxMemorySize = maxMemorySize;
   }
 
@@ -48,20 +70,43 @@ public final class TemporaryOutputStream extends OutputStream {
     if (closed)
       throw new IOException();
 
-    if (memoryStream.size() < maxMemorySize) {
-      memoryStream.write(b);
-      totalSize++;
-      return;
+    final ByteBuffer chunk = memoryChunk();
+    if (chunk != null) {
+      chunk.put((byte) b);
+      memorySize++;
+    } else {
+      ensureFile().write(b);
     }
-    ensureFile().write(b);
     totalSize++;
   }
 
+  /**
+   * @return Chunk with free space or null if data should be written to file.
+   */
+  @Nullable
+  private ByteBuffer memoryChunk() {
+    if (fileOutputStream != null || memorySize >= maxMemorySize)
+      return null;
+
+    if (!chunks.isEmpty()) {
+      final ByteBuffer last = chunks.get(chunks.size() - 1);
+      if (last.hasRemaining())
+        return last;
+    }
+    final ByteBuffer chunk = pool != null
+        ? pool.acquire()
+        : ByteBuffer.allocate(Math.min(TemporaryBufferPool.DEFAULT_CHUNK_SIZE, maxMemorySize));
+    if (chunk != null)
+      chunks.add(chunk);
+
+    return chunk;
+  }
+
   @NotNull
   private OutputStream ensureFile() throws IOException {
     if (fileOutputStream == null) {
       file = Files.createTempFile("tmp", "git-as-svn");
-      fileOutputStream = Files.newOutputStream(file);
+      fileOutputStream = new BufferedOutputStream(Files.newOutputStream(file));
     }
     return fileOutputStream;
   }
@@ -71,14 +116,19 @@ public final class TemporaryOutputStream extends OutputStream {
     if (closed)
       throw new IOException();
 
-    if (memoryStream.size() < maxMemorySize) {
-      final int size = Math.min(maxMemorySize - memoryStream.size(), len);
-      memoryStream.write(b, off, size);
-      if (size < len) {
-        ensureFile().write(b, off + size, len - size);
+    int offset = off;
+    int length = len;
+    while (length > 0) {
+      final ByteBuffer chunk = memoryChunk();
+      if (chunk == null) {
+        ensureFile().write(b, offset, length);
+        break;
       }
-    } else {
-      ensureFile().write(b, off, len);
+      final int size = Math.min(Math.min(chunk.remaining(), maxMemorySize - memorySize), length);
+      chunk.put(b, offset, size);
+      memorySize += size;
+      offset += size;
+      length -= size;
     }
     totalSize += len;
   }
@@ -103,6 +153,7 @@ public final class TemporaryOutputStream extends OutputStream {
       if (fileOutputStream != null)
         fileOutputStream.close();
     } finally {
+      releaseChunks(pool, chunks);
       if (file != null)
         Files.deleteIfExists(file);
     }
@@ -112,6 +163,31 @@ public final class TemporaryOutputStream extends OutputStream {
     return totalSize;
   }
 
+  /**
+   * Get content without copy if it is kept in single heap memory chunk.
+   *
+   * @return Content buffer, that is valid until stream is closed, or null if content must be read by {@link #toInputStream()}.
+   */
+  @Nullable
+  public ByteBuffer memoryContent() throws IOException {
+    if (closed)
+      throw new IOException();
+
+    if (fileOutputStream != null || chunks.size() > 1)
+      return null;
+
+    if (chunks.isEmpty())
+      return ByteBuffer.allocate(0);
+
+    final ByteBuffer chunk = chunks.get(0);
+    if (!chunk.hasArray())
+      return null;
+
+    final ByteBuffer result = chunk.duplicate();
+    result.flip();
+    return result;
+  }
+
   @TestOnly
   @Nullable
   Path tempFile() {
@@ -126,38 +202,73 @@ public final class TemporaryOutputStream extends OutputStream {
     if (fileOutputStream != null)
       flush();
 
-    final InputStream result = file == null
-        ? new ByteArrayInputStream(memoryStream.toByteArray())
-        : new TemporaryInputStream(memoryStream.toByteArray(), file);
+    final List<ByteBuffer> memory = new ArrayList<>(chunks);
+    for (ByteBuffer chunk : memory)
+      chunk.flip();
+
+    final InputStream result = new TemporaryInputStream(pool, memory, file);
 
+    chunks.clear();
     file = null;
     close();
 
     return result;
   }
 
+  private static void releaseChunks(@Nullable TemporaryBufferPool pool, @NotNull List<ByteBuffer> chunks) {
+    if (pool != null)
+      for (ByteBuffer chunk : chunks)
+        if (chunk != null)
+          pool.release(chunk);
+
+    chunks.clear();
+  }
+
   private static class TemporaryInputStream extends InputStream {
+    @Nullable
+    private final TemporaryBufferPool pool;
     @NotNull
-    private final byte[] memoryBytes;
-    @NotNull
+    private final List<ByteBuffer> chunks;
+    @Nullable
     private final InputStream fileStream;
-    @NotNull
+    @Nullable
     private final Path file;
-    private int offset = 0;
+    private int index = 0;
 
-    private TemporaryInputStream(@NotNull byte[] memoryBytes, @NotNull Path file) throws IOException {
-      this.memoryBytes = memoryBytes;
-      this.fileStream = Files.newInputStream(file);
+    private TemporaryInputStream(@Nullable TemporaryBufferPool pool, @NotNull List<ByteBuffer> chunks, @Nullable Path file) throws IOException {
+      this.pool = pool;
+      this.chunks = chunks;
+      this.fileStream = file == null ? null : Files.newInputStream(file);
       this.file = file;
     }
 
+    /**
+     * @return Chunk with unread data or null if all memory data is read.
+     */
+    @Nullable
+    private ByteBuffer memoryChunk() {
+      while (index < chunks.size()) {
+        final ByteBuffer chunk = chunks.get(index);
+        if (chunk.hasRemaining())
+          return chunk;
+
+        // Give chunk back as soon as possible, so it can be used by other streams
+        if (pool != null)
+          pool.release(chunk);
+        chunks.set(index, null);
+        index++;
+      }
+      return null;
+    }
+
     @Override
     public int read() throws IOException {
-      if (offset < memoryBytes.length) {
+      final ByteBuffer chunk = memoryChunk();
+      if (chunk != null) {
         //noinspection MagicNumber
-        return memoryBytes[offset++] & 0xff;
+        return chunk.get() & 0xff;
       }
-      return fileStream.read();
+      return fileStream == null ? -1 : fileStream.read();
     }
 
     @Override
@@ -165,17 +276,22 @@ public final class TemporaryOutputStream extends OutputStream {
       if (len == 0) {
         return 0;
       }
-      if (this.offset < memoryBytes.length) {
-        final int count = Math.min(len, memoryBytes.length - this.offset);
-        System.arraycopy(memoryBytes, offset, buf, off, count);
-        offset += count;
+      final ByteBuffer chunk = memoryChunk();
+      if (chunk != null) {
+        final int count = Math.min(len, chunk.remaining());
+        chunk.get(buf, off, count);
         return count;
       }
-      return fileStream.read(buf, off, len);
+      return fileStream == null ? -1 : fileStream.read(buf, off, len);
     }
 
     @Override
     public void close() throws IOException {
+      releaseChunks(pool, chunks);
+      index = 0;
+      if (fileStream == null || file == null)
+        return;
+
       try {
         fileStream.close();
       } finally {
@@ -0,0 +1,43 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.server.AdmissionControl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session admission limits.
+ * <p>
+ * Zero limit means "unlimited".
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class AdmissionConfig {
+  private int maxSessions = 0;
+  private int maxSessionsPerUser = 0;
+  private int maxSessionsPerRepository = 0;
+  private int queueSize = 100;
+  private long queueTimeout = TimeUnit.SECONDS.toMillis(30);
+
+  public AdmissionConfig() {
+  }
+
+  public AdmissionConfig(int maxSessions, int maxSessionsPerUser, int maxSessionsPerRepository, int queueSize, long queueTimeout) {
+    this.maxSessions = maxSessions;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+    this.maxSessionsPerRepository = maxSessionsPerRepository;
+    this.queueSize = queueSize;
+    this.queueTimeout = queueTimeout;
+  }
+
+  @NotNull
+  public AdmissionControl create() {
+    return new AdmissionControl(maxSessions, maxSessionsPerUser, maxSessionsPerRepository, queueSize, queueTimeout);
+  }
+}
@@ -8,6 +8,7 @@
 package svnserver.config;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
 
 import java.io.IOException;
@@ -21,4 +22,14 @@ import java.nio.file.Path;
 public interface CacheConfig {
   @NotNull
   DB createCache(@NotNull Path basePath) throws IOException;
+
+  /**
+   * Directory for persistent revision indexes.
+   *
+   * @return Null if revision indexes should not be persisted.
+   */
+  @Nullable
+  default Path getIndexPath(@NotNull Path basePath) {
+    return null;
+  }
 }
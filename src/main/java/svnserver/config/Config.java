@@ -10,6 +10,7 @@ package svnserver.config;
 import org.jetbrains.annotations.NotNull;
 import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
 import svnserver.config.serializer.ConfigType;
+import svnserver.server.engine.ThreadPerConnectionEngineConfig;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -41,13 +42,39 @@ public final class Config {
   @NotNull
   private List<SharedConfig> shared = new ArrayList<>();
 
+  @NotNull
+  private ConnectionEngineConfig connectionEngine = ThreadPerConnectionEngineConfig.instance;
+
+  @NotNull
+  private AdmissionConfig admission = new AdmissionConfig();
+
+  @NotNull
+  private DeltaProducerConfig deltaProducer = new DeltaProducerConfig();
+
+  @NotNull
+  private DeltaCacheConfig deltaCache = new DeltaCacheConfig();
+
+  @NotNull
+  private MetadataProducerConfig metadataProducer = new MetadataProducerConfig();
+
+  @NotNull
+  private TemporaryBufferConfig temporaryBuffers = new TemporaryBufferConfig();
+
+  @NotNull
+  private HookQueueConfig hookQueue = new HookQueueConfig();
+
   private int port = 3690;
 
   private boolean reuseAddress = false;
   @NotNull
   private SVNDeltaCompression compressionLevel = SVNDeltaCompression.LZ4;
   private long shutdownTimeout = TimeUnit.SECONDS.toMillis(5);
+  private int writeBufferSize = 32 * 1024;
   private boolean parallelIndexing = true;
+  private boolean watchRefs = true;
+  private long commitCacheSize = 16 * 1024 * 1024;
+  private long treeCacheSize = 256 * 1024;
+  private int pathCacheSize = 64 * 1024;
 
   @SuppressWarnings("UnusedDeclaration")
   public Config() {
@@ -98,6 +125,10 @@ public final class Config {
     return shutdownTimeout;
   }
 
+  public int getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
   @NotNull
   public CacheConfig getCacheConfig() {
     return cacheConfig;
@@ -112,10 +143,89 @@ public final class Config {
     return shared;
   }
 
+  @NotNull
+  public ConnectionEngineConfig getConnectionEngine() {
+    return connectionEngine;
+  }
+
+  public void setConnectionEngine(@NotNull ConnectionEngineConfig connectionEngine) {
+    this.connectionEngine = connectionEngine;
+  }
+
+  @NotNull
+  public AdmissionConfig getAdmission() {
+    return admission;
+  }
+
+  public void setAdmission(@NotNull AdmissionConfig admission) {
+    this.admission = admission;
+  }
+
+  @NotNull
+  public DeltaProducerConfig getDeltaProducer() {
+    return deltaProducer;
+  }
+
+  public void setDeltaProducer(@NotNull DeltaProducerConfig deltaProducer) {
+    this.deltaProducer = deltaProducer;
+  }
+
+  @NotNull
+  public DeltaCacheConfig getDeltaCache() {
+    return deltaCache;
+  }
+
+  public void setDeltaCache(@NotNull DeltaCacheConfig deltaCache) {
+    this.deltaCache = deltaCache;
+  }
+
+  @NotNull
+  public MetadataProducerConfig getMetadataProducer() {
+    return metadataProducer;
+  }
+
+  public void setMetadataProducer(@NotNull MetadataProducerConfig metadataProducer) {
+    this.metadataProducer = metadataProducer;
+  }
+
+  @NotNull
+  public TemporaryBufferConfig getTemporaryBuffers() {
+    return temporaryBuffers;
+  }
+
+  public void setTemporaryBuffers(@NotNull TemporaryBufferConfig temporaryBuffers) {
+    this.temporaryBuffers = temporaryBuffers;
+  }
+
+  @NotNull
+  public HookQueueConfig getHookQueue() {
+    return hookQueue;
+  }
+
+  public void setHookQueue(@NotNull HookQueueConfig hookQueue) {
+    this.hookQueue = hookQueue;
+  }
+
   public boolean canUseParallelIndexing() {
     return parallelIndexing;
   }
 
+  public boolean getWatchRefs() {
+    return watchRefs;
+  }
+
+  public long getCommitCacheSize() {
+    return commitCacheSize;
+  }
+
+  public long getTreeCacheSize() {
+    return treeCacheSize;
+  }
+
+  public int getPathCacheSize() {
+    return pathCacheSize;
+  }
+
   @NotNull
   public SVNDeltaCompression getCompressionLevel() {
     return compressionLevel;
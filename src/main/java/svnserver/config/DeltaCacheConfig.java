@@ -0,0 +1,61 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.mapdb.DBException;
+import org.mapdb.DBMaker;
+import svnserver.server.command.DeltaCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Shared cache of encoded full-text file deltas.
+ * <p>
+ * Zero memory size disables cache, empty disk path disables disk tier.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class DeltaCacheConfig {
+  private long memorySize = 64 * 1024 * 1024;
+  private long maxFileSize = 4 * 1024 * 1024;
+  @NotNull
+  private String diskPath = "";
+  private long diskSize = 1024 * 1024 * 1024;
+
+  public DeltaCacheConfig() {
+  }
+
+  public DeltaCacheConfig(long memorySize, long maxFileSize, @NotNull String diskPath, long diskSize) {
+    this.memorySize = memorySize;
+    this.maxFileSize = maxFileSize;
+    this.diskPath = diskPath;
+    this.diskSize = diskSize;
+  }
+
+  @NotNull
+  public DeltaCache create(@NotNull Path basePath) throws IOException {
+    if (memorySize <= 0 || diskPath.isEmpty())
+      return new DeltaCache(memorySize, maxFileSize, null, 0);
+
+    final Path cachePath = ConfigHelper.joinPath(basePath, diskPath);
+    Files.createDirectories(cachePath.getParent());
+    final DB db;
+    try {
+      db = DBMaker.fileDB(cachePath.toFile())
+          .closeOnJvmShutdown()
+          .fileMmapEnableIfSupported()
+          .make();
+    } catch (DBException e) {
+      throw new DBException(String.format("Failed to open %s: %s", cachePath, e.getMessage()), e);
+    }
+    return new DeltaCache(memorySize, maxFileSize, db, diskSize);
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.server.command.DeltaCache;
+import svnserver.server.command.DeltaProducer;
+
+/**
+ * File delta precomputation for update/checkout reports.
+ * <p>
+ * Zero threads count means "number of available processors", zero prefetch disables precomputation.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class DeltaProducerConfig {
+  private int threads = 0;
+  private int prefetch = 32;
+  private long maxFileSize = 1024 * 1024;
+  private boolean reusePackDeltas = false;
+
+  public DeltaProducerConfig() {
+  }
+
+  public DeltaProducerConfig(int threads, int prefetch, long maxFileSize, boolean reusePackDeltas) {
+    this.threads = threads;
+    this.prefetch = prefetch;
+    this.maxFileSize = maxFileSize;
+    this.reusePackDeltas = reusePackDeltas;
+  }
+
+  @NotNull
+  public DeltaProducer create(@NotNull DeltaCache cache) {
+    return new DeltaProducer(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), prefetch, maxFileSize, reusePackDeltas, cache);
+  }
+}
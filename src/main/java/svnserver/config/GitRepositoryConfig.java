@@ -43,6 +43,8 @@ import java.util.TreeSet;
 public final class GitRepositoryConfig {
   @NotNull
   private static final Logger log = Loggers.git;
+  private static final long DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE = 64 * 1024;
+  private static final long DEFAULT_FILE_PROPERTY_CACHE_SIZE = 16 * 1024;
   @NotNull
   private Set<String> branches = new TreeSet<>();
   @NotNull
@@ -52,6 +54,8 @@ public final class GitRepositoryConfig {
   @NotNull
   private GitCreateMode createMode;
   private boolean renameDetection = true;
+  private long directoryPropertyCacheSize = DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE;
+  private long filePropertyCacheSize = DEFAULT_FILE_PROPERTY_CACHE_SIZE;
 
   public GitRepositoryConfig() {
     this(GitCreateMode.ERROR);
@@ -88,7 +92,7 @@ public final class GitRepositoryConfig {
     final LfsStorage lfsStorage = LfsStorageFactory.tryCreateStorage(context);
     final Repository git = createGit(context, fullPath);
 
-    return createRepository(context, lfsStorage, git, pusher.create(context), branches, renameDetection);
+    return createRepository(context, lfsStorage, git, pusher.create(context), branches, renameDetection, directoryPropertyCacheSize, filePropertyCacheSize);
   }
 
   @NotNull
@@ -103,6 +107,15 @@ public final class GitRepositoryConfig {
 
   @NotNull
   public static GitRepository createRepository(@NotNull LocalContext context, @Nullable LfsStorage lfsStorage, @NotNull Repository git, @NotNull GitPusher pusher, @NotNull Set<String> branches, boolean renameDetection) throws IOException {
+    return createRepository(context, lfsStorage, git, pusher, branches, renameDetection, DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE, DEFAULT_FILE_PROPERTY_CACHE_SIZE);
+  }
+
+  /**
+   * @param directoryPropertyCacheSize Limit of properties collected from directory trees kept in memory.
+   * @param filePropertyCacheSize      Limit of properties parsed from property files kept in memory.
+   */
+  @NotNull
+  public static GitRepository createRepository(@NotNull LocalContext context, @Nullable LfsStorage lfsStorage, @NotNull Repository git, @NotNull GitPusher pusher, @NotNull Set<String> branches, boolean renameDetection, long directoryPropertyCacheSize, long filePropertyCacheSize) throws IOException {
     final LockStorage lockStorage;
     if (lfsStorage != null) {
       context.add(LfsStorage.class, lfsStorage);
@@ -112,6 +125,6 @@ public final class GitRepositoryConfig {
     }
 
     final GitFilters filters = new GitFilters(context, lfsStorage);
-    return new GitRepository(context, git, pusher, branches, renameDetection, lockStorage, filters);
+    return new GitRepository(context, git, pusher, branches, renameDetection, lockStorage, filters, directoryPropertyCacheSize, filePropertyCacheSize);
   }
 }
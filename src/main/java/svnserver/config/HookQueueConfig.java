@@ -0,0 +1,38 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import svnserver.repository.git.push.GitHookQueue;
+
+/**
+ * Queue of hooks run in background by pushers with {@code asyncPostReceive} option.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class HookQueueConfig {
+  private int queueSize = GitHookQueue.DEFAULT_QUEUE_SIZE;
+  private int retryCount = GitHookQueue.DEFAULT_RETRY_COUNT;
+  private long retryDelay = GitHookQueue.DEFAULT_RETRY_DELAY;
+  private int threads = GitHookQueue.DEFAULT_THREADS;
+
+  public HookQueueConfig() {
+  }
+
+  public HookQueueConfig(int queueSize, int retryCount, long retryDelay, int threads) {
+    this.queueSize = queueSize;
+    this.retryCount = retryCount;
+    this.retryDelay = retryDelay;
+    this.threads = threads;
+  }
+
+  @NotNull
+  public GitHookQueue create(@NotNull DB db) {
+    return new GitHookQueue(db, queueSize, retryCount, retryDelay, threads);
+  }
+}
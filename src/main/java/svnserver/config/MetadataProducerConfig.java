@@ -0,0 +1,35 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.repository.git.GitMetadataProducer;
+
+/**
+ * Background computation of file md5, size and binary flag for new revisions.
+ * <p>
+ * Zero threads count disables precomputation.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class MetadataProducerConfig {
+  private int threads = 1;
+  private int queueSize = 4096;
+
+  public MetadataProducerConfig() {
+  }
+
+  public MetadataProducerConfig(int threads, int queueSize) {
+    this.threads = threads;
+    this.queueSize = queueSize;
+  }
+
+  @NotNull
+  public GitMetadataProducer create() {
+    return new GitMetadataProducer(threads, queueSize);
+  }
+}
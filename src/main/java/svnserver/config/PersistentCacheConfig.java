@@ -27,8 +27,16 @@ public final class PersistentCacheConfig implements CacheConfig {
   @SuppressWarnings("FieldCanBeLocal")
   @NotNull
   private String path = "git-as-svn.mapdb";
+  @NotNull
+  private String indexPath = "git-as-svn.index";
   private boolean enableTransactions = true;
 
+  @NotNull
+  @Override
+  public Path getIndexPath(@NotNull Path basePath) {
+    return ConfigHelper.joinPath(basePath, indexPath);
+  }
+
   @NotNull
   @Override
   public DB createCache(@NotNull Path basePath) throws IOException {
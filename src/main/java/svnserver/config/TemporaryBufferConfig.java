@@ -0,0 +1,37 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.TemporaryBufferPool;
+
+/**
+ * Memory for received file content during commit.
+ * <p>
+ * Memory limit is shared by all concurrent commits, content over limit is written to temporary files.
+ */
+@SuppressWarnings("FieldCanBeLocal")
+public final class TemporaryBufferConfig {
+  private int chunkSize = TemporaryBufferPool.DEFAULT_CHUNK_SIZE;
+  private long memoryLimit = TemporaryBufferPool.DEFAULT_MEMORY_LIMIT;
+  private boolean offHeap = false;
+
+  public TemporaryBufferConfig() {
+  }
+
+  public TemporaryBufferConfig(int chunkSize, long memoryLimit, boolean offHeap) {
+    this.chunkSize = chunkSize;
+    this.memoryLimit = memoryLimit;
+    this.offHeap = offHeap;
+  }
+
+  @NotNull
+  public TemporaryBufferPool create() {
+    return new TemporaryBufferPool(chunkSize, memoryLimit, offHeap);
+  }
+}
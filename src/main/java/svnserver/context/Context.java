@@ -13,7 +13,9 @@ import org.jetbrains.annotations.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 
 /**
@@ -25,17 +27,24 @@ import java.util.function.Supplier;
 public abstract class Context<S extends AutoCloseable> implements AutoCloseable {
   @NotNull
   private final ConcurrentHashMap<Class<? extends S>, S> map = new ConcurrentHashMap<>();
+  // Objects in order of addition, so dependent objects can be initialized after and closed before their dependencies.
+  @NotNull
+  private final List<S> order = new CopyOnWriteArrayList<>();
 
+  /**
+   * @return Objects in order of addition.
+   */
   @NotNull
   protected Collection<S> values() {
-    return map.values();
+    return order;
   }
 
   @NotNull
   public <T extends S> T add(@NotNull Class<T> type, @NotNull T object) {
-    if (map.put(type, object) != null) {
+    if (map.putIfAbsent(type, object) != null) {
       throw new IllegalStateException("Object with type " + type.getName() + " is already exists in shared context.");
     }
+    order.add(object);
     return object;
   }
 
@@ -48,7 +57,11 @@ public abstract class Context<S extends AutoCloseable> implements AutoCloseable
   @SuppressWarnings("unchecked")
   @Nullable
   public <T extends S> T remove(@NotNull Class<T> type) {
-    return (T) map.remove(type);
+    final T result = (T) map.remove(type);
+    if (result != null)
+      order.remove(result);
+
+    return result;
   }
 
   @NotNull
@@ -70,6 +83,7 @@ public abstract class Context<S extends AutoCloseable> implements AutoCloseable
       if (oldObj != null) {
         return (T) oldObj;
       }
+      order.add(newObj);
       return newObj;
     }
     return result;
@@ -77,7 +91,7 @@ public abstract class Context<S extends AutoCloseable> implements AutoCloseable
 
   @Override
   public void close() throws Exception {
-    for (S item : new ArrayList<>(map.values())) {
+    for (S item : new ArrayList<>(values())) {
       item.close();
     }
   }
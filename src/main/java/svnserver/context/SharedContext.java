@@ -8,6 +8,7 @@
 package svnserver.context;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
 import svnserver.config.SharedConfig;
 
@@ -28,18 +29,26 @@ public final class SharedContext extends Context<Shared> implements AutoCloseabl
   private final Path basePath;
   @NotNull
   private final DB cacheDB;
+  @Nullable
+  private final Path indexPath;
   @NotNull
   private final String realm;
 
-  private SharedContext(@NotNull Path basePath, @NotNull DB cacheDb, @NotNull String realm) {
+  private SharedContext(@NotNull Path basePath, @NotNull DB cacheDb, @Nullable Path indexPath, @NotNull String realm) {
     this.basePath = basePath;
     this.cacheDB = cacheDb;
+    this.indexPath = indexPath;
     this.realm = realm;
   }
 
   @NotNull
   public static SharedContext create(@NotNull Path basePath, @NotNull String realm, @NotNull DB cacheDb, @NotNull List<SharedConfig> shared) throws Exception {
-    final SharedContext context = new SharedContext(basePath, cacheDb, realm);
+    return create(basePath, realm, cacheDb, null, shared);
+  }
+
+  @NotNull
+  public static SharedContext create(@NotNull Path basePath, @NotNull String realm, @NotNull DB cacheDb, @Nullable Path indexPath, @NotNull List<SharedConfig> shared) throws Exception {
+    final SharedContext context = new SharedContext(basePath, cacheDb, indexPath, realm);
     for (SharedConfig config : shared) {
       config.create(context);
     }
@@ -79,4 +88,12 @@ public final class SharedContext extends Context<Shared> implements AutoCloseabl
   public DB getCacheDB() {
     return cacheDB;
   }
+
+  /**
+   * Directory for persistent revision indexes.
+   */
+  @Nullable
+  public Path getIndexPath() {
+    return indexPath;
+  }
 }
@@ -86,6 +86,7 @@ public final class GiteaProject implements AutoCloseable, BranchProvider {
 
   @Override
   public void close() {
+    repository.close();
     try {
       context.close();
     } catch (Exception e) {
@@ -209,6 +209,16 @@ final class GitLabMapping implements RepositoryMapping<GitLabProject> {
               log.warn(event.getEventName() + " event happened, but can not found project!");
             }
             return;
+          case "push":
+          case "repository_update":
+            // Fallback for ref watcher: some file systems (NFS, for example) do not deliver change events.
+            if (event.getProjectId() != null) {
+              for (GitLabProject pushed : mapping.values()) {
+                if (pushed.getProjectId() == event.getProjectId())
+                  pushed.getRepository().scheduleUpdateRevisions();
+              }
+            }
+            return;
           case "project_destroy":
             if (event.getProjectId() == null || event.getPathWithNamespace() == null) {
               resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Can't parse event data");
@@ -69,6 +69,7 @@ public final class GitLabProject implements AutoCloseable, BranchProvider {
 
   @Override
   public void close() {
+    repository.close();
     try {
       context.close();
     } catch (Exception e) {
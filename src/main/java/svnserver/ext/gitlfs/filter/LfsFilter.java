@@ -25,6 +25,7 @@ import svnserver.ext.gitlfs.storage.LfsStorage;
 import svnserver.ext.gitlfs.storage.LfsWriter;
 import svnserver.repository.SvnForbiddenException;
 import svnserver.repository.git.GitObject;
+import svnserver.repository.git.filter.GitBlobMetadata;
 import svnserver.repository.git.filter.GitFilter;
 import svnserver.repository.git.filter.GitFilterHelper;
 
@@ -44,11 +45,11 @@ public final class LfsFilter implements GitFilter {
   @Nullable
   private final LfsStorage storage;
   @NotNull
-  private final Map<String, String> cacheMd5;
+  private final Map<ObjectId, GitBlobMetadata> cache;
 
   public LfsFilter(@NotNull LocalContext context, @Nullable LfsStorage lfsStorage) {
     this.storage = lfsStorage;
-    this.cacheMd5 = GitFilterHelper.getCacheMd5(this, context.getShared().getCacheDB());
+    this.cache = GitFilterHelper.getMetadataCache(this, context.getShared().getCacheDB());
     final LfsServer lfsServer = context.getShared().get(LfsServer.class);
     if (storage != null && lfsServer != null) {
       context.add(LfsServerEntry.class, new LfsServerEntry(lfsServer, context, storage));
@@ -75,7 +76,7 @@ public final class LfsFilter implements GitFilter {
       }
     }
 
-    return GitFilterHelper.getMd5(this, cacheMd5, null, objectId);
+    return GitFilterHelper.getMd5(this, cache, objectId);
   }
 
   @Override
@@ -91,6 +92,17 @@ public final class LfsFilter implements GitFilter {
     return loader.getSize();
   }
 
+  @Override
+  public long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    // Size is known without content reading.
+    return getSize(objectId);
+  }
+
+  @Override
+  public boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.isBinary(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public InputStream inputStream(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
@@ -109,6 +121,12 @@ public final class LfsFilter implements GitFilter {
     }
   }
 
+  @NotNull
+  @Override
+  public InputStream inputStreamWithMetadata(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.inputStreamWithMetadata(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public OutputStream outputStream(@NotNull OutputStream stream, @NotNull User user) throws IOException {
@@ -12,13 +12,15 @@ import org.jetbrains.annotations.Nullable;
 import svnserver.parser.token.*;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Parameter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Parse data from class.
@@ -35,11 +37,14 @@ public final class MessageParser {
   private static final byte[] emptyBytes = {};
   @NotNull
   private static final int[] emptyInts = {};
+  /**
+   * Parsers by type. Object and array parsers are built once on first use.
+   */
   @NotNull
   private static final Map<Class<?>, Parser> parsers;
 
   static {
-    parsers = new HashMap<>();
+    parsers = new ConcurrentHashMap<>();
     parsers.put(String.class, MessageParser::parseString);
     parsers.put(byte[].class, MessageParser::parseBinary);
     parsers.put(int.class, MessageParser::parseInt);
@@ -50,58 +55,106 @@ public final class MessageParser {
   @SuppressWarnings("unchecked")
   @NotNull
   public static <T> T parse(@NotNull Class<T> type, @Nullable SvnServerParser tokenParser) throws IOException {
-    Parser typeParser = parsers.get(type);
-    if (typeParser != null) {
-      return (T) typeParser.parse(tokenParser);
-    }
-    return parseObject(type, tokenParser);
+    return (T) getParser(type).parse(tokenParser);
   }
 
-  @SuppressWarnings("unchecked")
   @NotNull
-  private static <T> T parseObject(@NotNull Class<T> type, @Nullable SvnServerParser tokenParser) throws IOException {
-    if (tokenParser != null && tokenParser.readItem(ListBeginToken.class) == null)
-      tokenParser = null;
+  private static Parser getParser(@NotNull Class<?> type) {
+    final Parser parser = parsers.get(type);
+    if (parser != null)
+      return parser;
+
+    // Don't use computeIfAbsent: object parser creation is recursive.
+    final Parser created = type.isArray() ? new ArrayParser(type.getComponentType()) : new ObjectParser(type);
+    final Parser prev = parsers.putIfAbsent(type, created);
+    return prev != null ? prev : created;
+  }
 
-    final int depth = getDepth(tokenParser);
+  private static final class ArrayParser implements Parser {
+    @NotNull
+    private final Class<?> componentType;
+    @NotNull
+    private final Parser componentParser;
 
-    if (type.isArray()) {
-      final List<Object> result = new ArrayList<>();
+    private ArrayParser(@NotNull Class<?> componentType) {
+      this.componentType = componentType;
+      this.componentParser = getParser(componentType);
+    }
 
+    @NotNull
+    @Override
+    public Object parse(@Nullable SvnServerParser tokenParser) throws IOException {
+      if (tokenParser != null && tokenParser.readItem(ListBeginToken.class) == null)
+        tokenParser = null;
+
+      final int depth = getDepth(tokenParser);
+      final List<Object> result = new ArrayList<>();
       if (tokenParser != null) {
         while (true) {
-          final Object element = parse(type.getComponentType(), tokenParser);
+          final Object element = componentParser.parse(tokenParser);
           if (getDepth(tokenParser) < depth)
             break;
 
           result.add(element);
         }
       }
-
-      return (T) result.toArray((Object[]) Array.newInstance(type.getComponentType(), result.size()));
+      return result.toArray((Object[]) Array.newInstance(componentType, result.size()));
     }
+  }
 
-    final Constructor<?>[] ctors = type.getDeclaredConstructors();
-    if (ctors.length != 1) {
-      throw new IllegalStateException("Can't find parser ctor for object: " + type.getName());
-    }
-    final Constructor<?> ctor = ctors[0];
-    final Parameter[] ctorParams = ctor.getParameters();
-    Object[] params = new Object[ctorParams.length];
-    for (int i = 0; i < params.length; ++i) {
-      params[i] = parse(ctorParams[i].getType(), getDepth(tokenParser) == depth ? tokenParser : null);
-    }
-    while (tokenParser != null && getDepth(tokenParser) >= depth) {
-        tokenParser.readToken();
-    }
+  private static final class ObjectParser implements Parser {
+    /**
+     * Constructor handle with signature (Object[])Object.
+     */
+    @NotNull
+    private final MethodHandle ctor;
+    @NotNull
+    private final Parser[] params;
 
-    try {
-      if (!ctor.isAccessible())
+    private ObjectParser(@NotNull Class<?> type) {
+      final Constructor<?>[] ctors = type.getDeclaredConstructors();
+      if (ctors.length != 1) {
+        throw new IllegalStateException("Can't find parser ctor for object: " + type.getName());
+      }
+      final Constructor<?> ctor = ctors[0];
+      final Class<?>[] paramTypes = ctor.getParameterTypes();
+      params = new Parser[paramTypes.length];
+      for (int i = 0; i < paramTypes.length; ++i) {
+        params[i] = getParser(paramTypes[i]);
+      }
+      try {
         ctor.setAccessible(true);
+        this.ctor = MethodHandles.lookup()
+            .unreflectConstructor(ctor)
+            .asSpreader(Object[].class, paramTypes.length)
+            .asType(MethodType.methodType(Object.class, Object[].class));
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
 
-      return (T) ctor.newInstance(params);
-    } catch (ReflectiveOperationException e) {
-      throw new IllegalStateException(e);
+    @NotNull
+    @Override
+    public Object parse(@Nullable SvnServerParser tokenParser) throws IOException {
+      if (tokenParser != null && tokenParser.readItem(ListBeginToken.class) == null)
+        tokenParser = null;
+
+      final int depth = getDepth(tokenParser);
+      final Object[] args = new Object[params.length];
+      for (int i = 0; i < args.length; ++i) {
+        args[i] = params[i].parse(getDepth(tokenParser) == depth ? tokenParser : null);
+      }
+      while (tokenParser != null && getDepth(tokenParser) >= depth) {
+        tokenParser.readToken();
+      }
+
+      try {
+        return (Object) ctor.invokeExact(args);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
     }
   }
 
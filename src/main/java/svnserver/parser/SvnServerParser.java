@@ -12,10 +12,10 @@ import org.jetbrains.annotations.Nullable;
 import svnserver.parser.token.*;
 
 import java.io.EOFException;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
 /**
  * Интерфейс для чтения токенов из потока.
@@ -25,25 +25,56 @@ import java.util.Arrays;
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public final class SvnServerParser {
+  /**
+   * Consumer for binary string content.
+   * <p>
+   * Data is passed as slice of parser buffer and is valid only during the call.
+   */
+  @FunctionalInterface
+  public interface ChunkConsumer<E extends Exception> {
+    void accept(@NotNull byte[] data, int offset, int length) throws E;
+  }
+
   private static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
   // Buffer size limit for out-of-memory prevention.
   private static final int MAX_BUFFER_SIZE = 10 * 1024 * 1024;
+  // Word cache size, must be power of two.
+  private static final int WORD_CACHE_SIZE = 64;
   @NotNull
   private final InputStream stream;
+  @Nullable
+  private final Flushable output;
   private int depth = 0;
 
   @NotNull
   private final byte[] buffer;
   private int offset = 0;
   private int limit = 0;
+  // Protocol uses small set of words, so they are reused instead of allocation for every token.
+  @NotNull
+  private final WordToken[] wordCache = new WordToken[WORD_CACHE_SIZE];
 
-  public SvnServerParser(@NotNull InputStream stream, int bufferSize) {
+  /**
+   * @param stream     Input stream.
+   * @param output     Output, that is flushed before reading from stream: peer may wait for our data before sending its own.
+   * @param bufferSize Read buffer size.
+   */
+  public SvnServerParser(@NotNull InputStream stream, @Nullable Flushable output, int bufferSize) {
     this.stream = stream;
+    this.output = output;
     this.buffer = new byte[Math.max(1, bufferSize)];
   }
 
+  public SvnServerParser(@NotNull InputStream stream, int bufferSize) {
+    this(stream, null, bufferSize);
+  }
+
+  public SvnServerParser(@NotNull InputStream stream, @Nullable Flushable output) {
+    this(stream, output, DEFAULT_BUFFER_SIZE);
+  }
+
   public SvnServerParser(@NotNull InputStream stream) {
-    this(stream, DEFAULT_BUFFER_SIZE);
+    this(stream, null, DEFAULT_BUFFER_SIZE);
   }
 
   @NotNull
@@ -59,6 +90,18 @@ public final class SvnServerParser {
     return depth;
   }
 
+  /**
+   * Check for already received, but not parsed data.
+   * <p>
+   * Buffered whitespace is consumed as it could not start new token.
+   */
+  public boolean hasBufferedData() {
+    while (offset < limit && isSpace(buffer[offset]))
+      offset++;
+
+    return offset < limit;
+  }
+
   /**
    * Чтение элемента указанного типа из потока.
    *
@@ -138,7 +181,7 @@ public final class SvnServerParser {
             return readString(result);
           }
           if (isSpace(data)) {
-            return new NumberToken(result);
+            return NumberToken.valueOf(result);
           }
           throw new IOException("Unexpected character in stream: " + data + " (need ' ', '\\n' or ':')");
         }
@@ -148,7 +191,7 @@ public final class SvnServerParser {
         throw new EOFException();
       }
       offset = 0;
-      limit = stream.read(buffer);
+      limit = read(buffer, 0, buffer.length);
     }
   }
 
@@ -165,7 +208,7 @@ public final class SvnServerParser {
         throw new EOFException();
       }
       offset = 0;
-      limit = stream.read(buffer);
+      limit = read(buffer, 0, buffer.length);
     }
   }
 
@@ -196,7 +239,7 @@ public final class SvnServerParser {
       limit = 0;
       offset = 0;
       while (position < length) {
-        int size = stream.read(token, position, length - position);
+        int size = read(token, position, length - position);
         if (size < 0) {
           limit = -1;
           throw new EOFException();
@@ -204,7 +247,97 @@ public final class SvnServerParser {
         position += size;
       }
     }
-    return new StringToken(Arrays.copyOf(token, length));
+    return new StringToken(token);
+  }
+
+  /**
+   * Read binary string item without intermediate copy.
+   * <p>
+   * String content is passed to consumer by chunks directly from read buffer,
+   * so payload size is not limited by buffer size. If consumer fails, rest of string is skipped.
+   *
+   * @param consumer String content consumer.
+   * @return Returns false if list end was read instead of string.
+   */
+  public <E extends Exception> boolean readBinary(@NotNull ChunkConsumer<E> consumer) throws IOException, E {
+    final byte read = skipSpaces();
+    if (read == ')') {
+      depth--;
+      if (depth < 0) {
+        throw new IOException("Unexpect end of list token.");
+      }
+      return false;
+    }
+    if (!isDigit(read)) {
+      throw new IOException("Unexpected character in stream: " + read + " (need '0'..'9')");
+    }
+    long remaining = readLength(read);
+    while (remaining > 0) {
+      if (offset >= limit) {
+        offset = 0;
+        limit = read(buffer, 0, buffer.length);
+        if (limit < 0) {
+          throw new EOFException();
+        }
+        continue;
+      }
+      final int size = (int) Math.min(remaining, limit - offset);
+      offset += size;
+      remaining -= size;
+      try {
+        consumer.accept(buffer, offset - size, size);
+      } catch (Throwable e) {
+        // Keep stream position on string end, so caller can report error and continue session
+        try {
+          skipBinary(remaining);
+        } catch (IOException skipError) {
+          e.addSuppressed(skipError);
+        }
+        throw e;
+      }
+    }
+    return true;
+  }
+
+  private void skipBinary(long remaining) throws IOException {
+    while (remaining > 0) {
+      if (offset >= limit) {
+        offset = 0;
+        limit = read(buffer, 0, buffer.length);
+        if (limit < 0) {
+          throw new EOFException();
+        }
+        continue;
+      }
+      final int size = (int) Math.min(remaining, limit - offset);
+      offset += size;
+      remaining -= size;
+    }
+  }
+
+  private long readLength(byte first) throws IOException {
+    long result = first - '0';
+    while (true) {
+      while (offset < limit) {
+        final byte data = buffer[offset];
+        offset++;
+        if (data == ':') {
+          return result;
+        }
+        if (!isDigit(data)) {
+          throw new IOException("Unexpected character in stream: " + data + " (need ':')");
+        }
+        result = result * 10 + (data - '0');
+        if (result > Integer.MAX_VALUE) {
+          throw new IOException("String length is too big: " + result);
+        }
+      }
+      if (limit < 0) {
+        throw new EOFException();
+      }
+      offset = 0;
+      limit = read(buffer, 0, buffer.length);
+    }
   }
 
   private static boolean isAlpha(int data) {
@@ -219,7 +352,7 @@ public final class SvnServerParser {
       final byte data = buffer[offset];
       offset++;
       if (isSpace(data)) {
-        return new WordToken(new String(buffer, begin, offset - begin - 1, StandardCharsets.US_ASCII));
+        return word(begin, offset - begin - 1);
       }
       if (!(isAlpha(data) || isDigit(data) || (data == '-'))) {
         throw new IOException("Unexpected character in stream: " + data + " (need 'a'..'z', 'A'..'Z', '0'..'9' or '-')");
@@ -229,7 +362,7 @@ public final class SvnServerParser {
     limit = offset - begin;
     offset = limit;
     while (limit < buffer.length) {
-      int size = stream.read(buffer, limit, buffer.length - limit);
+      int size = read(buffer, limit, buffer.length - limit);
       if (size < 0) {
         throw new EOFException();
       }
@@ -238,7 +371,7 @@ public final class SvnServerParser {
         final byte data = buffer[offset];
         offset++;
         if (isSpace(data)) {
-          return new WordToken(new String(buffer, 0, offset - 1, StandardCharsets.US_ASCII));
+          return word(0, offset - 1);
         }
         if (!(isAlpha(data) || isDigit(data) || (data == '-'))) {
           throw new IOException("Unexpected character in stream: " + data + " (need 'a'..'z', 'A'..'Z', '0'..'9' or '-')");
@@ -248,6 +381,41 @@ public final class SvnServerParser {
     throw new IOException("Data is too long. Buffer overflow: " + buffer.length);
   }
 
+  @NotNull
+  private WordToken word(int begin, int length) {
+    int hash = 0;
+    for (int i = begin; i < begin + length; ++i) {
+      hash = hash * 31 + buffer[i];
+    }
+    final int slot = (hash ^ (hash >>> 16)) & (WORD_CACHE_SIZE - 1);
+    final WordToken cached = wordCache[slot];
+    if (cached != null && isSameWord(cached.getText(), begin, length)) {
+      return cached;
+    }
+    final WordToken token = new WordToken(new String(buffer, begin, length, StandardCharsets.US_ASCII));
+    wordCache[slot] = token;
+    return token;
+  }
+
+  private boolean isSameWord(@NotNull String word, int begin, int length) {
+    if (word.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (word.charAt(i) != buffer[begin + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int read(@NotNull byte[] data, int offset, int length) throws IOException {
+    if (output != null) {
+      output.flush();
+    }
+    return stream.read(data, offset, length);
+  }
+
   public void skipItems() throws IOException {
     int depth = 0;
     while (depth >= 0) {
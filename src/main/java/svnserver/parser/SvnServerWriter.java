@@ -11,25 +11,50 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import svnserver.parser.token.*;
 
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
  * Интерфейс для записи данных в поток.
+ * <p>
+ * Data is buffered until buffer is full or {@link #flush()} is called,
+ * so it is caller's responsibility to flush writer before waiting for client response.
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
-public final class SvnServerWriter implements Closeable {
+public final class SvnServerWriter implements Closeable, Flushable {
+  private static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+  // Enough for any number or single UTF-8 encoded character.
+  private static final int MIN_BUFFER_SIZE = 64;
   @NotNull
   private final OutputStream stream;
+  @NotNull
+  private final byte[] buffer;
+  private int position = 0;
   private int depth = 0;
+  @NotNull
+  private final OutputStream bufferStream = new OutputStream() {
+    @Override
+    public void write(int b) throws IOException {
+      writeByte(b);
+    }
+
+    @Override
+    public void write(@NotNull byte[] data, int offset, int length) throws IOException {
+      writeBytes(data, offset, length);
+    }
+  };
 
   public SvnServerWriter(@NotNull OutputStream stream) {
-    this.stream = new BufferedOutputStream(stream);
+    this(stream, DEFAULT_BUFFER_SIZE);
+  }
+
+  public SvnServerWriter(@NotNull OutputStream stream, int bufferSize) {
+    this.stream = stream;
+    this.buffer = new byte[Math.max(MIN_BUFFER_SIZE, bufferSize)];
   }
 
   @NotNull
@@ -49,8 +74,10 @@ public final class SvnServerWriter implements Closeable {
 
   @NotNull
   public SvnServerWriter word(@NotNull String word) throws IOException {
-    WordToken.write(stream, word);
-    if (depth == 0) stream.flush();
+    for (int i = 0; i < word.length(); ++i) {
+      writeByte(word.charAt(i));
+    }
+    writeByte(' ');
     return this;
   }
 
@@ -63,10 +90,42 @@ public final class SvnServerWriter implements Closeable {
     return this;
   }
 
+  /**
+   * Write string as UTF-8 directly to buffer without intermediate byte array.
+   */
   @SuppressWarnings("QuestionableName")
   @NotNull
   public SvnServerWriter string(@NotNull String text) throws IOException {
-    return binary(text.getBytes(StandardCharsets.UTF_8));
+    writeNumber(utf8Length(text));
+    writeByte(':');
+    final int length = text.length();
+    for (int i = 0; i < length; ++i) {
+      if (buffer.length - position < 4)
+        flushBuffer();
+
+      final char c = text.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[position++] = (byte) (0xC0 | (c >> 6));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // Unpaired surrogate, same replacement as String.getBytes(UTF_8)
+        buffer[position++] = '?';
+      } else {
+        buffer[position++] = (byte) (0xE0 | (c >> 12));
+        buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    writeByte(' ');
+    return this;
   }
 
   @NotNull
@@ -76,21 +135,23 @@ public final class SvnServerWriter implements Closeable {
 
   @NotNull
   public SvnServerWriter binary(@NotNull byte[] data, int offset, int length) throws IOException {
-    StringToken.write(stream, data, offset, length);
-    if (depth == 0) stream.flush();
+    writeNumber(length);
+    writeByte(':');
+    writeBytes(data, offset, length);
+    writeByte(' ');
     return this;
   }
 
   @NotNull
   public SvnServerWriter number(long number) throws IOException {
-    NumberToken.write(stream, number);
-    if (depth == 0) stream.flush();
+    writeNumber(number);
+    writeByte(' ');
     return this;
   }
 
   @NotNull
   public SvnServerWriter separator() throws IOException {
-    stream.write('\n');
+    writeByte('\n');
     return this;
   }
 
@@ -101,7 +162,7 @@ public final class SvnServerWriter implements Closeable {
 
   @NotNull
   public SvnServerWriter write(@NotNull SvnServerToken token) throws IOException {
-    token.write(stream);
+    token.write(bufferStream);
     if (token.equals(ListBeginToken.instance)) {
       depth++;
     } else if (token.equals(ListEndToken.instance)) {
@@ -112,7 +173,6 @@ public final class SvnServerWriter implements Closeable {
     }
     if (depth == 0) {
       separator();
-      stream.flush();
     }
     return this;
   }
@@ -143,11 +203,98 @@ public final class SvnServerWriter implements Closeable {
     return this;
   }
 
+  /**
+   * Check for written, but not flushed data.
+   */
+  public boolean hasBufferedData() {
+    return position > 0;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    stream.flush();
+  }
+
   @Override
   public void close() throws IOException {
     try (OutputStream ignored = stream) {
+      flush();
       if (depth != 0)
         throw new IllegalStateException("Unmatched parentheses");
     }
   }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      stream.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  private void writeByte(int data) throws IOException {
+    if (position >= buffer.length)
+      flushBuffer();
+
+    buffer[position++] = (byte) data;
+  }
+
+  private void writeBytes(@NotNull byte[] data, int offset, int length) throws IOException {
+    if (length > buffer.length - position) {
+      flushBuffer();
+      // Large data is written directly
+      if (length >= buffer.length) {
+        stream.write(data, offset, length);
+        return;
+      }
+    }
+    System.arraycopy(data, offset, buffer, position, length);
+    position += length;
+  }
+
+  private void writeNumber(long number) throws IOException {
+    if (number < 0) {
+      writeByte('-');
+      if (number == Long.MIN_VALUE) {
+        writeNumber(-(number / 10));
+        writeByte('0' - (int) (number % 10));
+        return;
+      }
+      number = -number;
+    }
+    if (buffer.length - position < 20)
+      flushBuffer();
+
+    int digits = 1;
+    for (long i = number; i >= 10; i /= 10)
+      digits++;
+
+    int index = position + digits;
+    position = index;
+    do {
+      buffer[--index] = (byte) ('0' + (number % 10));
+      number /= 10;
+    } while (number != 0);
+  }
+
+  private static int utf8Length(@NotNull String text) {
+    final int length = text.length();
+    int result = length;
+    for (int i = 0; i < length; ++i) {
+      final char c = text.charAt(i);
+      if (c < 0x80) {
+        continue;
+      }
+      if (c < 0x800) {
+        result += 1;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        // Two chars are encoded with four bytes
+        result += 2;
+        i++;
+      } else if (!Character.isSurrogate(c)) {
+        result += 2;
+      }
+    }
+    return result;
+  }
 }
@@ -20,12 +20,32 @@ import java.nio.charset.StandardCharsets;
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public final class NumberToken implements SvnServerToken {
+  @NotNull
+  private static final NumberToken[] cache = new NumberToken[1024];
+
+  static {
+    for (int i = 0; i < cache.length; ++i) {
+      cache[i] = new NumberToken(i);
+    }
+  }
+
   private final int number;
 
   public NumberToken(int number) {
     this.number = number;
   }
 
+  /**
+   * Returns shared token instance for small numbers.
+   */
+  @NotNull
+  public static NumberToken valueOf(int number) {
+    if (number >= 0 && number < cache.length) {
+      return cache[number];
+    }
+    return new NumberToken(number);
+  }
+
   public int getNumber() {
     return number;
   }
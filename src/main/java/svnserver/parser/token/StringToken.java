@@ -8,6 +8,7 @@
 package svnserver.parser.token;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import svnserver.StringHelper;
 
 import java.io.IOException;
@@ -25,6 +26,9 @@ import java.util.Arrays;
 public final class StringToken implements TextToken {
   @NotNull
   private final byte[] data;
+  // Decoded lazily: binary strings (like delta chunks) are never decoded.
+  @Nullable
+  private String text;
 
   public StringToken(@NotNull byte[] data) {
     this.data = data;
@@ -32,12 +36,18 @@ public final class StringToken implements TextToken {
 
   public StringToken(@NotNull String text) {
     this.data = text.getBytes(StandardCharsets.UTF_8);
+    this.text = text;
   }
 
   @Override
   @NotNull
   public String getText() {
-    return new String(data, StandardCharsets.UTF_8);
+    String result = text;
+    if (result == null) {
+      result = new String(data, StandardCharsets.UTF_8);
+      text = result;
+    }
+    return result;
   }
 
   @NotNull
@@ -27,18 +27,25 @@ import svnserver.auth.User;
 import svnserver.repository.VcsCopyFrom;
 import svnserver.repository.git.cache.CacheChange;
 import svnserver.repository.git.cache.CacheRevision;
+import svnserver.repository.git.cache.PathChangeIndex;
+import svnserver.repository.git.cache.RevisionIndex;
 
 import java.io.IOException;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public final class GitBranch {
   private static final int revisionCacheVersion = 2;
   private static final int repositoryVersion = 4;
   private static final int REPORT_DELAY = 2500;
-  private static final int MARK_NO_FILE = -1;
+  private static final int INDEX_BATCH_SIZE = 1000;
   @NotNull
   private static final Logger log = Loggers.git;
   @NotNull
@@ -56,20 +63,30 @@ public final class GitBranch {
    */
   @NotNull
   private final Object pushLock = new Object();
+  /**
+   * Published revisions, readers use it without locking.
+   */
   @NotNull
-  private final List<GitRevision> revisions = new ArrayList<>();
-  @NotNull
-  private final TreeMap<Long, GitRevision> revisionByDate = new TreeMap<>();
+  private volatile RevisionSnapshot snapshot = RevisionSnapshot.create();
+  /**
+   * Revisions being loaded, guarded by {@link #lock}.
+   */
   @NotNull
-  private final Map<ObjectId, GitRevision> revisionByHash = new HashMap<>();
+  private RevisionSnapshot pending = snapshot;
   @NotNull
   private final HTreeMap<ObjectId, CacheRevision> revisionCache;
+  @Nullable
+  private final RevisionIndex revisionIndex;
+  /**
+   * Lock for path change index of snapshots.
+   */
   @NotNull
   private final ReadWriteLock lastUpdatesLock = new ReentrantReadWriteLock();
+  /**
+   * Lock for revision loading.
+   */
   @NotNull
-  private final Map<String, int[]> lastUpdates = new HashMap<>();
-  @NotNull
-  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock lock = new ReentrantLock();
 
   public GitBranch(@NotNull GitRepository repository, @NotNull String branch) throws IOException {
     this.repository = repository;
@@ -91,6 +108,9 @@ public final class GitBranch {
         ObjectIdSerializer.instance,
         CacheRevisionSerializer.instance
     ).createOrOpen();
+
+    final Path indexPath = repository.getContext().getShared().getIndexPath();
+    this.revisionIndex = indexPath == null ? null : new RevisionIndex(indexPath.resolve(URLEncoder.encode(revisionCacheName, StandardCharsets.UTF_8.name()) + ".idx"));
   }
 
   @NotNull
@@ -127,31 +147,45 @@ public final class GitBranch {
 
   @Nullable
   private GitRevision getRevisionInfoUnsafe(int revision) {
-    lock.readLock().lock();
-    try {
-      if (revision >= revisions.size())
-        return null;
-      return revisions.get(revision);
-    } finally {
-      lock.readLock().unlock();
-    }
+    return snapshot.get(revision);
   }
 
   @NotNull
   public GitRevision getLatestRevision() {
-    lock.readLock().lock();
-    try {
-      return revisions.get(revisions.size() - 1);
-    } finally {
-      lock.readLock().unlock();
-    }
+    final GitRevision revision = snapshot.getLatest();
+    if (revision == null)
+      throw new IllegalStateException("Revisions are not loaded yet: " + this);
+
+    return revision;
+  }
+
+  /**
+   * Lock-free check that loaded revisions match current branch refs.
+   *
+   * @return Returns false if revisions are not loaded or branch was changed after last update.
+   */
+  public boolean isUpToDate() throws IOException {
+    final GitRevision lastRevision = snapshot.getLatest();
+    if (lastRevision == null)
+      return false;
+
+    final Ref head = repository.getGit().exactRef(svnBranch);
+    if (head == null || !head.getObjectId().equals(lastRevision.getCacheCommit()))
+      return false;
+
+    final Ref master = repository.getGit().exactRef(gitBranch);
+    return master == null || master.getObjectId().equals(lastRevision.getGitNewCommit());
   }
 
   public void updateRevisions() throws IOException, SVNException {
     boolean gotNewRevisions = false;
+    int lastKnownRevision = -1;
 
     while (true) {
       loadRevisions();
+      if (lastKnownRevision < 0)
+        lastKnownRevision = getLatestRevision().getId();
+
       if (!cacheRevisions()) {
         break;
       }
@@ -159,6 +193,10 @@ public final class GitBranch {
     }
 
     if (gotNewRevisions) {
+      final GitMetadataProducer metadataProducer = repository.getContext().getShared().get(GitMetadataProducer.class);
+      if (metadataProducer != null)
+        metadataProducer.submit(this, lastKnownRevision + 1, getLatestRevision().getId());
+
       final boolean locksChanged = repository.wrapLockWrite(lockStorage -> lockStorage.cleanupInvalidLocks(this));
       if (locksChanged)
         repository.getContext().getShared().getCacheDB().commit();
@@ -170,59 +208,145 @@ public final class GitBranch {
    */
   private void loadRevisions() throws IOException {
     // Fast check.
-    lock.readLock().lock();
-    try {
-      final int lastRevision = revisions.size() - 1;
-      final ObjectId lastCommitId;
-      if (lastRevision >= 0) {
-        lastCommitId = revisions.get(lastRevision).getCacheCommit();
-        final Ref head = repository.getGit().exactRef(svnBranch);
-        if (head.getObjectId().equals(lastCommitId)) {
-          return;
-        }
+    final GitRevision lastRevision = snapshot.getLatest();
+    if (lastRevision != null) {
+      final Ref head = repository.getGit().exactRef(svnBranch);
+      if (head.getObjectId().equals(lastRevision.getCacheCommit())) {
+        return;
       }
-    } finally {
-      lock.readLock().unlock();
     }
     // Real loading.
-    lock.writeLock().lock();
+    lock.lock();
     try {
-      final int lastRevision = revisions.size() - 1;
-      final ObjectId lastCommitId = lastRevision < 0 ? null : revisions.get(lastRevision).getCacheCommit();
+      if (pending.isEmpty())
+        loadIndexedRevisions();
+
       final Ref head = repository.getGit().exactRef(svnBranch);
-      final List<RevCommit> newRevs = new ArrayList<>();
-      final RevWalk revWalk = new RevWalk(repository.getGit());
-      ObjectId objectId = head.getObjectId();
-      while (true) {
-        if (objectId.equals(lastCommitId)) {
-          break;
-        }
-        final RevCommit commit = revWalk.parseCommit(objectId);
-        newRevs.add(commit);
-        if (commit.getParentCount() == 0) break;
-        objectId = commit.getParent(0);
+      List<RevCommit> newRevs = collectCacheCommits(head.getObjectId());
+      if (newRevs == null) {
+        log.warn("[{}]: revision index does not match cache commits, rebuilding", this);
+        resetRevisions();
+        newRevs = collectCacheCommits(head.getObjectId());
+        assert newRevs != null;
       }
       if (newRevs.isEmpty()) {
+        publish();
         return;
       }
+      // Rebuilt history is published only when it is complete, readers use previous revisions until that.
+      final boolean partialPublish = !pending.isEmpty() || snapshot.isEmpty();
       final long beginTime = System.currentTimeMillis();
       int processed = 0;
       long reportTime = beginTime;
       log.info("[{}]: loading cached revision changes: {} revisions", this, newRevs.size());
-      for (int i = newRevs.size() - 1; i >= 0; i--) {
-        loadRevisionInfo(newRevs.get(i));
-        processed++;
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - reportTime > REPORT_DELAY) {
-          log.info("[{}]: processed cached revision: {}/{} ({} rev/sec)", this, newRevs.size() - i, newRevs.size(), 1000.0f * processed / (currentTime - reportTime));
-          reportTime = currentTime;
-          processed = 0;
+      try (ObjectReader reader = repository.getGit().newObjectReader()) {
+        for (int batchEnd = newRevs.size(); batchEnd > 0; batchEnd -= INDEX_BATCH_SIZE) {
+          final List<RevCommit> batch = new ArrayList<>(newRevs.subList(Math.max(0, batchEnd - INDEX_BATCH_SIZE), batchEnd));
+          Collections.reverse(batch);
+          // Revision changes are independent, only numbering needs sequential processing.
+          final List<CacheRevision> cacheRevisions = loadCacheRevisions(batch, pending.size());
+          final List<RevisionIndex.Entry> indexEntries = new ArrayList<>(batch.size());
+          for (int i = 0; i < batch.size(); ++i)
+            indexEntries.add(loadRevisionInfo(reader, batch.get(i), cacheRevisions.get(i)));
+
+          appendIndex(indexEntries);
+          if (partialPublish)
+            publish();
+
+          processed += batch.size();
+          long currentTime = System.currentTimeMillis();
+          if (currentTime - reportTime > REPORT_DELAY) {
+            log.info("[{}]: processed cached revision: {}/{} ({} rev/sec)", this, newRevs.size() - batchEnd + batch.size(), newRevs.size(), 1000.0f * processed / (currentTime - reportTime));
+            reportTime = currentTime;
+            processed = 0;
+          }
         }
       }
+      publish();
       final long endTime = System.currentTimeMillis();
       log.info("[{}]: {} cached revision loaded: {} ms", this, newRevs.size(), endTime - beginTime);
     } finally {
-      lock.writeLock().unlock();
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Collect cache commits after last loaded revision.
+   *
+   * @return Cache commits in reverse order or null if last loaded revision is not reachable from head.
+   */
+  @Nullable
+  private List<RevCommit> collectCacheCommits(@NotNull ObjectId head) throws IOException {
+    final GitRevision lastRevision = pending.getLatest();
+    final ObjectId lastCommitId = lastRevision == null ? null : lastRevision.getCacheCommit();
+    final List<RevCommit> newRevs = new ArrayList<>();
+    final RevWalk revWalk = new RevWalk(repository.getGit());
+    ObjectId objectId = head;
+    while (true) {
+      if (objectId.equals(lastCommitId)) {
+        return newRevs;
+      }
+      final RevCommit commit = revWalk.parseCommit(objectId);
+      newRevs.add(commit);
+      if (commit.getParentCount() == 0) break;
+      objectId = commit.getParent(0);
+    }
+    return lastCommitId == null ? newRevs : null;
+  }
+
+  /**
+   * Restore revisions from persistent index without reading revision cache.
+   */
+  private void loadIndexedRevisions() {
+    if (revisionIndex == null)
+      return;
+
+    try {
+      final long beginTime = System.currentTimeMillis();
+      final List<RevisionIndex.Entry> entries = revisionIndex.read();
+      if (entries.isEmpty())
+        return;
+
+      for (RevisionIndex.Entry entry : entries)
+        addRevision(entry);
+
+      log.info("[{}]: {} indexed revision loaded: {} ms", this, entries.size(), System.currentTimeMillis() - beginTime);
+    } catch (IOException e) {
+      log.warn("[{}]: can't load revision index {}, rebuilding", this, revisionIndex.getFile(), e);
+      resetRevisions();
+    }
+  }
+
+  private void appendIndex(@NotNull List<RevisionIndex.Entry> entries) {
+    if (revisionIndex == null)
+      return;
+
+    try {
+      revisionIndex.append(entries);
+    } catch (IOException e) {
+      log.warn("[{}]: can't update revision index {}", this, revisionIndex.getFile(), e);
+    }
+  }
+
+  /**
+   * Make loaded revisions visible for readers.
+   */
+  private void publish() {
+    snapshot = pending;
+  }
+
+  /**
+   * Drop loaded revisions, readers still see published ones until new revisions are published.
+   */
+  private void resetRevisions() {
+    // Published snapshot keeps own path change index.
+    pending = RevisionSnapshot.create();
+    if (revisionIndex != null) {
+      try {
+        revisionIndex.reset();
+      } catch (IOException e) {
+        log.warn("[{}]: can't reset revision index {}", this, revisionIndex.getFile(), e);
+      }
     }
   }
 
@@ -231,28 +355,23 @@ public final class GitBranch {
    */
   private boolean cacheRevisions() throws IOException {
     // Fast check.
-    lock.readLock().lock();
-    try {
-      final int lastRevision = revisions.size() - 1;
-      if (lastRevision >= 0) {
-        final ObjectId lastCommitId = revisions.get(lastRevision).getGitNewCommit();
-        final Ref master = repository.getGit().exactRef(gitBranch);
-        if ((master == null) || (master.getObjectId().equals(lastCommitId))) {
-          return false;
-        }
+    final GitRevision lastRevision = snapshot.getLatest();
+    if (lastRevision != null) {
+      final ObjectId lastCommitId = lastRevision.getGitNewCommit();
+      final Ref master = repository.getGit().exactRef(gitBranch);
+      if ((master == null) || (master.getObjectId().equals(lastCommitId))) {
+        return false;
       }
-    } finally {
-      lock.readLock().unlock();
     }
     // Real update.
-    lock.writeLock().lock();
+    lock.lock();
     try (ObjectInserter inserter = repository.getGit().newObjectInserter()) {
       final Ref master = repository.getGit().exactRef(gitBranch);
       final List<RevCommit> newRevs = new ArrayList<>();
       final RevWalk revWalk = new RevWalk(repository.getGit());
       ObjectId objectId = master.getObjectId();
       while (true) {
-        if (revisionByHash.containsKey(objectId)) {
+        if (pending.getByCommit(objectId) != null) {
           break;
         }
         final RevCommit commit = revWalk.parseCommit(objectId);
@@ -265,8 +384,8 @@ public final class GitBranch {
         int processed = 0;
         long reportTime = beginTime;
         log.info("[{}]: Loading revision changes: {} revision", this, newRevs.size());
-        int revisionId = revisions.size();
-        ObjectId cacheId = revisions.get(revisions.size() - 1).getCacheCommit();
+        int revisionId = pending.size();
+        ObjectId cacheId = pending.getLatest().getCacheCommit();
         for (int i = newRevs.size() - 1; i >= 0; i--) {
           final RevCommit revCommit = newRevs.get(i);
           cacheId = LayoutHelper.createCacheCommit(inserter, cacheId, revCommit, revisionId, Collections.emptyMap());
@@ -294,51 +413,63 @@ public final class GitBranch {
       }
       return !newRevs.isEmpty();
     } finally {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
-  private void loadRevisionInfo(@NotNull RevCommit commit) throws IOException {
-    final ObjectReader reader = repository.getGit().newObjectReader();
-    final CacheRevision cacheRevision = loadCacheRevision(reader, commit, revisions.size());
-    final int revisionId = revisions.size();
+  /**
+   * Load revision changes of sequential commits, in parallel if indexing pool allows it.
+   *
+   * @param commits         Commits in revision order.
+   * @param firstRevisionId Revision number of first commit.
+   * @return Revision changes in the same order as commits.
+   */
+  @NotNull
+  private List<CacheRevision> loadCacheRevisions(@NotNull List<RevCommit> commits, int firstRevisionId) throws IOException {
+    final List<Callable<CacheRevision>> tasks = new ArrayList<>(commits.size());
+    for (int i = 0; i < commits.size(); ++i) {
+      final RevCommit commit = commits.get(i);
+      final int revisionId = firstRevisionId + i;
+      tasks.add(() -> {
+        try (ObjectReader reader = repository.getGit().newObjectReader()) {
+          return loadCacheRevision(reader, commit, revisionId);
+        }
+      });
+    }
+    return repository.getIndexingPool().invokeAll(tasks);
+  }
+
+  @NotNull
+  private RevisionIndex.Entry loadRevisionInfo(@NotNull ObjectReader reader, @NotNull RevCommit commit, @NotNull CacheRevision cacheRevision) throws IOException {
+    final Map<String, Boolean> changes = new LinkedHashMap<>();
+    for (Map.Entry<String, CacheChange> entry : cacheRevision.getFileChange().entrySet()) {
+      changes.put(entry.getKey(), entry.getValue().getNewFile() == null);
+    }
+    final RevisionIndex.Entry indexEntry = new RevisionIndex.Entry(commit, commit.getCommitTime(), cacheRevision.getGitCommitId(), cacheRevision.getRenames(), changes);
+    addRevision(indexEntry);
+    return indexEntry;
+  }
+
+  private void addRevision(@NotNull RevisionIndex.Entry indexEntry) {
+    final int revisionId = pending.size();
     final Map<String, VcsCopyFrom> copyFroms = new HashMap<>();
-    for (Map.Entry<String, String> entry : cacheRevision.getRenames().entrySet()) {
+    for (Map.Entry<String, String> entry : indexEntry.getRenames().entrySet()) {
       copyFroms.put(entry.getKey(), new VcsCopyFrom(revisionId - 1, entry.getValue()));
     }
-    final RevCommit oldCommit = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1).getGitNewCommit();
-    final RevCommit svnCommit = cacheRevision.getGitCommitId() != null ? new RevWalk(reader).parseCommit(cacheRevision.getGitCommitId()) : null;
+    final GitRevision lastRevision = pending.getLatest();
+    final ObjectId oldCommit = lastRevision == null ? null : lastRevision.getGitNewCommit();
 
+    final PathChangeIndex lastUpdates = pending.getChanges();
     try {
       lastUpdatesLock.writeLock().lock();
-      for (Map.Entry<String, CacheChange> entry : cacheRevision.getFileChange().entrySet()) {
-        lastUpdates.compute(entry.getKey(), (key, list) -> {
-          final boolean markNoFile = entry.getValue().getNewFile() == null;
-          final int prevLen = (list == null ? 0 : list.length);
-          final int newLen = prevLen + 1 + (markNoFile ? 1 : 0);
-          final int[] result = list == null ? new int[newLen] : Arrays.copyOf(list, newLen);
-
-          result[prevLen] = revisionId;
-          if (markNoFile) {
-            result[prevLen + 1] = MARK_NO_FILE;
-          }
-          return result;
-        });
+      for (Map.Entry<String, Boolean> entry : indexEntry.getChanges().entrySet()) {
+        lastUpdates.add(entry.getKey(), revisionId, entry.getValue());
       }
     } finally {
       lastUpdatesLock.writeLock().unlock();
     }
 
-    final GitRevision revision = new GitRevision(this, commit.getId(), revisionId, copyFroms, oldCommit, svnCommit, commit.getCommitTime());
-    if (revision.getId() > 0) {
-      if (revisionByDate.isEmpty() || revisionByDate.lastKey() <= revision.getDate()) {
-        revisionByDate.put(revision.getDate(), revision);
-      }
-    }
-    if (svnCommit != null) {
-      revisionByHash.put(svnCommit.getId(), revision);
-    }
-    revisions.add(revision);
+    pending = pending.append(new GitRevision(this, indexEntry.getCacheCommit(), revisionId, copyFroms, oldCommit, indexEntry.getGitCommitId(), indexEntry.getCommitTime()));
   }
 
   @NotNull
@@ -403,16 +534,11 @@ public final class GitBranch {
 
   @NotNull
   public GitRevision getRevisionByDate(long dateTime) {
-    lock.readLock().lock();
-    try {
-      final Map.Entry<Long, GitRevision> entry = revisionByDate.floorEntry(dateTime);
-      if (entry != null) {
-        return entry.getValue();
-      }
-      return revisions.get(0);
-    } finally {
-      lock.readLock().unlock();
-    }
+    final GitRevision revision = snapshot.getByDate(dateTime);
+    if (revision == null)
+      throw new IllegalStateException("Revisions are not loaded yet: " + this);
+
+    return revision;
   }
 
   @NotNull
@@ -426,43 +552,23 @@ public final class GitBranch {
 
   @NotNull
   public GitRevision getRevision(@NotNull ObjectId revisionId) throws SVNException {
-    lock.readLock().lock();
-    try {
-      final GitRevision revision = revisionByHash.get(revisionId);
-      if (revision == null) {
-        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision " + revisionId.name()));
-      }
-      return revision;
-    } finally {
-      lock.readLock().unlock();
+    final GitRevision revision = snapshot.getByCommit(revisionId);
+    if (revision == null) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision " + revisionId.name()));
     }
+    return revision;
   }
 
   public int getLastChange(@NotNull String nodePath, int beforeRevision) {
     if (nodePath.isEmpty()) return beforeRevision;
 
+    final PathChangeIndex lastUpdates = snapshot.getChanges();
     try {
       lastUpdatesLock.readLock().lock();
-
-      final int[] revs = this.lastUpdates.get(nodePath);
-      if (revs != null) {
-        int prev = 0;
-        for (int i = revs.length - 1; i >= 0; --i) {
-          final int rev = revs[i];
-          if ((rev >= 0) && (rev <= beforeRevision)) {
-            if (prev == MARK_NO_FILE) {
-              return MARK_NO_FILE;
-            }
-            return rev;
-          }
-          prev = rev;
-        }
-      }
+      return lastUpdates.getLastChange(nodePath, beforeRevision);
     } finally {
       lastUpdatesLock.readLock().unlock();
     }
-
-    return MARK_NO_FILE;
   }
 
   @NotNull
@@ -0,0 +1,115 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jetbrains.annotations.NotNull;
+import svnserver.context.Shared;
+import svnserver.repository.git.cache.ConcurrentCache;
+
+import java.io.IOException;
+
+/**
+ * Shared cache of git commit metadata.
+ * <p>
+ * Revisions keep only commit ids, so author, message and tree are loaded on demand through this cache.
+ * Cache is approximate LRU bounded by approximate entries size. Commit id identifies commit content,
+ * so entries are shared between repositories.
+ */
+public final class GitCommitCache implements Shared {
+  public static final long DEFAULT_MEMORY_SIZE = 16 * 1024 * 1024;
+  // Approximate memory overhead per cached commit.
+  private static final int ENTRY_OVERHEAD = 160;
+
+  @NotNull
+  private final ConcurrentCache<ObjectId, CommitInfo> memory;
+
+  public GitCommitCache() {
+    this(DEFAULT_MEMORY_SIZE);
+  }
+
+  /**
+   * @param memorySize Cache size limit in bytes. Zero disables cache.
+   */
+  public GitCommitCache(long memorySize) {
+    this.memory = new ConcurrentCache<>(memorySize, CommitInfo::weight);
+  }
+
+  @NotNull
+  CommitInfo get(@NotNull Repository git, @NotNull ObjectId commitId) throws IOException {
+    final CommitInfo cached = memory.get(commitId);
+    if (cached != null)
+      return cached;
+
+    final CommitInfo info;
+    try (RevWalk revWalk = new RevWalk(git)) {
+      info = new CommitInfo(revWalk.parseCommit(commitId));
+    }
+    memory.put(commitId.copy(), info);
+    return info;
+  }
+
+  public long getHits() {
+    return memory.getHits();
+  }
+
+  public long getMisses() {
+    return memory.getMisses();
+  }
+
+  public long getUsedSize() {
+    return memory.getWeight();
+  }
+
+  @Override
+  public void close() {
+    memory.clear();
+  }
+
+  /**
+   * Commit metadata required by revision.
+   */
+  static final class CommitInfo {
+    @NotNull
+    private final ObjectId tree;
+    @NotNull
+    private final String author;
+    @NotNull
+    private final String log;
+
+    private CommitInfo(@NotNull RevCommit commit) {
+      final PersonIdent ident = commit.getAuthorIdent();
+      this.tree = commit.getTree().copy();
+      this.author = String.format("%s <%s>", ident.getName(), ident.getEmailAddress());
+      this.log = commit.getFullMessage().trim();
+    }
+
+    @NotNull
+    ObjectId getTree() {
+      return tree;
+    }
+
+    @NotNull
+    String getAuthor() {
+      return author;
+    }
+
+    @NotNull
+    String getLog() {
+      return log;
+    }
+
+    private long weight() {
+      return ENTRY_OVERHEAD + 2L * (author.length() + log.length());
+    }
+  }
+}
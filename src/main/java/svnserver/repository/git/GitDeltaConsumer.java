@@ -28,8 +28,10 @@ import svnserver.Loggers;
 import svnserver.TemporaryOutputStream;
 import svnserver.auth.User;
 import svnserver.repository.git.filter.GitFilter;
+import svnserver.repository.git.filter.GitFilterRaw;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -85,7 +87,7 @@ public final class GitDeltaConsumer implements ISVNDeltaConsumer, Closeable {
     }
     this.newFilter = null;
     this.objectId = originalId;
-    this.temporaryStream = new TemporaryOutputStream();
+    this.temporaryStream = new TemporaryOutputStream(writer.getBranch().getRepository().getBufferPool());
   }
 
   @NotNull
@@ -130,13 +132,20 @@ public final class GitDeltaConsumer implements ISVNDeltaConsumer, Closeable {
     if (!newFilter.equals(filter)) {
       final Repository repo = writer.getBranch().getRepository().getGit();
 
-      try (TemporaryOutputStream content = new TemporaryOutputStream()) {
-        try (InputStream inputStream = newFilter.inputStream(objectId);
-             OutputStream outputStream = filter.outputStream(new UncloseableOutputStream(content), user)) {
-          IOUtils.copy(inputStream, outputStream);
+      if (filter instanceof GitFilterRaw) {
+        // Raw blob size is known before conversion, so content is streamed to inserter without temporary copy.
+        final long size = newFilter.getSize(objectId);
+        try (InputStream inputStream = newFilter.inputStream(objectId)) {
+          objectId = new GitObject<>(repo, writer.getInserter().insert(Constants.OBJ_BLOB, size, inputStream));
+          newFilter = filter;
         }
-        try (InputStream inputStream = content.toInputStream()) {
-          objectId = new GitObject<>(repo, writer.getInserter().insert(Constants.OBJ_BLOB, content.size(), inputStream));
+      } else {
+        try (TemporaryOutputStream content = new TemporaryOutputStream(writer.getBranch().getRepository().getBufferPool())) {
+          try (InputStream inputStream = newFilter.inputStream(objectId);
+               OutputStream outputStream = filter.outputStream(new UncloseableOutputStream(content), user)) {
+            IOUtils.copy(inputStream, outputStream);
+          }
+          objectId = new GitObject<>(repo, insertBlob(content));
           newFilter = filter;
         }
       }
@@ -181,9 +190,7 @@ public final class GitDeltaConsumer implements ISVNDeltaConsumer, Closeable {
 
       final Repository repo = writer.getBranch().getRepository().getGit();
       md5 = window.textDeltaEnd();
-      try (InputStream stream = holder.toInputStream()) {
-        objectId = new GitObject<>(repo, writer.getInserter().insert(Constants.OBJ_BLOB, holder.size(), stream));
-      }
+      objectId = new GitObject<>(repo, insertBlob(holder));
       log.info("Created blob {} for file: {}", objectId.getObject().getName(), entry.getFullPath());
     } catch (IOException e) {
       throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR), e);
@@ -192,6 +199,18 @@ public final class GitDeltaConsumer implements ISVNDeltaConsumer, Closeable {
     }
   }
 
+  @NotNull
+  private ObjectId insertBlob(@NotNull TemporaryOutputStream content) throws IOException {
+    // Small content is inserted directly from memory chunk instead of copying it through stream.
+    final ByteBuffer memory = content.memoryContent();
+    if (memory != null)
+      return writer.getInserter().insert(Constants.OBJ_BLOB, memory.array(), memory.arrayOffset() + memory.position(), memory.remaining());
+
+    try (InputStream stream = content.toInputStream()) {
+      return writer.getInserter().insert(Constants.OBJ_BLOB, content.size(), stream);
+    }
+  }
+
   @NotNull
   public String getFilterName() {
     if (newFilter != null)
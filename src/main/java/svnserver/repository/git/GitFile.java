@@ -51,6 +51,15 @@ public interface GitFile extends GitEntry {
 
   long getSize() throws IOException;
 
+  /**
+   * Get file size without reading file content.
+   *
+   * @return File size or {@link GitFilter#UNKNOWN_SIZE}.
+   */
+  default long getKnownSize() throws IOException {
+    return getSize();
+  }
+
   @NotNull
   InputStream openStream() throws IOException;
 
@@ -75,7 +84,7 @@ public interface GitFile extends GitEntry {
   }
 
   @NotNull
-  default Map<String, String> getRevProperties() {
+  default Map<String, String> getRevProperties() throws IOException {
     final Map<String, String> props = new HashMap<>();
     final GitRevision last = getLastChange();
     props.put(SVNProperty.UUID, getBranch().getUuid());
@@ -10,10 +10,11 @@ package svnserver.repository.git;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.lib.Repository;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNProperty;
+import svnserver.StringHelper;
 import svnserver.repository.VcsCopyFrom;
 import svnserver.repository.VcsSupplier;
 import svnserver.repository.git.filter.GitFilter;
@@ -56,15 +57,82 @@ final class GitFileTreeEntry extends GitEntryImpl implements GitFile {
   }
 
   @NotNull
-  public static GitFile create(@NotNull GitBranch branch, @NotNull RevTree tree, int revision) throws IOException {
+  public static GitFile create(@NotNull GitBranch branch, @NotNull ObjectId tree, int revision) throws IOException {
     return create(branch, GitProperty.emptyArray, "", new GitTreeEntry(branch.getRepository().getGit(), FileMode.TREE, tree, ""), revision);
   }
 
   @NotNull
-  private static GitFile create(@NotNull GitBranch branch, @NotNull GitProperty[] parentProps, @NotNull String parentPath, @NotNull GitTreeEntry treeEntry, int revision) throws IOException {
+  private static GitFileTreeEntry create(@NotNull GitBranch branch, @NotNull GitProperty[] parentProps, @NotNull String parentPath, @NotNull GitTreeEntry treeEntry, int revision) throws IOException {
     return new GitFileTreeEntry(branch, parentProps, parentPath, treeEntry, revision, new EntriesCache(branch.getRepository(), treeEntry));
   }
 
+  /**
+   * Find file by path inside tree.
+   * <p>
+   * Resolved paths and their prefixes are stored in {@link GitPathCache}, so lookup continues from
+   * longest already resolved prefix instead of tree root.
+   */
+  @Nullable
+  static GitFile resolve(@NotNull GitBranch branch, @NotNull ObjectId tree, @NotNull String path, int revision) throws IOException {
+    final GitRepository repository = branch.getRepository();
+    final GitPathCache pathCache = repository.getPathCache();
+    final Repository git = repository.getGit();
+    // Path in "/a/b" form: every item starts with slash.
+    final String fullPath = normalizePath(path);
+
+    int end = fullPath.length();
+    GitPathCache.Resolved resolved = null;
+    while (end > 0) {
+      resolved = pathCache.get(git, tree, fullPath.substring(0, end));
+      if (resolved != null)
+        break;
+
+      end = fullPath.lastIndexOf('/', end - 1);
+    }
+
+    GitFileTreeEntry result;
+    if (resolved == null) {
+      result = create(branch, GitProperty.emptyArray, "", new GitTreeEntry(git, FileMode.TREE, tree, ""), revision);
+    } else {
+      final GitTreeEntry treeEntry = resolved.getTreeEntry();
+      if (treeEntry == null)
+        return null;
+
+      result = create(branch, resolved.getParentProps(), resolved.getParentPath(), treeEntry, revision);
+    }
+
+    while (end < fullPath.length()) {
+      int next = fullPath.indexOf('/', end + 1);
+      if (next < 0)
+        next = fullPath.length();
+
+      final GitFileTreeEntry child = result.findEntry(fullPath.substring(end + 1, next));
+      final String prefix = fullPath.substring(0, next);
+      if (child == null) {
+        pathCache.put(git, tree, prefix, GitPathCache.Resolved.missing);
+        return null;
+      }
+      pathCache.put(git, tree, prefix, new GitPathCache.Resolved(result.getRawProperties(), result.getFullPath(), child.treeEntry));
+      result = child;
+      end = next;
+    }
+    return result;
+  }
+
+  @NotNull
+  private static String normalizePath(@NotNull String path) {
+    final String result = StringHelper.normalize(path);
+    if (!result.contains("//"))
+      return result;
+
+    final StringBuilder builder = new StringBuilder();
+    for (String pathItem : result.split("/")) {
+      if (!pathItem.isEmpty())
+        builder.append('/').append(pathItem);
+    }
+    return builder.toString();
+  }
+
   @NotNull
   @Override
   public String getContentHash() {
@@ -82,10 +150,15 @@ final class GitFileTreeEntry extends GitEntryImpl implements GitFile {
     return isDirectory() ? 0L : filter.getSize(treeEntry.getObjectId());
   }
 
+  @Override
+  public long getKnownSize() throws IOException {
+    return isDirectory() ? 0L : filter.getKnownSize(treeEntry.getObjectId());
+  }
+
   @NotNull
   @Override
   public InputStream openStream() throws IOException {
-    return filter.inputStream(treeEntry.getObjectId());
+    return filter.inputStreamWithMetadata(treeEntry.getObjectId());
   }
 
   @Nullable
@@ -169,6 +242,11 @@ final class GitFileTreeEntry extends GitEntryImpl implements GitFile {
 
   @Nullable
   public GitFile getEntry(@NotNull String name) throws IOException {
+    return findEntry(name);
+  }
+
+  @Nullable
+  private GitFileTreeEntry findEntry(@NotNull String name) throws IOException {
     for (GitTreeEntry entry : entriesCache.get()) {
       if (entry.getFileName().equals(name)) {
         return create(branch, getRawProperties(), getFullPath(), entry, revision);
@@ -0,0 +1,126 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import svnserver.Loggers;
+import svnserver.context.Shared;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool for revision changes computation while branches are indexed.
+ * <p>
+ * Pool is separate from common fork/join pool, that is used by parallel branch initialization.
+ * Without threads tasks are run sequentially by caller thread.
+ */
+public final class GitIndexingPool implements Shared {
+  @NotNull
+  private static final Logger log = Loggers.git;
+  @NotNull
+  private static final AtomicInteger threadNumber = new AtomicInteger(0);
+  private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+  @Nullable
+  private final ThreadPoolExecutor executor;
+
+  public GitIndexingPool() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param threads Worker threads count. Zero means sequential computation.
+   */
+  public GitIndexingPool(int threads) {
+    if (threads > 0) {
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        final Thread thread = new Thread(r, "SvnServer-indexing-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Run independent tasks.
+   *
+   * @return Task results in the same order as tasks.
+   */
+  @NotNull
+  <T> List<T> invokeAll(@NotNull List<Callable<T>> tasks) throws IOException {
+    final List<T> result = new ArrayList<>(tasks.size());
+    final ThreadPoolExecutor pool = executor;
+    if (pool == null) {
+      for (Callable<T> task : tasks)
+        result.add(call(task));
+
+      return result;
+    }
+
+    final List<Future<T>> futures = new ArrayList<>(tasks.size());
+    try {
+      for (Callable<T> task : tasks)
+        futures.add(pool.submit(task));
+
+      for (Future<T> future : futures)
+        result.add(future.get());
+
+      return result;
+    } catch (RejectedExecutionException e) {
+      throw new IOException("Indexing pool is stopped", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for indexing tasks");
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    } finally {
+      for (Future<T> future : futures)
+        future.cancel(false);
+    }
+  }
+
+  private static <T> T call(@NotNull Callable<T> task) throws IOException {
+    try {
+      return task.call();
+    } catch (Exception e) {
+      throw rethrow(e);
+    }
+  }
+
+  @NotNull
+  private static IOException rethrow(@NotNull Throwable cause) {
+    if (cause instanceof IOException)
+      return (IOException) cause;
+    if (cause instanceof RuntimeException)
+      throw (RuntimeException) cause;
+    if (cause instanceof Error)
+      throw (Error) cause;
+
+    return new IOException("Can't run indexing task", cause);
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    if (executor == null)
+      return;
+
+    executor.shutdownNow();
+    // Workers use cache database, that is closed right after shared objects.
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+      log.warn("Indexing workers are not stopped in {} ms", SHUTDOWN_TIMEOUT);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.Loggers;
+import svnserver.context.Shared;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker pool for file metadata precomputation.
+ * <p>
+ * When branch finds new revisions, md5, size and binary flag of changed files are computed
+ * in background, so first client after push gets them from filter caches.
+ * Work queue is bounded: tasks over the limit are dropped and computed on demand as before.
+ */
+public final class GitMetadataProducer implements Shared {
+  @NotNull
+  private static final Logger log = Loggers.git;
+  @NotNull
+  private static final AtomicInteger threadNumber = new AtomicInteger(0);
+  private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+  @Nullable
+  private final ThreadPoolExecutor executor;
+  @NotNull
+  private final AtomicLong processed = new AtomicLong();
+  @NotNull
+  private final AtomicLong dropped = new AtomicLong();
+  @NotNull
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * @param threads   Worker threads count. Zero disables precomputation.
+   * @param queueSize Maximum count of queued revisions and files.
+   */
+  public GitMetadataProducer(int threads, int queueSize) {
+    if (threads > 0 && queueSize > 0) {
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize), r -> {
+        final Thread thread = new Thread(r, "SvnServer-metadata-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }, (r, pool) -> {
+        pending.decrementAndGet();
+        dropped.incrementAndGet();
+      });
+      executor.allowCoreThreadTimeOut(true);
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Schedule metadata computation for files changed in revisions.
+   * <p>
+   * Newest revisions are scheduled first, as they are most likely requested by clients.
+   *
+   * @param branch       Branch.
+   * @param fromRevision First revision (inclusive).
+   * @param toRevision   Last revision (inclusive).
+   */
+  void submit(@NotNull GitBranch branch, int fromRevision, int toRevision) {
+    if (executor == null)
+      return;
+
+    for (int revision = toRevision; revision >= fromRevision; --revision) {
+      if (executor.getQueue().remainingCapacity() == 0) {
+        dropped.addAndGet(revision - fromRevision + 1);
+        break;
+      }
+      final int revisionId = revision;
+      execute(executor, () -> processRevision(branch, revisionId));
+    }
+  }
+
+  private void execute(@NotNull ThreadPoolExecutor pool, @NotNull Runnable task) {
+    pending.incrementAndGet();
+    pool.execute(() -> {
+      try {
+        task.run();
+      } finally {
+        pending.decrementAndGet();
+      }
+    });
+  }
+
+  private void processRevision(@NotNull GitBranch branch, int revisionId) {
+    final ThreadPoolExecutor pool = executor;
+    if (pool == null)
+      return;
+
+    try {
+      final GitRevision revision = branch.getRevisionInfo(revisionId);
+      for (GitLogEntry entry : revision.getChanges().values()) {
+        final GitFile file = entry.getNewEntry();
+        if (file == null || file.isDirectory())
+          continue;
+
+        execute(pool, () -> processFile(file));
+      }
+    } catch (IOException | SVNException e) {
+      log.warn("[{}]: Can't get changes of revision r{} for metadata precomputation", branch, revisionId, e);
+    }
+  }
+
+  private void processFile(@NotNull GitFile file) {
+    try {
+      // md5 computation fills size and binary flag in the same pass, properties check binary flag.
+      file.getMd5();
+      file.getSize();
+      file.getProperties();
+      processed.incrementAndGet();
+    } catch (IOException e) {
+      log.warn("[{}]: Can't compute metadata of {}", file.getBranch(), file.getFullPath(), e);
+    }
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Wait for scheduled tasks completion.
+   *
+   * @return True if all tasks completed.
+   */
+  public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+    if (executor == null)
+      return true;
+
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (pending.get() > 0) {
+      if (System.currentTimeMillis() >= deadline)
+        return false;
+
+      Thread.sleep(10);
+    }
+    return true;
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    if (executor == null)
+      return;
+
+    executor.shutdownNow();
+    // Workers use cache database, that is closed right after shared objects.
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+      log.warn("Metadata precomputation workers are not stopped in {} ms", SHUTDOWN_TIMEOUT);
+  }
+}
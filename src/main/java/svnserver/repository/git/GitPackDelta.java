@@ -0,0 +1,149 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.internal.storage.file.PackIndex;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Access to deltas stored in git pack files.
+ * <p>
+ * JGit resolves delta chains internally and has no public API for raw delta data,
+ * so object entry header is parsed directly from pack file.
+ */
+public final class GitPackDelta {
+  private static final int OBJ_OFS_DELTA = 6;
+  private static final int OBJ_REF_DELTA = 7;
+  // Object type and size (up to 10 bytes), base offset (up to 10 bytes) or base id.
+  private static final int MAX_HEADER_SIZE = 10 + Math.max(10, Constants.OBJECT_ID_LENGTH);
+
+  private GitPackDelta() {
+  }
+
+  /**
+   * Load git binary delta of object, if object is stored in pack as delta against given base.
+   *
+   * @param repo         Repository.
+   * @param objectId     Object id.
+   * @param baseId       Expected delta base id.
+   * @param maxDeltaSize Larger deltas are not loaded.
+   * @return Git binary delta or null if object is not stored as delta against given base.
+   */
+  @Nullable
+  public static byte[] load(@NotNull Repository repo, @NotNull AnyObjectId objectId, @NotNull AnyObjectId baseId, int maxDeltaSize) throws IOException {
+    final ObjectDatabase database = repo.getObjectDatabase();
+    if (!(database instanceof ObjectDirectory))
+      return null;
+
+    for (PackFile pack : ((ObjectDirectory) database).getPacks()) {
+      final PackIndex index = pack.getIndex();
+      final long offset = index.findOffset(objectId);
+      if (offset < 0)
+        continue;
+
+      return load(pack, index, offset, baseId, maxDeltaSize);
+    }
+    return null;
+  }
+
+  @Nullable
+  private static byte[] load(@NotNull PackFile pack, @NotNull PackIndex index, long offset, @NotNull AnyObjectId baseId, int maxDeltaSize) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(pack.getPackFile(), "r")) {
+      final byte[] header = new byte[MAX_HEADER_SIZE];
+      file.seek(offset);
+      final int headerSize = file.read(header);
+      int pos = 0;
+
+      // Header bytes are checked against read size: truncated pack must fail with IOException, not with index error.
+      if (pos >= headerSize)
+        throw corruptedHeader(pack, offset);
+      int c = header[pos++] & 0xFF;
+      final int type = (c >> 4) & 0x07;
+      long size = c & 0x0F;
+      int shift = 4;
+      while ((c & 0x80) != 0) {
+        if (pos >= headerSize)
+          throw corruptedHeader(pack, offset);
+        c = header[pos++] & 0xFF;
+        size += (long) (c & 0x7F) << shift;
+        shift += 7;
+      }
+
+      switch (type) {
+        case OBJ_OFS_DELTA: {
+          if (pos >= headerSize)
+            throw corruptedHeader(pack, offset);
+          c = header[pos++] & 0xFF;
+          long baseDistance = c & 0x7F;
+          while ((c & 0x80) != 0) {
+            if (pos >= headerSize)
+              throw corruptedHeader(pack, offset);
+            c = header[pos++] & 0xFF;
+            baseDistance = ((baseDistance + 1) << 7) | (c & 0x7F);
+          }
+          if (index.findOffset(baseId) != offset - baseDistance)
+            return null;
+
+          break;
+        }
+        case OBJ_REF_DELTA: {
+          if (pos + Constants.OBJECT_ID_LENGTH > headerSize)
+            throw corruptedHeader(pack, offset);
+          if (!ObjectId.fromRaw(header, pos).equals(baseId))
+            return null;
+
+          pos += Constants.OBJECT_ID_LENGTH;
+          break;
+        }
+        default:
+          return null;
+      }
+      if (size < 0)
+        throw corruptedHeader(pack, offset);
+      if (size > maxDeltaSize)
+        return null;
+
+      file.seek(offset + pos);
+      final byte[] delta = new byte[(int) size];
+      final Inflater inflater = new Inflater();
+      try (InputStream stream = new InflaterInputStream(Channels.newInputStream(file.getChannel()), inflater)) {
+        int read = 0;
+        while (read < delta.length) {
+          final int bytes = stream.read(delta, read, delta.length - read);
+          if (bytes < 0)
+            throw new IOException("Unexpected end of delta data in " + pack.getPackFile() + " at offset " + offset);
+
+          read += bytes;
+        }
+      } finally {
+        inflater.end();
+      }
+      return delta;
+    }
+  }
+
+  @NotNull
+  private static IOException corruptedHeader(@NotNull PackFile pack, long offset) {
+    return new IOException("Corrupted object header in " + pack.getPackFile() + " at offset " + offset);
+  }
+}
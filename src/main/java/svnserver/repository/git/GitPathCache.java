@@ -0,0 +1,140 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.context.Shared;
+import svnserver.repository.git.cache.ConcurrentCache;
+import svnserver.repository.git.prop.GitProperty;
+
+/**
+ * Shared cache of resolved paths.
+ * <p>
+ * Maps path inside root tree to its tree entry with properties inherited from parent directories,
+ * so file lookup does not walk tree from root for every request. Missing paths are cached too.
+ * Cache is approximate LRU bounded by entries count.
+ */
+public final class GitPathCache implements Shared {
+  public static final int DEFAULT_MAX_ENTRIES = 64 * 1024;
+
+  @NotNull
+  private final ConcurrentCache<PathKey, Resolved> memory;
+
+  public GitPathCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param maxEntries Entries count limit. Zero disables cache.
+   */
+  public GitPathCache(int maxEntries) {
+    this.memory = new ConcurrentCache<>(maxEntries, resolved -> 1);
+  }
+
+  /**
+   * @param path Normalized path in "/a/b" form: every item starts with slash, without trailing slash.
+   */
+  @Nullable
+  Resolved get(@NotNull Repository repo, @NotNull ObjectId rootTree, @NotNull String path) {
+    return memory.get(new PathKey(repo, rootTree, path));
+  }
+
+  void put(@NotNull Repository repo, @NotNull ObjectId rootTree, @NotNull String path, @NotNull Resolved resolved) {
+    memory.put(new PathKey(repo, rootTree, path), resolved);
+  }
+
+  public long getHits() {
+    return memory.getHits();
+  }
+
+  public long getMisses() {
+    return memory.getMisses();
+  }
+
+  public int size() {
+    return memory.size();
+  }
+
+  @Override
+  public void close() {
+    memory.clear();
+  }
+
+  /**
+   * Resolved path: tree entry with parent directory path and properties or missing path marker.
+   */
+  static final class Resolved {
+    @NotNull
+    static final Resolved missing = new Resolved(GitProperty.emptyArray, "", null);
+
+    @NotNull
+    private final GitProperty[] parentProps;
+    @NotNull
+    private final String parentPath;
+    @Nullable
+    private final GitTreeEntry treeEntry;
+
+    Resolved(@NotNull GitProperty[] parentProps, @NotNull String parentPath, @Nullable GitTreeEntry treeEntry) {
+      this.parentProps = parentProps;
+      this.parentPath = parentPath;
+      this.treeEntry = treeEntry;
+    }
+
+    @NotNull
+    GitProperty[] getParentProps() {
+      return parentProps;
+    }
+
+    @NotNull
+    String getParentPath() {
+      return parentPath;
+    }
+
+    /**
+     * @return Tree entry or null for missing path.
+     */
+    @Nullable
+    GitTreeEntry getTreeEntry() {
+      return treeEntry;
+    }
+  }
+
+  private static final class PathKey {
+    @NotNull
+    private final Repository repo;
+    @NotNull
+    private final ObjectId rootTree;
+    @NotNull
+    private final String path;
+
+    private PathKey(@NotNull Repository repo, @NotNull ObjectId rootTree, @NotNull String path) {
+      this.repo = repo;
+      this.rootTree = rootTree.copy();
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      final PathKey other = (PathKey) o;
+      return repo == other.repo
+          && rootTree.equals(other.rootTree)
+          && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return rootTree.hashCode() * 31 + path.hashCode();
+    }
+  }
+}
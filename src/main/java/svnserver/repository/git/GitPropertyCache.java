@@ -0,0 +1,104 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.repository.git.prop.GitProperty;
+
+import svnserver.repository.git.cache.ConcurrentCache;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Bounded cache of parsed git properties by object id.
+ * <p>
+ * Cache is approximate LRU bounded by total properties count. Equal properties are deduplicated,
+ * so same rules from different files or directories are kept in memory only once.
+ */
+public final class GitPropertyCache {
+  @NotNull
+  private final ConcurrentCache<ObjectId, GitProperty[]> memory;
+  // Used only on cache miss.
+  @NotNull
+  private final WeakHashMap<GitProperty, WeakReference<GitProperty>> interned = new WeakHashMap<>();
+
+  /**
+   * @param maxWeight Total properties limit, every entry also counts as one property. Zero disables cache.
+   */
+  public GitPropertyCache(long maxWeight) {
+    this.memory = new ConcurrentCache<>(maxWeight, GitPropertyCache::weight);
+  }
+
+  @Nullable
+  GitProperty[] get(@NotNull ObjectId objectId) {
+    return memory.get(objectId);
+  }
+
+  /**
+   * @return Deduplicated properties, that should be used instead of given ones.
+   */
+  @NotNull
+  GitProperty[] put(@NotNull ObjectId objectId, @NotNull GitProperty[] props) {
+    final GitProperty[] result = intern(props);
+    memory.put(objectId.copy(), result);
+    return result;
+  }
+
+  @NotNull
+  private GitProperty[] intern(@NotNull GitProperty[] props) {
+    if (props.length == 0)
+      return GitProperty.emptyArray;
+
+    final GitProperty[] result = new GitProperty[props.length];
+    synchronized (interned) {
+      for (int i = 0; i < props.length; ++i) {
+        final WeakReference<GitProperty> ref = interned.get(props[i]);
+        final GitProperty prop = ref == null ? null : ref.get();
+        if (prop != null) {
+          result[i] = prop;
+        } else {
+          interned.put(props[i], new WeakReference<>(props[i]));
+          result[i] = props[i];
+        }
+      }
+    }
+    return result;
+  }
+
+  private static long weight(@NotNull GitProperty[] props) {
+    return props.length + 1;
+  }
+
+  public int getEntries() {
+    return memory.size();
+  }
+
+  public long getWeight() {
+    return memory.getWeight();
+  }
+
+  public long getHits() {
+    return memory.getHits();
+  }
+
+  public long getMisses() {
+    return memory.getMisses();
+  }
+
+  public long getEvictions() {
+    return memory.getEvictions();
+  }
+
+  @Override
+  public String toString() {
+    return "entries: " + getEntries() + ", weight: " + getWeight() + ", hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions();
+  }
+}
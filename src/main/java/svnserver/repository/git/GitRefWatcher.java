@@ -0,0 +1,249 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.Loggers;
+import svnserver.context.Shared;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Watches branch refs of repositories and loads new revisions in background.
+ * <p>
+ * Branch head is changed either by loose ref file under refs/heads or by packed-refs rewrite,
+ * so both are watched. Any change schedules revision update of all repository branches.
+ * While update is queued, new events for the same repository are coalesced into it.
+ * <p>
+ * Watch events may be lost, for example when ref is changed while new directory is being registered.
+ * So branch refs are also compared with loaded revisions periodically.
+ */
+public final class GitRefWatcher implements Shared {
+  @NotNull
+  private static final Logger log = Loggers.git;
+  @NotNull
+  private static final String PACKED_REFS = "packed-refs";
+  @NotNull
+  private static final String LOCK_SUFFIX = ".lock";
+  private static final long RESCAN_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+  private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+  @NotNull
+  private final WatchService watchService;
+  @NotNull
+  private final Thread watchThread;
+  @NotNull
+  private final ScheduledThreadPoolExecutor updater;
+  @NotNull
+  private final Map<GitRepository, Registration> registrations = new ConcurrentHashMap<>();
+  @NotNull
+  private final Map<WatchKey, Registration> keys = new ConcurrentHashMap<>();
+
+  public GitRefWatcher() throws IOException {
+    this(RESCAN_INTERVAL);
+  }
+
+  /**
+   * @param rescanInterval Interval of branch refs comparison in milliseconds.
+   */
+  GitRefWatcher(long rescanInterval) throws IOException {
+    watchService = FileSystems.getDefault().newWatchService();
+    updater = new ScheduledThreadPoolExecutor(1, r -> {
+      final Thread thread = new Thread(r, "SvnServer-ref-update");
+      thread.setDaemon(true);
+      return thread;
+    });
+    updater.scheduleWithFixedDelay(this::rescan, rescanInterval, rescanInterval, TimeUnit.MILLISECONDS);
+    watchThread = new Thread(this::watchLoop, "SvnServer-ref-watcher");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /**
+   * Start watching repository refs.
+   *
+   * @return Returns false if repository refs can't be watched, for example for in-memory repository.
+   */
+  boolean register(@NotNull GitRepository repository) {
+    final File gitDir = repository.getGit().getDirectory();
+    if (gitDir == null)
+      return false;
+
+    final Registration registration = new Registration(repository, gitDir.toPath());
+    try {
+      registration.watch(registration.gitDir);
+      final Path heads = registration.gitDir.resolve("refs").resolve("heads");
+      if (Files.isDirectory(heads))
+        registration.watchTree(heads);
+    } catch (IOException | UnsupportedOperationException e) {
+      log.warn("[{}]: can't watch refs, revisions will be checked on every connection", repository.getContext().getName(), e);
+      registration.cancel();
+      return false;
+    }
+    registrations.put(repository, registration);
+    return true;
+  }
+
+  void unregister(@NotNull GitRepository repository) {
+    final Registration registration = registrations.remove(repository);
+    if (registration != null)
+      registration.cancel();
+  }
+
+  /**
+   * Schedule revision update of repository, for example on external push notification.
+   */
+  public void schedule(@NotNull GitRepository repository) {
+    final Registration registration = registrations.get(repository);
+    if (registration != null)
+      registration.schedule();
+  }
+
+  private void rescan() {
+    for (Registration registration : registrations.values())
+      registration.rescan();
+  }
+
+  private void watchLoop() {
+    try {
+      while (true) {
+        final WatchKey key = watchService.take();
+        final Registration registration = keys.get(key);
+        if (registration != null) {
+          for (WatchEvent<?> event : key.pollEvents())
+            registration.onEvent(key, event);
+        } else {
+          key.pollEvents();
+        }
+        if (!key.reset())
+          keys.remove(key);
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Watcher is closed.
+    }
+  }
+
+  @Override
+  public void close() throws IOException, InterruptedException {
+    watchService.close();
+    watchThread.interrupt();
+    updater.shutdownNow();
+    registrations.clear();
+    keys.clear();
+    // Revision update uses cache database, that is closed right after shared objects.
+    if (!updater.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+      log.warn("Ref update is not stopped in {} ms", SHUTDOWN_TIMEOUT);
+  }
+
+  private final class Registration {
+    @NotNull
+    private final GitRepository repository;
+    @NotNull
+    private final Path gitDir;
+    @NotNull
+    private final AtomicBoolean queued = new AtomicBoolean(false);
+
+    private Registration(@NotNull GitRepository repository, @NotNull Path gitDir) {
+      this.repository = repository;
+      this.gitDir = gitDir;
+    }
+
+    private void watch(@NotNull Path dir) throws IOException {
+      final WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+      keys.put(key, this);
+    }
+
+    private void watchTree(@NotNull Path root) throws IOException {
+      try (Stream<Path> dirs = Files.walk(root)) {
+        for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator)
+          watch(dir);
+      }
+    }
+
+    private void onEvent(@NotNull WatchKey key, @NotNull WatchEvent<?> event) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        schedule();
+        return;
+      }
+      final Path dir = (Path) key.watchable();
+      final Path name = (Path) event.context();
+      if (dir.equals(gitDir)) {
+        // Repository directory contains a lot of unrelated files.
+        if (name.toString().equals(PACKED_REFS))
+          schedule();
+
+        return;
+      }
+      final Path path = dir.resolve(name);
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        // New branch group, like refs/heads/feature.
+        try {
+          watchTree(path);
+        } catch (IOException e) {
+          log.warn("[{}]: can't watch refs directory {}", repository.getContext().getName(), path, e);
+        }
+      }
+      if (!name.toString().endsWith(LOCK_SUFFIX))
+        schedule();
+    }
+
+    private void schedule() {
+      if (!queued.compareAndSet(false, true))
+        return;
+
+      try {
+        updater.execute(this::update);
+      } catch (RejectedExecutionException e) {
+        queued.set(false);
+      }
+    }
+
+    private void rescan() {
+      for (GitBranch branch : repository.getBranches().values()) {
+        try {
+          if (!branch.isUpToDate()) {
+            log.info("[{}]: ref change was not reported by watcher", branch);
+            schedule();
+            return;
+          }
+        } catch (IOException e) {
+          log.warn("[{}]: can't check refs", branch, e);
+        }
+      }
+    }
+
+    private void update() {
+      queued.set(false);
+      for (GitBranch branch : repository.getBranches().values()) {
+        try {
+          branch.updateRevisions();
+        } catch (IOException | SVNException | RuntimeException e) {
+          log.error("[{}]: can't update revisions", branch, e);
+        }
+      }
+    }
+
+    private void cancel() {
+      keys.entrySet().removeIf(entry -> {
+        if (entry.getValue() != this)
+          return false;
+
+        entry.getKey().cancel();
+        return true;
+      });
+    }
+  }
+}
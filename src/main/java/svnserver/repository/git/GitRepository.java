@@ -10,15 +10,12 @@ package svnserver.repository.git;
 import com.sun.nio.sctp.InvalidStreamException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
-import org.mapdb.HTreeMap;
-import org.mapdb.Serializer;
 import org.tmatesoft.svn.core.SVNException;
-import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import svnserver.StringHelper;
+import svnserver.TemporaryBufferPool;
 import svnserver.context.LocalContext;
 import svnserver.context.SharedContext;
 import svnserver.repository.SvnForbiddenException;
@@ -36,7 +33,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -57,13 +53,11 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
   @NotNull
   private final LocalContext context;
   @NotNull
-  private final HTreeMap<String, Boolean> binaryCache;
-  @NotNull
   private final GitFilters gitFilters;
   @NotNull
-  private final Map<ObjectId, GitProperty[]> directoryPropertyCache = new ConcurrentHashMap<>();
+  private final GitPropertyCache directoryPropertyCache;
   @NotNull
-  private final Map<ObjectId, GitProperty[]> filePropertyCache = new ConcurrentHashMap<>();
+  private final GitPropertyCache filePropertyCache;
   private final boolean renameDetection;
   @NotNull
   private final ReadWriteLock lockManagerRwLock = new ReentrantReadWriteLock();
@@ -73,6 +67,18 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
   private final DB db;
   @NotNull
   private final NavigableMap<String, GitBranch> branches = new TreeMap<>();
+  @Nullable
+  private final GitRefWatcher refWatcher;
+  @NotNull
+  private final GitCommitCache commitCache;
+  @NotNull
+  private final GitTreeCache treeCache;
+  @NotNull
+  private final GitPathCache pathCache;
+  @NotNull
+  private final TemporaryBufferPool bufferPool;
+  @NotNull
+  private final GitIndexingPool indexingPool;
 
   public GitRepository(@NotNull LocalContext context,
                        @NotNull Repository git,
@@ -80,22 +86,84 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
                        @NotNull Set<String> branches,
                        boolean renameDetection,
                        @NotNull LockStorage lockStorage,
-                       @NotNull GitFilters filters) throws IOException {
+                       @NotNull GitFilters filters,
+                       long directoryPropertyCacheSize,
+                       long filePropertyCacheSize) throws IOException {
     this.context = context;
     final SharedContext shared = context.getShared();
     shared.getOrCreate(GitSubmodules.class, GitSubmodules::new).register(git);
+    this.commitCache = shared.getOrCreate(GitCommitCache.class, GitCommitCache::new);
+    this.treeCache = shared.getOrCreate(GitTreeCache.class, GitTreeCache::new);
+    this.pathCache = shared.getOrCreate(GitPathCache.class, GitPathCache::new);
+    this.bufferPool = shared.getOrCreate(TemporaryBufferPool.class, TemporaryBufferPool::new);
+    this.indexingPool = shared.getOrCreate(GitIndexingPool.class, GitIndexingPool::new);
     this.git = git;
     db = shared.getCacheDB();
-    this.binaryCache = db.hashMap("cache.binary", Serializer.STRING, Serializer.BOOLEAN).createOrOpen();
 
     this.pusher = pusher;
     this.renameDetection = renameDetection;
     this.lockStorage = lockStorage;
 
     this.gitFilters = filters;
+    this.directoryPropertyCache = new GitPropertyCache(directoryPropertyCacheSize);
+    this.filePropertyCache = new GitPropertyCache(filePropertyCacheSize);
 
     for (String branch : branches)
       this.branches.put(StringHelper.normalizeDir(branch), new GitBranch(this, branch));
+
+    final GitRefWatcher watcher = shared.get(GitRefWatcher.class);
+    this.refWatcher = watcher != null && watcher.register(this) ? watcher : null;
+  }
+
+  /**
+   * @return Returns true if revisions are updated in background on ref changes.
+   */
+  public boolean isRefWatched() {
+    return refWatcher != null;
+  }
+
+  /**
+   * Load new revisions in background, for example on push notification.
+   */
+  public void scheduleUpdateRevisions() {
+    if (refWatcher != null)
+      refWatcher.schedule(this);
+  }
+
+  @NotNull
+  GitCommitCache.CommitInfo loadCommit(@NotNull ObjectId commitId) throws IOException {
+    return commitCache.get(git, commitId);
+  }
+
+  /**
+   * @return Cache of properties collected from directory trees.
+   */
+  @NotNull
+  public GitPropertyCache getDirectoryPropertyCache() {
+    return directoryPropertyCache;
+  }
+
+  /**
+   * @return Cache of properties parsed from property files, like .gitattributes.
+   */
+  @NotNull
+  public GitPropertyCache getFilePropertyCache() {
+    return filePropertyCache;
+  }
+
+  @NotNull
+  GitPathCache getPathCache() {
+    return pathCache;
+  }
+
+  @NotNull
+  TemporaryBufferPool getBufferPool() {
+    return bufferPool;
+  }
+
+  @NotNull
+  GitIndexingPool getIndexingPool() {
+    return indexingPool;
   }
 
   @NotNull
@@ -114,6 +182,8 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
 
   public void close() {
     context.getShared().sure(GitSubmodules.class).unregister(git);
+    if (refWatcher != null)
+      refWatcher.unregister(this);
   }
 
   @NotNull
@@ -150,8 +220,7 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
         }
       } catch (SvnForbiddenException ignored) {
       }
-      props = propList.toArray(GitProperty.emptyArray);
-      directoryPropertyCache.put(treeEntry.getObjectId().getObject(), props);
+      props = directoryPropertyCache.put(treeEntry.getObjectId().getObject(), propList.toArray(GitProperty.emptyArray));
     }
     return props;
   }
@@ -174,10 +243,7 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
         property = factory.create(stream);
       }
 
-      if (property.length == 0)
-        property = GitProperty.emptyArray;
-
-      filePropertyCache.put(objectId.getObject(), property);
+      property = filePropertyCache.put(objectId.getObject(), property);
     }
     return property;
   }
@@ -217,15 +283,7 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
 
   boolean isObjectBinary(@Nullable GitFilter filter, @Nullable GitObject<? extends ObjectId> objectId) throws IOException {
     if (objectId == null || filter == null) return false;
-    final String key = filter.getName() + " " + objectId.getObject().name();
-    Boolean result = binaryCache.get(key);
-    if (result == null) {
-      try (InputStream stream = filter.inputStream(objectId)) {
-        result = SVNFileUtil.detectMimeType(stream) != null;
-      }
-      binaryCache.putIfAbsent(key, result);
-    }
-    return result;
+    return filter.isBinary(objectId);
   }
 
   @NotNull
@@ -235,18 +293,7 @@ public final class GitRepository implements AutoCloseable, BranchProvider {
     if (treeId == null) {
       return Collections.emptyList();
     }
-    final List<GitTreeEntry> result = new ArrayList<>();
-    final Repository repo = treeId.getRepo();
-    final CanonicalTreeParser treeParser = new CanonicalTreeParser(GitRepository.emptyBytes, repo.newObjectReader(), treeId.getObject());
-    while (!treeParser.eof()) {
-      result.add(new GitTreeEntry(
-          treeParser.getEntryFileMode(),
-          new GitObject<>(repo, treeParser.getEntryObjectId()),
-          treeParser.getEntryPathString()
-      ));
-      treeParser.next();
-    }
-    return result;
+    return treeCache.get(treeId);
   }
 
   @Nullable
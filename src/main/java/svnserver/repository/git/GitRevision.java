@@ -8,8 +8,6 @@
 package svnserver.repository.git;
 
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.PersonIdent;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNRevisionProperty;
@@ -25,6 +23,8 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Git revision.
+ * <p>
+ * Revision keeps only commit ids: commit author, message and tree are loaded on demand via {@link GitCommitCache}.
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
@@ -34,9 +34,9 @@ public final class GitRevision {
   @NotNull
   private final ObjectId cacheCommit;
   @Nullable
-  private final RevCommit gitOldCommit;
+  private final ObjectId gitOldCommit;
   @Nullable
-  private final RevCommit gitNewCommit;
+  private final ObjectId gitNewCommit;
 
   @NotNull
   private final Map<String, VcsCopyFrom> renames;
@@ -47,8 +47,8 @@ public final class GitRevision {
               @NotNull ObjectId cacheCommit,
               int revision,
               @NotNull Map<String, VcsCopyFrom> renames,
-              @Nullable RevCommit gitOldCommit,
-              @Nullable RevCommit gitNewCommit,
+              @Nullable ObjectId gitOldCommit,
+              @Nullable ObjectId gitNewCommit,
               int commitTimeSec) {
     this.branch = branch;
     this.cacheCommit = cacheCommit;
@@ -68,7 +68,7 @@ public final class GitRevision {
   }
 
   @NotNull
-  public Map<String, String> getProperties(boolean includeInternalProps) {
+  public Map<String, String> getProperties(boolean includeInternalProps) throws IOException {
     final Map<String, String> props = new HashMap<>();
     if (includeInternalProps) {
       putProperty(props, SVNRevisionProperty.AUTHOR, getAuthor());
@@ -88,17 +88,13 @@ public final class GitRevision {
   }
 
   @Nullable
-  public String getAuthor() {
-    if (gitNewCommit == null)
-      return null;
-
-    final PersonIdent ident = gitNewCommit.getAuthorIdent();
-    return String.format("%s <%s>", ident.getName(), ident.getEmailAddress());
+  public String getAuthor() throws IOException {
+    return gitNewCommit == null ? null : loadCommit(gitNewCommit).getAuthor();
   }
 
   @Nullable
-  public String getLog() {
-    return gitNewCommit == null ? null : gitNewCommit.getFullMessage().trim();
+  public String getLog() throws IOException {
+    return gitNewCommit == null ? null : loadCommit(gitNewCommit).getLog();
   }
 
   @NotNull
@@ -118,17 +114,7 @@ public final class GitRevision {
       else
         return null;
     }
-    GitFile result = GitFileTreeEntry.create(branch, gitNewCommit.getTree(), revision);
-    for (String pathItem : fullPath.split("/")) {
-      if (pathItem.isEmpty()) {
-        continue;
-      }
-      result = result.getEntry(pathItem);
-      if (result == null) {
-        return null;
-      }
-    }
-    return result;
+    return GitFileTreeEntry.resolve(branch, loadCommit(gitNewCommit).getTree(), fullPath, revision);
   }
 
   @NotNull
@@ -136,8 +122,8 @@ public final class GitRevision {
     if (gitNewCommit == null) {
       return Collections.emptyMap();
     }
-    final GitFile oldTree = gitOldCommit == null ? new GitFileEmptyTree(branch, "", revision - 1) : GitFileTreeEntry.create(branch, gitOldCommit.getTree(), revision - 1);
-    final GitFile newTree = GitFileTreeEntry.create(branch, gitNewCommit.getTree(), revision);
+    final GitFile oldTree = gitOldCommit == null ? new GitFileEmptyTree(branch, "", revision - 1) : GitFileTreeEntry.create(branch, loadCommit(gitOldCommit).getTree(), revision - 1);
+    final GitFile newTree = GitFileTreeEntry.create(branch, loadCommit(gitNewCommit).getTree(), revision);
 
     return ChangeHelper.collectChanges(oldTree, newTree, false);
   }
@@ -147,7 +133,19 @@ public final class GitRevision {
     return renames.get(fullPath);
   }
 
-  @Nullable RevCommit getGitNewCommit() {
+  @Nullable ObjectId getGitNewCommit() {
     return gitNewCommit;
   }
+
+  /**
+   * @return Tree of git commit or null for revision without commit.
+   */
+  @Nullable ObjectId getGitNewTree() throws IOException {
+    return gitNewCommit == null ? null : loadCommit(gitNewCommit).getTree();
+  }
+
+  @NotNull
+  private GitCommitCache.CommitInfo loadCommit(@NotNull ObjectId commitId) throws IOException {
+    return branch.getRepository().loadCommit(commitId);
+  }
 }
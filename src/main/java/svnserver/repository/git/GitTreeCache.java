@@ -0,0 +1,126 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.jetbrains.annotations.NotNull;
+import svnserver.context.Shared;
+import svnserver.repository.git.cache.ConcurrentCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shared cache of parsed git trees.
+ * <p>
+ * Same trees are listed by many revisions and sessions, so parsed entries are cached by tree id.
+ * Cache is approximate LRU bounded by total entries count.
+ */
+public final class GitTreeCache implements Shared {
+  public static final long DEFAULT_MAX_ENTRIES = 256 * 1024;
+
+  @NotNull
+  private final ConcurrentCache<TreeKey, List<GitTreeEntry>> memory;
+
+  public GitTreeCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param maxEntries Total tree entries limit. Zero disables cache.
+   */
+  public GitTreeCache(long maxEntries) {
+    this.memory = new ConcurrentCache<>(maxEntries, GitTreeCache::weight);
+  }
+
+  @NotNull
+  List<GitTreeEntry> get(@NotNull GitObject<ObjectId> treeId) throws IOException {
+    final TreeKey key = new TreeKey(treeId.getRepo(), treeId.getObject());
+    final List<GitTreeEntry> cached = memory.get(key);
+    if (cached != null)
+      return cached;
+
+    final List<GitTreeEntry> entries = Collections.unmodifiableList(parse(treeId));
+    memory.put(key, entries);
+    return entries;
+  }
+
+  @NotNull
+  private static List<GitTreeEntry> parse(@NotNull GitObject<ObjectId> treeId) throws IOException {
+    final List<GitTreeEntry> result = new ArrayList<>();
+    final Repository repo = treeId.getRepo();
+    try (ObjectReader reader = repo.newObjectReader()) {
+      final CanonicalTreeParser treeParser = new CanonicalTreeParser(GitRepository.emptyBytes, reader, treeId.getObject());
+      while (!treeParser.eof()) {
+        result.add(new GitTreeEntry(
+            treeParser.getEntryFileMode(),
+            new GitObject<>(repo, treeParser.getEntryObjectId()),
+            treeParser.getEntryPathString()
+        ));
+        treeParser.next();
+      }
+    }
+    return result;
+  }
+
+  public long getHits() {
+    return memory.getHits();
+  }
+
+  public long getMisses() {
+    return memory.getMisses();
+  }
+
+  public long getUsedEntries() {
+    return memory.getWeight();
+  }
+
+  private static long weight(@NotNull List<GitTreeEntry> entries) {
+    // Empty tree still takes a slot.
+    return entries.size() + 1;
+  }
+
+  @Override
+  public void close() {
+    memory.clear();
+  }
+
+  /**
+   * Tree entries refer to repository objects, so same tree of different repositories is cached separately.
+   */
+  private static final class TreeKey {
+    @NotNull
+    private final Repository repo;
+    @NotNull
+    private final ObjectId treeId;
+
+    private TreeKey(@NotNull Repository repo, @NotNull ObjectId treeId) {
+      this.repo = repo;
+      this.treeId = treeId.copy();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      final TreeKey other = (TreeKey) o;
+      return repo == other.repo && treeId.equals(other.treeId);
+    }
+
+    @Override
+    public int hashCode() {
+      return treeId.hashCode();
+    }
+  }
+}
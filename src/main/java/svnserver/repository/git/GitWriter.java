@@ -8,7 +8,6 @@
 package svnserver.repository.git;
 
 import org.eclipse.jgit.lib.*;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.jetbrains.annotations.NotNull;
@@ -114,11 +113,11 @@ public final class GitWriter implements AutoCloseable {
     }
 
     private Iterable<GitTreeEntry> getOriginalTree() throws IOException {
-      final RevCommit commit = revision.getGitNewCommit();
-      if (commit == null) {
+      final ObjectId treeId = revision.getGitNewTree();
+      if (treeId == null) {
         return Collections.emptyList();
       }
-      return branch.getRepository().loadTree(new GitTreeEntry(branch.getRepository().getGit(), FileMode.TREE, commit.getTree(), ""));
+      return branch.getRepository().loadTree(new GitTreeEntry(branch.getRepository().getGit(), FileMode.TREE, treeId, ""));
     }
 
     public void addDir(@NotNull String name, @Nullable GitFile sourceDir) throws SVNException, IOException {
@@ -178,6 +177,10 @@ public final class GitWriter implements AutoCloseable {
       if (modify ^ (entry != null)) {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.WC_NOT_UP_TO_DATE, "Working copy is not up-to-date: " + getFullPath(name)));
       }
+      if (modify && originalId != null && !originalId.equals(entry.getObjectId())) {
+        // File was changed after delta was applied, for example by concurrent push.
+        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.WC_NOT_UP_TO_DATE, "Working copy is not up-to-date: " + getFullPath(name)));
+      }
       final GitObject<ObjectId> objectId = gitDeltaConsumer.getObjectId();
       if (objectId == null) {
         // Content not updated.
@@ -215,9 +218,9 @@ public final class GitWriter implements AutoCloseable {
       commitBuilder.setAuthor(ident);
       commitBuilder.setCommitter(ident);
       commitBuilder.setMessage(message);
-      final RevCommit parentCommit = revision.getGitNewCommit();
+      final ObjectId parentCommit = revision.getGitNewCommit();
       if (parentCommit != null) {
-        commitBuilder.setParentId(parentCommit.getId());
+        commitBuilder.setParentId(parentCommit);
       }
       commitBuilder.setTreeId(treeId);
       final ObjectId commitId = inserter.insert(commitBuilder);
@@ -235,7 +238,10 @@ public final class GitWriter implements AutoCloseable {
 
         log.info("Try to push commit in branch: {}", branch);
         if (!pusher.push(branch.getRepository().getGit(), commitId, branch.getGitBranch(), userInfo)) {
-          log.info("Non fast forward push rejected");
+          // Branch was changed outside of this server. Load new head, so commit is rebuilt on top of it:
+          // recorded changes are replayed and checked for conflicts against new revision.
+          log.info("Non fast forward push rejected, reload branch: {}", branch);
+          branch.updateRevisions();
           return null;
         }
         log.info("Commit is pushed");
@@ -0,0 +1,217 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.repository.git.cache.PathChangeIndex;
+
+import java.util.Arrays;
+
+/**
+ * Immutable view of branch revisions.
+ * <p>
+ * Snapshot can be read from any thread without locking. New revisions are appended into arrays
+ * shared with previous snapshots: readers ignore everything after their own revision count,
+ * so appending does not affect already published snapshots.
+ * <p>
+ * Appending must be serialized. If arrays are already extended by another snapshot, they are copied.
+ * <p>
+ * Path change index is shared by all snapshots created from the same {@link #create()} call in the same way:
+ * snapshots of rebuilt history use own index, so rebuild does not affect published snapshot.
+ */
+final class RevisionSnapshot {
+  private static final int INITIAL_CAPACITY = 16;
+
+  @NotNull
+  private final GitRevision[] revisions;
+  private final int count;
+  // Ascending commit dates with revision number, used for date lookups.
+  @NotNull
+  private final long[] dates;
+  @NotNull
+  private final int[] dateRevisions;
+  private final int dateCount;
+  // Open addressing hash table of revision numbers by git commit (revision + 1, zero marks empty slot).
+  @NotNull
+  private final int[] hashSlots;
+  // Changes of all revisions in this snapshot lineage, readers ignore revisions after their own.
+  @NotNull
+  private final PathChangeIndex changes;
+
+  private RevisionSnapshot(@NotNull GitRevision[] revisions, int count, @NotNull long[] dates, @NotNull int[] dateRevisions, int dateCount, @NotNull int[] hashSlots, @NotNull PathChangeIndex changes) {
+    this.revisions = revisions;
+    this.count = count;
+    this.dates = dates;
+    this.dateRevisions = dateRevisions;
+    this.dateCount = dateCount;
+    this.hashSlots = hashSlots;
+    this.changes = changes;
+  }
+
+  /**
+   * Create empty snapshot with own path change index.
+   */
+  @NotNull
+  static RevisionSnapshot create() {
+    return new RevisionSnapshot(new GitRevision[0], 0, new long[0], new int[0], 0, new int[0], new PathChangeIndex());
+  }
+
+  /**
+   * @return Path change index. Index is not thread-safe and is modified by appending revisions, access must be synchronized.
+   */
+  @NotNull
+  PathChangeIndex getChanges() {
+    return changes;
+  }
+
+  int size() {
+    return count;
+  }
+
+  boolean isEmpty() {
+    return count == 0;
+  }
+
+  @Nullable
+  GitRevision get(int revision) {
+    if (revision < 0 || revision >= count)
+      return null;
+
+    return revisions[revision];
+  }
+
+  @Nullable
+  GitRevision getLatest() {
+    return count == 0 ? null : revisions[count - 1];
+  }
+
+  /**
+   * @return Latest revision with date not after given or first revision.
+   */
+  @Nullable
+  GitRevision getByDate(long dateTime) {
+    int low = 0;
+    int high = dateCount;
+    // Find first date after given: same dates are appended in revision order and latest of them wins.
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (dates[mid] <= dateTime) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low > 0 ? revisions[dateRevisions[low - 1]] : get(0);
+  }
+
+  /**
+   * @return Revision of given git commit.
+   */
+  @Nullable
+  GitRevision getByCommit(@NotNull AnyObjectId commitId) {
+    if (count == 0)
+      return null;
+
+    int slot = slot(commitId, hashSlots.length);
+    while (true) {
+      final int revision = hashSlots[slot] - 1;
+      if (revision < 0)
+        return null;
+
+      // Slots are shared with newer snapshots, so they can refer to not yet published revisions.
+      if (revision < count) {
+        final ObjectId commit = revisions[revision].getGitNewCommit();
+        if (commit != null && commit.equals(commitId))
+          return revisions[revision];
+      }
+      slot = (slot + 1) & (hashSlots.length - 1);
+    }
+  }
+
+  /**
+   * Create snapshot with one more revision.
+   */
+  @NotNull
+  RevisionSnapshot append(@NotNull GitRevision revision) {
+    if (revision.getId() != count)
+      throw new IllegalArgumentException("Unexpected revision number " + revision.getId() + ", expected " + count);
+
+    // Slot after our last revision is taken: arrays belong to other snapshot lineage and can't be reused.
+    if (count == revisions.length || revisions[count] != null)
+      return copy(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(count) << 1)).append(revision);
+
+    final GitRevision[] newRevisions = revisions;
+    newRevisions[count] = revision;
+
+    long[] newDates = dates;
+    int[] newDateRevisions = dateRevisions;
+    int newDateCount = dateCount;
+    if (revision.getId() > 0 && (dateCount == 0 || dates[dateCount - 1] <= revision.getDate())) {
+      newDates[dateCount] = revision.getDate();
+      newDateRevisions[dateCount] = revision.getId();
+      newDateCount++;
+    }
+
+    int[] newHashSlots = hashSlots;
+    final ObjectId commit = revision.getGitNewCommit();
+    if (commit != null) {
+      if ((count + 1) * 2 > hashSlots.length)
+        newHashSlots = rehash(newRevisions, count, Math.max(INITIAL_CAPACITY * 2, hashSlots.length * 2));
+
+      insert(newHashSlots, commit, count);
+    }
+    return new RevisionSnapshot(newRevisions, count + 1, newDates, newDateRevisions, newDateCount, newHashSlots, changes);
+  }
+
+  /**
+   * Create snapshot with same revisions and own arrays.
+   */
+  @NotNull
+  private RevisionSnapshot copy(int capacity) {
+    // Capacity is power of two and greater than revision count.
+    final GitRevision[] newRevisions = Arrays.copyOf(revisions, capacity);
+    // Drop revisions of other snapshots.
+    Arrays.fill(newRevisions, count, Math.min(revisions.length, capacity), null);
+    return new RevisionSnapshot(
+        newRevisions,
+        count,
+        Arrays.copyOf(dates, capacity),
+        Arrays.copyOf(dateRevisions, capacity),
+        dateCount,
+        rehash(newRevisions, count, capacity * 2),
+        changes
+    );
+  }
+
+  @NotNull
+  private static int[] rehash(@NotNull GitRevision[] revisions, int count, int capacity) {
+    final int[] slots = new int[capacity];
+    for (int i = 0; i < count; ++i) {
+      final ObjectId commit = revisions[i].getGitNewCommit();
+      if (commit != null)
+        insert(slots, commit, i);
+    }
+    return slots;
+  }
+
+  private static void insert(@NotNull int[] slots, @NotNull AnyObjectId commitId, int revision) {
+    int slot = slot(commitId, slots.length);
+    while (slots[slot] != 0)
+      slot = (slot + 1) & (slots.length - 1);
+
+    slots[slot] = revision + 1;
+  }
+
+  private static int slot(@NotNull AnyObjectId commitId, int capacity) {
+    // Object id is already uniformly distributed hash.
+    return commitId.hashCode() & (capacity - 1);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Concurrent cache bounded by total weight of values.
+ * <p>
+ * Lookup doesn't take locks: entry only remembers its last access time. When weight limit is exceeded,
+ * single thread evicts least recently used entry from small sample of entries. Samples are taken
+ * round-robin over the whole map, so eviction is approximate LRU. Small cache is sampled completely,
+ * so it is evicted in exact LRU order.
+ */
+public final class ConcurrentCache<K, V> {
+  private static final int SAMPLE_SIZE = 16;
+
+  private final long maxWeight;
+  @NotNull
+  private final ToLongFunction<V> weigher;
+  @NotNull
+  private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+  @NotNull
+  private final AtomicLong weight = new AtomicLong();
+  @NotNull
+  private final LongAdder hits = new LongAdder();
+  @NotNull
+  private final LongAdder misses = new LongAdder();
+  @NotNull
+  private final LongAdder evictions = new LongAdder();
+  @NotNull
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  // Sampling position, guarded by evictionLock.
+  @Nullable
+  private Iterator<Map.Entry<K, Node<V>>> sampler;
+
+  /**
+   * @param maxWeight Total weight limit. Zero disables cache.
+   * @param weigher   Value weight.
+   */
+  public ConcurrentCache(long maxWeight, @NotNull ToLongFunction<V> weigher) {
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  @Nullable
+  public V get(@NotNull K key) {
+    final Node<V> node = map.get(key);
+    if (node == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    node.accessTime = System.nanoTime();
+    return node.value;
+  }
+
+  public void put(@NotNull K key, @NotNull V value) {
+    final long size = weigher.applyAsLong(value);
+    if (size > maxWeight)
+      return;
+
+    final Node<V> node = new Node<>(value, size);
+    final Node<V> old = map.put(key, node);
+    weight.addAndGet(old == null ? size : size - old.weight);
+    while (weight.get() > maxWeight && evictionLock.tryLock()) {
+      try {
+        evict();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void evict() {
+    while (weight.get() > maxWeight) {
+      Map.Entry<K, Node<V>> eldest = null;
+      if (map.size() <= SAMPLE_SIZE) {
+        for (Map.Entry<K, Node<V>> entry : map.entrySet())
+          if (eldest == null || entry.getValue().accessTime < eldest.getValue().accessTime)
+            eldest = entry;
+      } else {
+        for (int i = 0; i < SAMPLE_SIZE; ++i) {
+          if (sampler == null || !sampler.hasNext())
+            sampler = map.entrySet().iterator();
+
+          if (!sampler.hasNext())
+            break;
+
+          final Map.Entry<K, Node<V>> entry = sampler.next();
+          if (eldest == null || entry.getValue().accessTime < eldest.getValue().accessTime)
+            eldest = entry;
+        }
+      }
+      if (eldest == null)
+        return;
+
+      if (remove(eldest.getKey(), eldest.getValue()))
+        evictions.increment();
+    }
+  }
+
+  private boolean remove(@NotNull K key, @NotNull Node<V> node) {
+    // Replaced node is accounted by put.
+    if (!map.remove(key, node))
+      return false;
+
+    weight.addAndGet(-node.weight);
+    return true;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getWeight() {
+    return weight.get();
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public void clear() {
+    for (Map.Entry<K, Node<V>> entry : map.entrySet())
+      remove(entry.getKey(), entry.getValue());
+  }
+
+  private static final class Node<V> {
+    @NotNull
+    private final V value;
+    private final long weight;
+    private volatile long accessTime = System.nanoTime();
+
+    private Node(@NotNull V value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Compact index of revisions where path was changed.
+ * <p>
+ * Paths are stored as trie: every node keeps parent node and interned name segment,
+ * segment characters are kept in shared pool. Nodes are found by hash of full path,
+ * so lookup does not allocate and touches only few primitive arrays.
+ * <p>
+ * Revision list of every node is delta and varint encoded. Last change is kept separately,
+ * so lookup for most recent revision does not decode the list and paths with single change
+ * do not need the list at all.
+ * <p>
+ * Class is not thread-safe.
+ */
+public final class PathChangeIndex {
+  public static final int NO_FILE = -1;
+  private static final int ROOT = 0;
+  private static final int NO_CHANGE = -1;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INITIAL_CHANGES_SIZE = 8;
+  private static final int NODE_SIZE = 4;
+  private static final int PARENT = 0;
+  private static final int SEGMENT = 1;
+  private static final int HASH = 2;
+  private static final int LAST_CHANGE = 3;
+
+  // Segments: characters pool and hash table of segment offsets.
+  // Segment is identified by its offset in pool, pool stores segment length before characters.
+  private char[] segmentChars = new char[INITIAL_CAPACITY * 8];
+  private int segmentCharsLength;
+  private int[] segmentSlots = new int[INITIAL_CAPACITY * 2];
+  private int segmentCount;
+
+  // Nodes: parent node, segment, full path hash and last change ((revision << 1) | removed).
+  // Node fields are packed together, so lookup touches one cache line per node.
+  private int[] nodes = new int[INITIAL_CAPACITY * NODE_SIZE];
+  // Hash table of node ids.
+  private int[] nodeSlots = new int[INITIAL_CAPACITY * 2];
+  private int nodeCount;
+
+  // Encoded change list of nodes with several changes.
+  private byte[][] changes = new byte[INITIAL_CAPACITY][];
+  private int[] changesLength = new int[INITIAL_CAPACITY];
+  private int pathCount;
+
+  public PathChangeIndex() {
+    clear();
+  }
+
+  /**
+   * Register path change.
+   *
+   * @param path     Path.
+   * @param revision Revision, must be greater than all previously registered revisions of this path.
+   * @param removed  Path does not exist after change.
+   */
+  public void add(@NotNull String path, int revision, boolean removed) {
+    final int node = createNode(path);
+    final int last = nodes[node * NODE_SIZE + LAST_CHANGE];
+    final int change = (revision << 1) | (removed ? 1 : 0);
+    if (last == NO_CHANGE) {
+      nodes[node * NODE_SIZE + LAST_CHANGE] = change;
+      pathCount++;
+      return;
+    }
+
+    final int prevRevision = last >>> 1;
+    if (revision <= prevRevision)
+      throw new IllegalArgumentException("Revision " + revision + " is not greater than last change of " + path + ": " + prevRevision);
+
+    if (changes[node] == null)
+      writeVarInt(node, last);
+
+    writeVarInt(node, ((revision - prevRevision) << 1) | (removed ? 1 : 0));
+    nodes[node * NODE_SIZE + LAST_CHANGE] = change;
+  }
+
+  /**
+   * Find last revision, where path was changed.
+   *
+   * @param path           Path.
+   * @param beforeRevision Maximum revision.
+   * @return Revision or {@link #NO_FILE} if path did not exist in given revision.
+   */
+  public int getLastChange(@NotNull String path, int beforeRevision) {
+    final int node = findNode(path);
+    if (node < 0)
+      return NO_FILE;
+
+    final int last = nodes[node * NODE_SIZE + LAST_CHANGE];
+    if (last == NO_CHANGE)
+      return NO_FILE;
+
+    if ((last >>> 1) <= beforeRevision)
+      return decode(last);
+
+    final byte[] data = changes[node];
+    if (data == null)
+      return NO_FILE;
+
+    final int length = changesLength[node];
+    int result = NO_FILE;
+    int revision = 0;
+    int offset = 0;
+    while (offset < length) {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[offset++];
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+
+      revision += value >>> 1;
+      if (revision > beforeRevision)
+        break;
+
+      result = decode((revision << 1) | (value & 1));
+    }
+    return result;
+  }
+
+  /**
+   * @return Count of paths with changes.
+   */
+  public int size() {
+    return pathCount;
+  }
+
+  public void clear() {
+    segmentCharsLength = 0;
+    Arrays.fill(segmentSlots, 0);
+    segmentCount = 0;
+    Arrays.fill(nodeSlots, 0);
+    Arrays.fill(changes, 0, nodeCount, null);
+    Arrays.fill(changesLength, 0, nodeCount, 0);
+    nodeCount = 0;
+    pathCount = 0;
+    // Root node is not stored in hash table.
+    nodes[ROOT * NODE_SIZE + PARENT] = -1;
+    nodes[ROOT * NODE_SIZE + SEGMENT] = -1;
+    nodes[ROOT * NODE_SIZE + HASH] = 0;
+    nodes[ROOT * NODE_SIZE + LAST_CHANGE] = NO_CHANGE;
+    nodeCount = 1;
+  }
+
+  private static int decode(int change) {
+    return (change & 1) != 0 ? NO_FILE : change >>> 1;
+  }
+
+  private static int hashSegment(@NotNull String path, int begin, int end) {
+    int hash = 0;
+    for (int i = begin; i < end; ++i)
+      hash = hash * 31 + path.charAt(i);
+
+    return hash;
+  }
+
+  private static int hashSegment(@NotNull char[] chars, int begin, int end) {
+    int hash = 0;
+    for (int i = begin; i < end; ++i)
+      hash = hash * 31 + chars[i];
+
+    return hash;
+  }
+
+  private static int hashChild(int parentHash, int segmentHash) {
+    return (parentHash * 0x9E3779B1) ^ segmentHash;
+  }
+
+  private static int slot(int hash, int capacity) {
+    // Murmur3 finalizer: low bits of slot must depend on all bits of hash.
+    int mixed = hash ^ (hash >>> 16);
+    mixed *= 0x85EBCA6B;
+    mixed ^= mixed >>> 13;
+    mixed *= 0xC2B2AE35;
+    return (mixed ^ (mixed >>> 16)) & (capacity - 1);
+  }
+
+  private int findNode(@NotNull String path) {
+    int hash = 0;
+    int segmentHash = 0;
+    boolean segment = false;
+    boolean root = true;
+    final int length = path.length();
+    for (int i = 0; i < length; ++i) {
+      final char c = path.charAt(i);
+      if (c != '/') {
+        segmentHash = segmentHash * 31 + c;
+        segment = true;
+      } else if (segment) {
+        hash = hashChild(hash, segmentHash);
+        segmentHash = 0;
+        segment = false;
+        root = false;
+      }
+    }
+    if (segment) {
+      hash = hashChild(hash, segmentHash);
+      root = false;
+    }
+    if (root)
+      return ROOT;
+
+    int slot = slot(hash, nodeSlots.length);
+    while (true) {
+      final int node = nodeSlots[slot];
+      if (node == 0)
+        return -1;
+
+      if (nodes[node * NODE_SIZE + HASH] == hash && matches(node, path))
+        return node;
+
+      slot = (slot + 1) & (nodeSlots.length - 1);
+    }
+  }
+
+  /**
+   * Compare node path with given path from the end.
+   */
+  private boolean matches(int node, @NotNull String path) {
+    int end = path.length();
+    while (node != ROOT) {
+      while (end > 0 && path.charAt(end - 1) == '/')
+        end--;
+
+      final int segment = nodes[node * NODE_SIZE + SEGMENT];
+      final int begin = end - segmentChars[segment];
+      if (begin < 0 || (begin > 0 && path.charAt(begin - 1) != '/') || !segmentEquals(segment, path, begin, end - begin))
+        return false;
+
+      end = begin;
+      node = nodes[node * NODE_SIZE + PARENT];
+    }
+    while (end > 0 && path.charAt(end - 1) == '/')
+      end--;
+
+    return end == 0;
+  }
+
+  private boolean segmentEquals(int segment, @NotNull String path, int begin, int length) {
+    if (segmentChars[segment] != length)
+      return false;
+
+    final int offset = segment + 1;
+    for (int i = 0; i < length; ++i) {
+      if (segmentChars[offset + i] != path.charAt(begin + i))
+        return false;
+    }
+    return true;
+  }
+
+  private int createNode(@NotNull String path) {
+    int node = ROOT;
+    int begin = 0;
+    final int length = path.length();
+    while (begin < length) {
+      int end = path.indexOf('/', begin);
+      if (end < 0)
+        end = length;
+
+      if (end > begin)
+        node = createChild(node, path, begin, end);
+
+      begin = end + 1;
+    }
+    return node;
+  }
+
+  private int createChild(int parent, @NotNull String path, int begin, int end) {
+    final int segHash = hashSegment(path, begin, end);
+    final int segment = createSegment(path, begin, end, segHash);
+    final int hash = hashChild(nodes[parent * NODE_SIZE + HASH], segHash);
+    int slot = slot(hash, nodeSlots.length);
+    while (true) {
+      final int node = nodeSlots[slot];
+      if (node == 0)
+        break;
+
+      if (nodes[node * NODE_SIZE + HASH] == hash && nodes[node * NODE_SIZE + PARENT] == parent && nodes[node * NODE_SIZE + SEGMENT] == segment)
+        return node;
+
+      slot = (slot + 1) & (nodeSlots.length - 1);
+    }
+
+    if (nodeCount == changes.length) {
+      final int capacity = nodeCount * 2;
+      nodes = Arrays.copyOf(nodes, capacity * NODE_SIZE);
+      changes = Arrays.copyOf(changes, capacity);
+      changesLength = Arrays.copyOf(changesLength, capacity);
+    }
+    final int node = nodeCount++;
+    nodes[node * NODE_SIZE + PARENT] = parent;
+    nodes[node * NODE_SIZE + SEGMENT] = segment;
+    nodes[node * NODE_SIZE + HASH] = hash;
+    nodes[node * NODE_SIZE + LAST_CHANGE] = NO_CHANGE;
+    nodeSlots[slot] = node;
+    if (nodeCount * 2 > nodeSlots.length)
+      nodeSlots = rehashNodes(nodeSlots);
+
+    return node;
+  }
+
+  private int createSegment(@NotNull String path, int begin, int end, int hash) {
+    final int length = end - begin;
+    if (length > Character.MAX_VALUE)
+      throw new IllegalArgumentException("Path segment is too long: " + path);
+
+    int slot = slot(hash, segmentSlots.length);
+    while (true) {
+      // Segment offsets are shifted by one, as zero marks empty slot.
+      final int segment = segmentSlots[slot] - 1;
+      if (segment < 0)
+        break;
+
+      if (segmentEquals(segment, path, begin, length))
+        return segment;
+
+      slot = (slot + 1) & (segmentSlots.length - 1);
+    }
+
+    final int segment = segmentCharsLength;
+    if (segment + length + 1 > segmentChars.length)
+      segmentChars = Arrays.copyOf(segmentChars, Math.max(segmentChars.length * 2, segment + length + 1));
+
+    segmentChars[segment] = (char) length;
+    path.getChars(begin, end, segmentChars, segment + 1);
+    segmentCharsLength = segment + length + 1;
+    segmentSlots[slot] = segment + 1;
+    segmentCount++;
+    if (segmentCount * 2 > segmentSlots.length) {
+      final int[] slots = new int[segmentSlots.length * 2];
+      for (int offset = 0; offset < segmentCharsLength; offset += segmentChars[offset] + 1) {
+        int s = slot(hashSegment(segmentChars, offset + 1, offset + 1 + segmentChars[offset]), slots.length);
+        while (slots[s] != 0)
+          s = (s + 1) & (slots.length - 1);
+
+        slots[s] = offset + 1;
+      }
+      segmentSlots = slots;
+    }
+    return segment;
+  }
+
+  @NotNull
+  private int[] rehashNodes(@NotNull int[] oldSlots) {
+    final int[] slots = new int[oldSlots.length * 2];
+    for (int node : oldSlots) {
+      if (node == 0)
+        continue;
+
+      int slot = slot(nodes[node * NODE_SIZE + HASH], slots.length);
+      while (slots[slot] != 0)
+        slot = (slot + 1) & (slots.length - 1);
+
+      slots[slot] = node;
+    }
+    return slots;
+  }
+
+  private void writeVarInt(int node, int value) {
+    byte[] data = changes[node];
+    int length = changesLength[node];
+    final int size = varIntSize(value);
+    if (data == null) {
+      data = new byte[Math.max(INITIAL_CHANGES_SIZE, size)];
+    } else if (data.length - length < size) {
+      data = Arrays.copyOf(data, Math.max(data.length + (data.length >> 1), length + size));
+    }
+    while ((value & ~0x7F) != 0) {
+      data[length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data[length++] = (byte) value;
+    changes[node] = data;
+    changesLength[node] = length;
+  }
+
+  private static int varIntSize(int value) {
+    int result = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      result++;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Append-only persistent index of loaded revisions.
+ * <p>
+ * Keeps everything that is required to restore branch revision tables and path change index
+ * without walking cache commit chain and reading revision cache on every server start.
+ * <p>
+ * File is read sequentially into heap buffer: memory mapped regions stay alive until garbage collection,
+ * so they can't be used together with truncation and deletion of index file. Incomplete trailing record
+ * (for example, after crash) is truncated on read.
+ */
+public final class RevisionIndex {
+  private static final int MAGIC = 0x47535249;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+  private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+  @NotNull
+  private final Path file;
+
+  public RevisionIndex(@NotNull Path file) {
+    this.file = file;
+  }
+
+  @NotNull
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Read all complete records.
+   */
+  @NotNull
+  public List<Entry> read() throws IOException {
+    if (!Files.exists(file))
+      return Collections.emptyList();
+
+    final List<Entry> result = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final long size = channel.size();
+      ByteBuffer buffer = fill(channel, (ByteBuffer) ByteBuffer.allocate(READ_BUFFER_SIZE).flip(), HEADER_SIZE);
+      if (buffer.remaining() < HEADER_SIZE || !checkHeader(buffer)) {
+        channel.truncate(0);
+        return Collections.emptyList();
+      }
+      buffer.position(buffer.position() + HEADER_SIZE);
+
+      long position = HEADER_SIZE;
+      while (true) {
+        buffer = fill(channel, buffer, 4);
+        if (buffer.remaining() < 4)
+          break;
+
+        final int length = buffer.getInt(buffer.position());
+        if (length <= 0 || position + 4 + length > size)
+          break;
+
+        buffer = fill(channel, buffer, 4 + length);
+        if (buffer.remaining() < 4 + length)
+          break;
+
+        final ByteBuffer record = buffer.duplicate();
+        record.position(buffer.position() + 4);
+        record.limit(record.position() + length);
+        final Entry entry = readEntry(record);
+        if (entry == null)
+          break;
+
+        result.add(entry);
+        buffer.position(record.limit());
+        position += 4 + length;
+      }
+      if (position < size)
+        channel.truncate(position);
+    }
+    return result;
+  }
+
+  /**
+   * Read file data into buffer until it has required byte count or file end is reached.
+   *
+   * @param buffer Buffer in read mode.
+   * @return Buffer in read mode, it is reallocated if required byte count exceeds its capacity.
+   */
+  @NotNull
+  private static ByteBuffer fill(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, int required) throws IOException {
+    if (buffer.remaining() >= required)
+      return buffer;
+
+    final ByteBuffer result;
+    if (buffer.capacity() < required) {
+      result = ByteBuffer.allocate(required);
+      result.put(buffer);
+    } else {
+      result = buffer.compact();
+    }
+    while (result.position() < required && channel.read(result) >= 0) {
+      // Read until required byte count is available
+    }
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Append records to index end.
+   */
+  public void append(@NotNull List<Entry> entries) throws IOException {
+    if (entries.isEmpty())
+      return;
+
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final DataOutputStream stream = new DataOutputStream(buffer);
+      long position = channel.size();
+      if (position < HEADER_SIZE) {
+        position = 0;
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+      }
+      for (Entry entry : entries) {
+        final byte[] record = writeEntry(entry);
+        stream.writeInt(record.length);
+        stream.write(record);
+      }
+      stream.flush();
+      channel.truncate(position);
+      channel.write(ByteBuffer.wrap(buffer.toByteArray()), position);
+      channel.force(false);
+    }
+  }
+
+  /**
+   * Drop all records.
+   */
+  public void reset() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private static boolean checkHeader(@NotNull ByteBuffer header) {
+    return header.getInt(header.position()) == MAGIC && header.getInt(header.position() + 4) == VERSION;
+  }
+
+  @NotNull
+  private static byte[] writeEntry(@NotNull Entry entry) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (DataOutputStream stream = new DataOutputStream(buffer)) {
+      writeObjectId(stream, entry.cacheCommit);
+      stream.writeInt(entry.commitTime);
+      stream.writeBoolean(entry.gitCommitId != null);
+      if (entry.gitCommitId != null)
+        writeObjectId(stream, entry.gitCommitId);
+
+      stream.writeInt(entry.renames.size());
+      for (Map.Entry<String, String> rename : entry.renames.entrySet()) {
+        writeString(stream, rename.getKey());
+        writeString(stream, rename.getValue());
+      }
+      stream.writeInt(entry.changes.size());
+      for (Map.Entry<String, Boolean> change : entry.changes.entrySet()) {
+        writeString(stream, change.getKey());
+        stream.writeBoolean(change.getValue());
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  @Nullable
+  private static Entry readEntry(@NotNull ByteBuffer record) {
+    try {
+      final ObjectId cacheCommit = readObjectId(record);
+      final int commitTime = record.getInt();
+      final ObjectId gitCommitId = record.get() != 0 ? readObjectId(record) : null;
+
+      final int renamesCount = record.getInt();
+      final Map<String, String> renames = renamesCount == 0 ? Collections.emptyMap() : new HashMap<>();
+      for (int i = 0; i < renamesCount; ++i)
+        renames.put(readString(record), readString(record));
+
+      final int changesCount = record.getInt();
+      final Map<String, Boolean> changes = new LinkedHashMap<>();
+      for (int i = 0; i < changesCount; ++i)
+        changes.put(readString(record), record.get() != 0);
+
+      if (record.hasRemaining())
+        return null;
+
+      return new Entry(cacheCommit, commitTime, gitCommitId, renames, changes);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void writeObjectId(@NotNull DataOutputStream stream, @NotNull ObjectId objectId) throws IOException {
+    final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    objectId.copyRawTo(raw, 0);
+    stream.write(raw);
+  }
+
+  @NotNull
+  private static ObjectId readObjectId(@NotNull ByteBuffer record) {
+    final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    record.get(raw);
+    return ObjectId.fromRaw(raw);
+  }
+
+  private static void writeString(@NotNull DataOutputStream stream, @NotNull String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    stream.writeInt(bytes.length);
+    stream.write(bytes);
+  }
+
+  @NotNull
+  private static String readString(@NotNull ByteBuffer record) {
+    final int length = record.getInt();
+    if (length < 0 || length > record.remaining())
+      throw new IllegalArgumentException("Invalid string length: " + length);
+
+    final byte[] bytes = new byte[length];
+    record.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Loaded revision information.
+   */
+  public static final class Entry {
+    @NotNull
+    private final ObjectId cacheCommit;
+    private final int commitTime;
+    @Nullable
+    private final ObjectId gitCommitId;
+    @NotNull
+    private final Map<String, String> renames;
+    @NotNull
+    private final Map<String, Boolean> changes;
+
+    /**
+     * @param cacheCommit Cache commit of revision.
+     * @param commitTime  Cache commit time.
+     * @param gitCommitId Original git commit.
+     * @param renames     Renames (new path → old path).
+     * @param changes     Changed paths (path → true if path was removed).
+     */
+    public Entry(@NotNull ObjectId cacheCommit, int commitTime, @Nullable ObjectId gitCommitId, @NotNull Map<String, String> renames, @NotNull Map<String, Boolean> changes) {
+      this.cacheCommit = cacheCommit.copy();
+      this.commitTime = commitTime;
+      this.gitCommitId = gitCommitId == null ? null : gitCommitId.copy();
+      this.renames = renames;
+      this.changes = changes;
+    }
+
+    @NotNull
+    public ObjectId getCacheCommit() {
+      return cacheCommit;
+    }
+
+    public int getCommitTime() {
+      return commitTime;
+    }
+
+    @Nullable
+    public ObjectId getGitCommitId() {
+      return gitCommitId;
+    }
+
+    @NotNull
+    public Map<String, String> getRenames() {
+      return renames;
+    }
+
+    @NotNull
+    public Map<String, Boolean> getChanges() {
+      return changes;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.filter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.StringHelper;
+
+import java.util.Arrays;
+
+/**
+ * Cached metadata of filtered blob content.
+ * <p>
+ * Every field may be unknown: fields are filled on demand and merged into single record.
+ */
+public final class GitBlobMetadata {
+  static final int MD5_LENGTH = 16;
+  static final long UNKNOWN_SIZE = -1;
+  @NotNull
+  static final GitBlobMetadata empty = new GitBlobMetadata(UNKNOWN_SIZE, null, null);
+
+  private final long size;
+  @Nullable
+  private final byte[] md5;
+  @Nullable
+  private final Boolean binary;
+
+  GitBlobMetadata(long size, @Nullable byte[] md5, @Nullable Boolean binary) {
+    if (md5 != null && md5.length != MD5_LENGTH) {
+      throw new IllegalArgumentException("Invalid md5 length: " + md5.length);
+    }
+    this.size = size;
+    this.md5 = md5;
+    this.binary = binary;
+  }
+
+  /**
+   * @return Content size or {@link #UNKNOWN_SIZE}.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  @Nullable
+  byte[] getMd5Raw() {
+    return md5;
+  }
+
+  @Nullable
+  public String getMd5() {
+    return md5 == null ? null : StringHelper.toHex(md5);
+  }
+
+  @Nullable
+  public Boolean getBinary() {
+    return binary;
+  }
+
+  /**
+   * @return True if all fields are known.
+   */
+  boolean isComplete() {
+    return size != UNKNOWN_SIZE && md5 != null && binary != null;
+  }
+
+  /**
+   * Fill unknown fields from other record.
+   */
+  @NotNull
+  GitBlobMetadata merge(@NotNull GitBlobMetadata other) {
+    final GitBlobMetadata result = new GitBlobMetadata(
+        size != UNKNOWN_SIZE ? size : other.size,
+        md5 != null ? md5 : other.md5,
+        binary != null ? binary : other.binary
+    );
+    return equals(result) ? this : result;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    final GitBlobMetadata that = (GitBlobMetadata) o;
+    return size == that.size
+        && Arrays.equals(md5, that.md5)
+        && (binary == null ? that.binary == null : binary.equals(that.binary));
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Long.hashCode(size);
+    result = 31 * result + Arrays.hashCode(md5);
+    result = 31 * result + (binary == null ? 0 : binary.hashCode());
+    return result;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.filter;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import java.io.IOException;
+
+/**
+ * Fixed-width {@link GitBlobMetadata} serializer: flags byte, size and raw md5.
+ */
+final class GitBlobMetadataSerializer extends GroupSerializerObjectArray<GitBlobMetadata> {
+  @NotNull
+  static final GitBlobMetadataSerializer instance = new GitBlobMetadataSerializer();
+
+  private static final int FLAG_MD5 = 0x01;
+  private static final int FLAG_BINARY_KNOWN = 0x02;
+  private static final int FLAG_BINARY = 0x04;
+  private static final byte[] NO_MD5 = new byte[GitBlobMetadata.MD5_LENGTH];
+
+  @Override
+  public void serialize(@NotNull DataOutput2 out, @NotNull GitBlobMetadata value) throws IOException {
+    final byte[] md5 = value.getMd5Raw();
+    final Boolean binary = value.getBinary();
+    int flags = 0;
+    if (md5 != null) flags |= FLAG_MD5;
+    if (binary != null) flags |= binary ? FLAG_BINARY_KNOWN | FLAG_BINARY : FLAG_BINARY_KNOWN;
+    out.writeByte(flags);
+    out.writeLong(value.getSize());
+    out.write(md5 != null ? md5 : NO_MD5);
+  }
+
+  @Override
+  public GitBlobMetadata deserialize(@NotNull DataInput2 input, int available) throws IOException {
+    final int flags = input.readUnsignedByte();
+    final long size = input.readLong();
+    final byte[] md5 = new byte[GitBlobMetadata.MD5_LENGTH];
+    input.readFully(md5);
+    return new GitBlobMetadata(
+        size,
+        (flags & FLAG_MD5) != 0 ? md5 : null,
+        (flags & FLAG_BINARY_KNOWN) != 0 ? (flags & FLAG_BINARY) != 0 : null
+    );
+  }
+
+  @Override
+  public int fixedSize() {
+    return 1 + 8 + GitBlobMetadata.MD5_LENGTH;
+  }
+
+  @Override
+  public boolean isTrusted() {
+    return true;
+  }
+}
@@ -10,6 +10,7 @@ package svnserver.repository.git.filter;
 import org.atteo.classindex.IndexSubclasses;
 import org.eclipse.jgit.lib.ObjectId;
 import org.jetbrains.annotations.NotNull;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import svnserver.auth.User;
 import svnserver.repository.git.GitObject;
 
@@ -25,6 +26,11 @@ import java.io.OutputStream;
  */
 @IndexSubclasses
 public interface GitFilter {
+  /**
+   * Size value for objects, which size can't be got without content reading.
+   */
+  long UNKNOWN_SIZE = -1;
+
   /**
    * Get object content hash.
    *
@@ -61,6 +67,28 @@ public interface GitFilter {
    */
   long getSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException;
 
+  /**
+   * Get object size without reading object content.
+   *
+   * @param objectId Object reference.
+   * @return Object size in bytes or {@link #UNKNOWN_SIZE}.
+   */
+  default long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return UNKNOWN_SIZE;
+  }
+
+  /**
+   * Check for binary object content.
+   *
+   * @param objectId Object reference.
+   * @return True if object content looks like binary data.
+   */
+  default boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    try (InputStream stream = inputStream(objectId)) {
+      return SVNFileUtil.detectMimeType(stream) != null;
+    }
+  }
+
   /**
    * Get object stream.
    *
@@ -70,6 +98,17 @@ public interface GitFilter {
   @NotNull
   InputStream inputStream(@NotNull GitObject<? extends ObjectId> objectId) throws IOException;
 
+  /**
+   * Get object stream, that also fills cached object md5, size and binary flag when read to the end.
+   *
+   * @param objectId Object reference.
+   * @return Object stream.
+   */
+  @NotNull
+  default InputStream inputStreamWithMetadata(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return inputStream(objectId);
+  }
+
   /**
    * Create stream wrapper for object.
    *
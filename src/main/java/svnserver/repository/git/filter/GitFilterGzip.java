@@ -28,13 +28,10 @@ import java.util.zip.GZIPOutputStream;
 public final class GitFilterGzip implements GitFilter {
 
   @NotNull
-  private final Map<String, String> cacheMd5;
-  @NotNull
-  private final Map<String, Long> cacheSize;
+  private final Map<ObjectId, GitBlobMetadata> cache;
 
   public GitFilterGzip(@NotNull LocalContext context) {
-    this.cacheMd5 = GitFilterHelper.getCacheMd5(this, context.getShared().getCacheDB());
-    this.cacheSize = GitFilterHelper.getCacheSize(this, context.getShared().getCacheDB());
+    this.cache = GitFilterHelper.getMetadataCache(this, context.getShared().getCacheDB());
   }
 
   @NotNull
@@ -46,12 +43,22 @@ public final class GitFilterGzip implements GitFilter {
   @NotNull
   @Override
   public String getMd5(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    return GitFilterHelper.getMd5(this, cacheMd5, cacheSize, objectId);
+    return GitFilterHelper.getMd5(this, cache, objectId);
   }
 
   @Override
   public long getSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    return GitFilterHelper.getSize(this, cacheMd5, cacheSize, objectId);
+    return GitFilterHelper.getSize(this, cache, objectId);
+  }
+
+  @Override
+  public long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) {
+    return GitFilterHelper.getKnownSize(cache, objectId);
+  }
+
+  @Override
+  public boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.isBinary(this, cache, objectId);
   }
 
   @NotNull
@@ -60,6 +67,12 @@ public final class GitFilterGzip implements GitFilter {
     return new GZIPInputStream(objectId.openObject().openStream());
   }
 
+  @NotNull
+  @Override
+  public InputStream inputStreamWithMetadata(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.inputStreamWithMetadata(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public OutputStream outputStream(@NotNull OutputStream stream, @NotNull User user) throws IOException {
@@ -13,14 +13,21 @@ import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
 import org.mapdb.HTreeMap;
 import org.mapdb.Serializer;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import svnserver.HashHelper;
-import svnserver.StringHelper;
 import svnserver.repository.git.GitObject;
+import svnserver.repository.git.ObjectIdSerializer;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
+import java.util.AbstractMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Helper for common filter functionality.
@@ -29,74 +36,237 @@ import java.util.Map;
  */
 public final class GitFilterHelper {
   private static final int BUFFER_SIZE = 32 * 1024;
+  // Same header size as used by SVNFileUtil.detectMimeType.
+  private static final int MIME_DETECT_SIZE = 1024;
+  @NotNull
+  private static final Object migrationLock = new Object();
 
   private GitFilterHelper() {
   }
 
-  public static long getSize(@NotNull GitFilter filter, @Nullable Map<String, String> cacheMd5, @NotNull Map<String, Long> cacheSize, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    final Long size = cacheSize.get(objectId.getObject().name());
-    if (size != null) {
-      return size;
+  public static long getSize(@NotNull GitFilter filter, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    final GitBlobMetadata metadata = cache.get(objectId.getObject());
+    if (metadata != null && metadata.getSize() != GitBlobMetadata.UNKNOWN_SIZE) {
+      return metadata.getSize();
+    }
+    return createMetadata(objectId, filter, cache).getSize();
+  }
+
+  /**
+   * @return Cached object size or {@link GitFilter#UNKNOWN_SIZE}.
+   */
+  public static long getKnownSize(@NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull GitObject<? extends ObjectId> objectId) {
+    final GitBlobMetadata metadata = cache.get(objectId.getObject());
+    if (metadata != null && metadata.getSize() != GitBlobMetadata.UNKNOWN_SIZE) {
+      return metadata.getSize();
     }
-    return createMetadata(objectId, filter, cacheMd5, cacheSize).size;
+    return GitFilter.UNKNOWN_SIZE;
   }
 
   @NotNull
-  private static Metadata createMetadata(@NotNull GitObject<? extends ObjectId> objectId, @NotNull GitFilter filter, @Nullable Map<String, String> cacheMd5, @Nullable Map<String, Long> cacheSize) throws IOException {
+  public static String getMd5(@NotNull GitFilter filter, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    final GitBlobMetadata metadata = cache.get(objectId.getObject());
+    if (metadata != null && metadata.getMd5() != null) {
+      return metadata.getMd5();
+    }
+    //noinspection ConstantConditions
+    return createMetadata(objectId, filter, cache).getMd5();
+  }
+
+  public static boolean isBinary(@NotNull GitFilter filter, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    final GitBlobMetadata metadata = cache.get(objectId.getObject());
+    if (metadata != null && metadata.getBinary() != null) {
+      return metadata.getBinary();
+    }
+    // Binary detection needs only content header: don't read whole blob here.
+    final boolean binary;
+    try (InputStream stream = filter.inputStream(objectId)) {
+      binary = SVNFileUtil.detectMimeType(stream) != null;
+    }
+    return update(cache, objectId.getObject(), new GitBlobMetadata(GitBlobMetadata.UNKNOWN_SIZE, null, binary)).getBinary();
+  }
+
+  /**
+   * Read blob content once and store size, md5 and binary flag.
+   */
+  @NotNull
+  private static GitBlobMetadata createMetadata(@NotNull GitObject<? extends ObjectId> objectId, @NotNull GitFilter filter, @NotNull Map<ObjectId, GitBlobMetadata> cache) throws IOException {
     final byte[] buffer = new byte[BUFFER_SIZE];
-    try (final InputStream stream = filter.inputStream(objectId)) {
-      final MessageDigest digest = cacheMd5 != null ? HashHelper.md5() : null;
-      long totalSize = 0;
+    try (final MetadataInputStream stream = new MetadataInputStream(filter.inputStream(objectId), cache, objectId.getObject())) {
       while (true) {
         int bytes = stream.read(buffer);
-        if (bytes <= 0) break;
-        if (digest != null) {
-          digest.update(buffer, 0, bytes);
-        }
-        totalSize += bytes;
-      }
-      final String md5;
-      if ((cacheMd5 != null) && (digest != null)) {
-        md5 = StringHelper.toHex(digest.digest());
-        cacheMd5.putIfAbsent(objectId.getObject().name(), md5);
-      } else {
-        md5 = null;
+        if (bytes < 0) break;
       }
-      if (cacheSize != null) {
-        cacheSize.putIfAbsent(objectId.getObject().name(), totalSize);
-      }
-      return new Metadata(totalSize, md5);
+      //noinspection ConstantConditions
+      return stream.getMetadata();
     }
   }
 
+  /**
+   * Get object stream, that stores size, md5 and binary flag when content is read to the end.
+   * <p>
+   * So single content read both serves client and fills metadata cache.
+   */
   @NotNull
-  public static String getMd5(@NotNull GitFilter filter, @NotNull Map<String, String> cacheMd5, @Nullable Map<String, Long> cacheSize, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    final String md5 = cacheMd5.get(objectId.getObject().name());
-    if (md5 != null) {
-      return md5;
+  public static InputStream inputStreamWithMetadata(@NotNull GitFilter filter, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    final GitBlobMetadata metadata = cache.get(objectId.getObject());
+    final InputStream stream = filter.inputStream(objectId);
+    if (metadata != null && metadata.isComplete()) {
+      return stream;
     }
-    //noinspection ConstantConditions
-    return createMetadata(objectId, filter, cacheMd5, cacheSize).md5;
+    return new MetadataInputStream(stream, cache, objectId.getObject().copy());
   }
 
   @NotNull
-  public static HTreeMap<String, String> getCacheMd5(@NotNull GitFilter filter, @NotNull DB cacheDb) {
-    return cacheDb.hashMap("cache.filter." + filter.getName() + ".md5", Serializer.STRING, Serializer.STRING).createOrOpen();
+  private static GitBlobMetadata update(@NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull ObjectId objectId, @NotNull GitBlobMetadata metadata) {
+    return cache.merge(objectId, metadata, GitBlobMetadata::merge);
   }
 
+  /**
+   * Get per-filter blob metadata cache.
+   * <p>
+   * Records from old string-keyed md5, size and binary caches are migrated on first open.
+   */
   @NotNull
-  public static HTreeMap<String, Long> getCacheSize(@NotNull GitFilter filter, @NotNull DB cacheDb) {
-    return cacheDb.hashMap("cache.filter." + filter.getName() + ".size", Serializer.STRING, Serializer.LONG).createOrOpen();
+  public static HTreeMap<ObjectId, GitBlobMetadata> getMetadataCache(@NotNull GitFilter filter, @NotNull DB cacheDb) {
+    final String prefix = "cache.filter." + filter.getName();
+    synchronized (migrationLock) {
+      final HTreeMap<ObjectId, GitBlobMetadata> cache = cacheDb
+          .hashMap(prefix + ".meta", ObjectIdSerializer.instance, GitBlobMetadataSerializer.instance)
+          .createOrOpen();
+      migrate(cacheDb, prefix + ".md5", Serializer.STRING, cache, (key, value) -> parseKey(key, "", value, md5 -> new GitBlobMetadata(GitBlobMetadata.UNKNOWN_SIZE, parseHex(md5), null)));
+      migrate(cacheDb, prefix + ".size", Serializer.LONG, cache, (key, value) -> parseKey(key, "", value, size -> new GitBlobMetadata(size, null, null)));
+      migrate(cacheDb, "cache.binary", Serializer.BOOLEAN, cache, (key, value) -> parseKey(key, filter.getName() + " ", value, binary -> new GitBlobMetadata(GitBlobMetadata.UNKNOWN_SIZE, null, binary)));
+      return cache;
+    }
+  }
+
+  private static <V> void migrate(@NotNull DB cacheDb, @NotNull String name, @NotNull Serializer<V> serializer, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull BiFunction<String, V, Map.Entry<ObjectId, GitBlobMetadata>> converter) {
+    if (!cacheDb.exists(name)) {
+      return;
+    }
+    final HTreeMap<String, V> legacy = cacheDb.hashMap(name, Serializer.STRING, serializer).open();
+    final Iterator<Map.Entry<String, V>> iter = legacy.entrySet().iterator();
+    while (iter.hasNext()) {
+      final Map.Entry<String, V> entry = iter.next();
+      final Map.Entry<ObjectId, GitBlobMetadata> converted = converter.apply(entry.getKey(), entry.getValue());
+      if (converted != null) {
+        cache.merge(converted.getKey(), converted.getValue(), GitBlobMetadata::merge);
+        iter.remove();
+      }
+    }
+  }
+
+  @Nullable
+  private static <V> Map.Entry<ObjectId, GitBlobMetadata> parseKey(@NotNull String key, @NotNull String prefix, @NotNull V value, @NotNull Function<V, GitBlobMetadata> factory) {
+    if (!key.startsWith(prefix) || !ObjectId.isId(key.substring(prefix.length()))) {
+      return null;
+    }
+    try {
+      return new AbstractMap.SimpleImmutableEntry<>(ObjectId.fromString(key.substring(prefix.length())), factory.apply(value));
+    } catch (IllegalArgumentException ignored) {
+      // Broken legacy record: just skip it.
+      return null;
+    }
   }
 
-  private static class Metadata {
-    private final long size;
+  @NotNull
+  private static byte[] parseHex(@NotNull String hex) {
+    if (hex.length() != GitBlobMetadata.MD5_LENGTH * 2) {
+      throw new IllegalArgumentException("Invalid md5: " + hex);
+    }
+    final byte[] result = new byte[GitBlobMetadata.MD5_LENGTH];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+    }
+    return result;
+  }
+
+  private static final class MetadataInputStream extends FilterInputStream {
+    @NotNull
+    private final Map<ObjectId, GitBlobMetadata> cache;
+    @NotNull
+    private final ObjectId objectId;
+    @NotNull
+    private final MessageDigest digest = HashHelper.md5();
+    @NotNull
+    private final byte[] header = new byte[MIME_DETECT_SIZE];
+    private int headerSize = 0;
+    private long totalSize = 0;
     @Nullable
-    private final String md5;
+    private GitBlobMetadata metadata;
+
+    private MetadataInputStream(@NotNull InputStream stream, @NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull ObjectId objectId) {
+      super(stream);
+      this.cache = cache;
+      this.objectId = objectId;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] data = new byte[1];
+      final int bytes = read(data, 0, 1);
+      return bytes <= 0 ? -1 : data[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] buffer, int offset, int length) throws IOException {
+      final int bytes = super.read(buffer, offset, length);
+      if (bytes < 0) {
+        complete();
+      } else if (bytes > 0 && metadata == null) {
+        if (headerSize < header.length) {
+          final int count = Math.min(bytes, header.length - headerSize);
+          System.arraycopy(buffer, offset, header, headerSize, count);
+          headerSize += count;
+        }
+        digest.update(buffer, offset, bytes);
+        totalSize += bytes;
+      }
+      return bytes;
+    }
 
-    private Metadata(long size, @Nullable String md5) {
-      this.size = size;
-      this.md5 = md5;
+    @Override
+    public long skip(long count) throws IOException {
+      // Skipped data must be hashed too.
+      final byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(count, 0))];
+      long skipped = 0;
+      while (skipped < count) {
+        final int bytes = read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+        if (bytes <= 0) break;
+        skipped += bytes;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+      throw new IOException("mark/reset not supported");
+    }
+
+    private void complete() throws IOException {
+      if (metadata != null)
+        return;
+
+      final boolean binary = SVNFileUtil.detectMimeType(new ByteArrayInputStream(header, 0, headerSize)) != null;
+      metadata = update(cache, objectId, new GitBlobMetadata(totalSize, digest.digest(), binary));
+    }
+
+    /**
+     * @return Stored metadata or null if stream was not read to the end.
+     */
+    @Nullable
+    GitBlobMetadata getMetadata() {
+      return metadata;
     }
   }
 }
@@ -31,10 +31,10 @@ public final class GitFilterLink implements GitFilter {
   @NotNull
   private static final byte[] LINK_PREFIX = "link ".getBytes(StandardCharsets.ISO_8859_1);
   @NotNull
-  private final Map<String, String> cacheMd5;
+  private final Map<ObjectId, GitBlobMetadata> cache;
 
   public GitFilterLink(@NotNull LocalContext context) {
-    this.cacheMd5 = GitFilterHelper.getCacheMd5(this, context.getShared().getCacheDB());
+    this.cache = GitFilterHelper.getMetadataCache(this, context.getShared().getCacheDB());
   }
 
   @NotNull
@@ -46,7 +46,7 @@ public final class GitFilterLink implements GitFilter {
   @NotNull
   @Override
   public String getMd5(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    return GitFilterHelper.getMd5(this, cacheMd5, null, objectId);
+    return GitFilterHelper.getMd5(this, cache, objectId);
   }
 
   @Override
@@ -55,12 +55,29 @@ public final class GitFilterLink implements GitFilter {
     return reader.getObjectSize(objectId.getObject(), Constants.OBJ_BLOB) + LINK_PREFIX.length;
   }
 
+  @Override
+  public long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    // Size is known without content reading.
+    return getSize(objectId);
+  }
+
+  @Override
+  public boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.isBinary(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public InputStream inputStream(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
     return new InputWrapper(objectId.openObject().openStream());
   }
 
+  @NotNull
+  @Override
+  public InputStream inputStreamWithMetadata(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.inputStreamWithMetadata(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public OutputStream outputStream(@NotNull OutputStream stream, @NotNull User user) {
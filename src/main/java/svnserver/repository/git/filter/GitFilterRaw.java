@@ -28,10 +28,10 @@ import java.util.Map;
  */
 public final class GitFilterRaw implements GitFilter {
   @NotNull
-  private final Map<String, String> cacheMd5;
+  private final Map<ObjectId, GitBlobMetadata> cache;
 
   public GitFilterRaw(@NotNull LocalContext context) {
-    this.cacheMd5 = GitFilterHelper.getCacheMd5(this, context.getShared().getCacheDB());
+    this.cache = GitFilterHelper.getMetadataCache(this, context.getShared().getCacheDB());
   }
 
   @NotNull
@@ -43,7 +43,7 @@ public final class GitFilterRaw implements GitFilter {
   @NotNull
   @Override
   public String getMd5(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
-    return GitFilterHelper.getMd5(this, cacheMd5, null, objectId);
+    return GitFilterHelper.getMd5(this, cache, objectId);
   }
 
   @Override
@@ -52,6 +52,17 @@ public final class GitFilterRaw implements GitFilter {
     return reader.getObjectSize(objectId.getObject(), Constants.OBJ_BLOB);
   }
 
+  @Override
+  public long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    // Size is known without content reading.
+    return getSize(objectId);
+  }
+
+  @Override
+  public boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.isBinary(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public InputStream inputStream(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
@@ -59,6 +70,12 @@ public final class GitFilterRaw implements GitFilter {
     return loader.openStream();
   }
 
+  @NotNull
+  @Override
+  public InputStream inputStreamWithMetadata(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+    return GitFilterHelper.inputStreamWithMetadata(this, cache, objectId);
+  }
+
   @NotNull
   @Override
   public OutputStream outputStream(@NotNull OutputStream stream, @NotNull User user) {
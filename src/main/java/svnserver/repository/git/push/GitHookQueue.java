@@ -0,0 +1,258 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.push;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.Serializer;
+import org.slf4j.Logger;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.Loggers;
+import svnserver.context.Shared;
+import svnserver.context.SharedContext;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue for asynchronous execution of hooks that can't reject push (post-receive, post-update).
+ * <p>
+ * Hooks are run by shared bounded thread pool. Hooks of one repository run one by one in push order,
+ * so repository takes at most one worker thread. Idle worker threads are stopped.
+ * Queued hooks are stored in cache database until completion and are run again after server restart.
+ * <p>
+ * When queue is full, push waits for free space. Hook is queued by committing thread while it holds
+ * repository write lock, so commits to the repository wait too until some queued hook is completed.
+ */
+public final class GitHookQueue implements Shared {
+  @NotNull
+  private static final Logger log = Loggers.git;
+  @NotNull
+  private static final AtomicInteger threadNumber = new AtomicInteger(0);
+  public static final int DEFAULT_QUEUE_SIZE = 1024;
+  public static final int DEFAULT_RETRY_COUNT = 3;
+  public static final long DEFAULT_RETRY_DELAY = TimeUnit.SECONDS.toMillis(10);
+  public static final int DEFAULT_THREADS = 4;
+  private static final long KEEP_ALIVE_TIME = TimeUnit.SECONDS.toMillis(60);
+  private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+  @NotNull
+  private final DB db;
+  @NotNull
+  private final BTreeMap<Long, GitHookTask> tasks;
+  @NotNull
+  private final ThreadPoolExecutor executor;
+  /**
+   * Hooks waiting for running hook of the same repository. Repository is present only while its hook is running.
+   */
+  @NotNull
+  private final Map<String, Queue<Runnable>> workers = new HashMap<>();
+  @NotNull
+  private final Semaphore capacity;
+  private final int retryCount;
+  private final long retryDelay;
+  @NotNull
+  private final AtomicLong sequence;
+  /**
+   * Tasks with lower identifiers were queued before server start.
+   */
+  private final long firstSequence;
+  @NotNull
+  private final CountDownLatch closed = new CountDownLatch(1);
+  @NotNull
+  private final AtomicInteger pending = new AtomicInteger();
+  @NotNull
+  private final AtomicLong processed = new AtomicLong();
+  @NotNull
+  private final AtomicLong failed = new AtomicLong();
+
+  public GitHookQueue(@NotNull DB db) {
+    this(db, DEFAULT_QUEUE_SIZE, DEFAULT_RETRY_COUNT, DEFAULT_RETRY_DELAY);
+  }
+
+  public GitHookQueue(@NotNull DB db, int queueSize, int retryCount, long retryDelay) {
+    this(db, queueSize, retryCount, retryDelay, DEFAULT_THREADS);
+  }
+
+  /**
+   * @param db         Database for queued hooks.
+   * @param queueSize  Maximum count of queued hooks for all repositories.
+   * @param retryCount Count of hook retries after failure.
+   * @param retryDelay Delay before hook retry in milliseconds.
+   * @param threads    Maximum count of hooks running in parallel.
+   */
+  public GitHookQueue(@NotNull DB db, int queueSize, int retryCount, long retryDelay, int threads) {
+    this.db = db;
+    final int poolSize = Math.max(threads, 1);
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+      final Thread thread = new Thread(r, "SvnServer-hooks-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.allowCoreThreadTimeOut(true);
+    this.tasks = db.treeMap("hooks.queue", Serializer.LONG, GitHookTaskSerializer.instance).createOrOpen();
+    this.capacity = new Semaphore(Math.max(queueSize, 1));
+    this.retryCount = Math.max(retryCount, 0);
+    this.retryDelay = Math.max(retryDelay, 0);
+    this.firstSequence = tasks.isEmpty() ? 0 : tasks.lastKey() + 1;
+    this.sequence = new AtomicLong(firstSequence);
+  }
+
+  @Override
+  public void ready(@NotNull SharedContext context) {
+    final Map<Long, GitHookTask> stored = new TreeMap<>(tasks.headMap(firstSequence));
+    if (stored.isEmpty())
+      return;
+
+    log.info("Resuming {} queued hooks", stored.size());
+    for (Map.Entry<Long, GitHookTask> entry : stored.entrySet())
+      schedule(entry.getKey(), entry.getValue());
+  }
+
+  /**
+   * Queue hook for execution.
+   */
+  void submit(@NotNull GitHookTask task) {
+    final long id = sequence.getAndIncrement();
+    synchronized (db) {
+      tasks.put(id, task);
+      db.commit();
+    }
+    schedule(id, task);
+  }
+
+  private void schedule(long id, @NotNull GitHookTask task) {
+    if (!capacity.tryAcquire()) {
+      log.warn("Hook queue is full, waiting for free space to queue {} hook for repository {}", task.getHook(), task.getRepositoryDir());
+      capacity.acquireUninterruptibly();
+    }
+    pending.incrementAndGet();
+    final String repositoryDir = task.getRepositoryDir();
+    final Runnable runnable = () -> process(id, task);
+    synchronized (workers) {
+      final Queue<Runnable> waiting = workers.get(repositoryDir);
+      if (waiting != null) {
+        waiting.add(runnable);
+        return;
+      }
+      workers.put(repositoryDir, new ArrayDeque<>());
+    }
+    try {
+      executor.execute(() -> runSerial(repositoryDir, runnable));
+    } catch (RejectedExecutionException e) {
+      // Queue is closed, hooks are not run and stay in database until restart. Only their queue slots are released.
+      runSerial(repositoryDir, runnable);
+    }
+  }
+
+  /**
+   * Run hook and then waiting hooks of the same repository.
+   */
+  private void runSerial(@NotNull String repositoryDir, @NotNull Runnable first) {
+    Runnable runnable = first;
+    while (runnable != null) {
+      runnable.run();
+      synchronized (workers) {
+        runnable = workers.get(repositoryDir).poll();
+        if (runnable == null)
+          workers.remove(repositoryDir);
+      }
+    }
+  }
+
+  private void process(long id, @NotNull GitHookTask task) {
+    try {
+      for (int attempt = 0; ; ++attempt) {
+        if (closed.getCount() == 0)
+          // Queue is closed, hook stays in database and will be run after restart
+          return;
+
+        try {
+          task.run(SVNErrorCode.REPOS_POST_COMMIT_HOOK_FAILED);
+          processed.incrementAndGet();
+          break;
+        } catch (SVNException e) {
+          if (attempt >= retryCount) {
+            log.error("{} hook for repository {} failed after {} attempts: {}", task.getHook(), task.getRepositoryDir(), attempt + 1, e.getMessage());
+            failed.incrementAndGet();
+            break;
+          }
+          log.warn("{} hook for repository {} failed, retry in {}ms: {}", task.getHook(), task.getRepositoryDir(), retryDelay, e.getMessage());
+          if (closed.await(retryDelay, TimeUnit.MILLISECONDS))
+            return;
+        }
+      }
+      synchronized (db) {
+        tasks.remove(id);
+        db.commit();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      pending.decrementAndGet();
+      capacity.release();
+    }
+  }
+
+  /**
+   * @return Count of queued and running hooks.
+   */
+  public int getQueueDepth() {
+    return pending.get();
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Wait for queued hooks completion.
+   *
+   * @return True if all hooks completed.
+   */
+  public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (pending.get() > 0) {
+      if (System.currentTimeMillis() >= deadline)
+        return false;
+
+      Thread.sleep(10);
+    }
+    return true;
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    // Running hooks are completed, queued hooks are kept in database
+    closed.countDown();
+    executor.shutdown();
+
+    // Workers use cache database, that is closed right after shared objects.
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+      log.warn("Hook workers are not stopped in {} ms", SHUTDOWN_TIMEOUT);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return Count of repositories with running hook.
+   */
+  int getActiveRepositories() {
+    synchronized (workers) {
+      return workers.size();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.push;
+
+import com.google.common.io.CharStreams;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.Loggers;
+import svnserver.config.ConfigHelper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Single git hook invocation.
+ * <p>
+ * Contains everything needed to run hook without repository and user objects, so it can be persisted and run later.
+ */
+final class GitHookTask {
+  @NotNull
+  private static final Logger log = Loggers.git;
+
+  @NotNull
+  private final String repositoryDir;
+  @NotNull
+  private final String hooksDir;
+  private final boolean useHooksDir;
+  @NotNull
+  private final String hook;
+  @NotNull
+  private final List<String> args;
+  @NotNull
+  private final String stdin;
+  @NotNull
+  private final Map<String, String> environment;
+
+  /**
+   * @param repositoryDir Repository directory, hooks are run inside it.
+   * @param hooksDir      Hooks directory.
+   * @param useHooksDir   Also run executable files from {@code <hook>.d} directory.
+   * @param hook          Hook name.
+   * @param args          Hook arguments.
+   * @param stdin         Hook input.
+   * @param environment   Additional environment variables.
+   */
+  GitHookTask(@NotNull String repositoryDir, @NotNull String hooksDir, boolean useHooksDir, @NotNull String hook, @NotNull List<String> args, @NotNull String stdin, @NotNull Map<String, String> environment) {
+    this.repositoryDir = repositoryDir;
+    this.hooksDir = hooksDir;
+    this.useHooksDir = useHooksDir;
+    this.hook = hook;
+    this.args = args;
+    this.stdin = stdin;
+    this.environment = environment;
+  }
+
+  @NotNull
+  String getRepositoryDir() {
+    return repositoryDir;
+  }
+
+  @NotNull
+  String getHooksDir() {
+    return hooksDir;
+  }
+
+  boolean isUseHooksDir() {
+    return useHooksDir;
+  }
+
+  @NotNull
+  String getHook() {
+    return hook;
+  }
+
+  @NotNull
+  List<String> getArgs() {
+    return args;
+  }
+
+  @NotNull
+  String getStdin() {
+    return stdin;
+  }
+
+  @NotNull
+  Map<String, String> getEnvironment() {
+    return environment;
+  }
+
+  /**
+   * @return True if there is no hook script to run.
+   */
+  boolean isEmpty() throws SVNException {
+    return getScripts().isEmpty();
+  }
+
+  /**
+   * Run hook script and all chained scripts.
+   *
+   * @param hookErrorCode Error code for failed hook.
+   */
+  void run(@NotNull SVNErrorCode hookErrorCode) throws SVNException {
+    final long startTime = System.currentTimeMillis();
+    try {
+      for (Path script : getScripts())
+        runScript(hookErrorCode, script);
+    } finally {
+      final long endTime = System.currentTimeMillis();
+      log.info("{} hook for repository {} took {}ms", hook, repositoryDir, (endTime - startTime));
+    }
+  }
+
+  @NotNull
+  private List<Path> getScripts() throws SVNException {
+    final List<Path> result = new ArrayList<>();
+    final Path hooksPath = Paths.get(hooksDir);
+
+    final Path mainHook = ConfigHelper.joinPath(hooksPath, hook);
+    if (Files.exists(mainHook))
+      result.add(mainHook);
+
+    if (useHooksDir) {
+      final Path scriptDir = ConfigHelper.joinPath(hooksPath, hook + ".d");
+      if (Files.exists(scriptDir)) {
+        // See https://docs.gitlab.com/ee/administration/server_hooks.html#chained-hooks-support
+        try (Stream<Path> scriptStream = Files.list(scriptDir).filter(Files::isExecutable).filter(path -> !path.getFileName().endsWith("~"))) {
+          result.addAll(scriptStream.collect(Collectors.toCollection(TreeSet::new)));
+        } catch (IOException e) {
+          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
+        }
+      }
+    }
+    return result;
+  }
+
+  private void runScript(@NotNull SVNErrorCode hookErrorCode, @NotNull Path script) throws SVNException {
+    final List<String> command = new ArrayList<>();
+    command.add(script.toString());
+    command.addAll(args);
+
+    final ProcessBuilder processBuilder = new ProcessBuilder(command)
+        .directory(new File(repositoryDir))
+        .redirectErrorStream(true);
+
+    processBuilder.environment().put("LANG", "en_US.utf8");
+    // Git commands in hook must work with pushed repository
+    processBuilder.environment().put("GIT_DIR", repositoryDir);
+    processBuilder.environment().putAll(environment);
+
+    Process process = null;
+    try {
+      process = processBuilder.start();
+
+      // Prevent hanging if hook tries to read from stdin
+      try (Writer writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+        writer.write(stdin);
+      } catch (IOException e) {
+        // Hook has already exited without reading input, its exit code is checked below
+        log.debug("Can't write hook input: " + script, e);
+      }
+
+      final String hookMessage;
+      try (Reader stdout = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+        hookMessage = CharStreams.toString(stdout);
+      }
+
+      final int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        throw new SVNException(SVNErrorMessage.create(hookErrorCode, String.format("Hook %s failed with output:\n%s", script, hookMessage)));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.error("Hook interrupted: " + script, e);
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
+    } catch (IOException e) {
+      log.error("Hook failed: " + script, e);
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
+    } finally {
+      if (process != null)
+        process.destroyForcibly();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.push;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class GitHookTaskSerializer extends GroupSerializerObjectArray<GitHookTask> {
+
+  @NotNull
+  static final GitHookTaskSerializer instance = new GitHookTaskSerializer();
+
+  @Override
+  public void serialize(@NotNull DataOutput2 out, @NotNull GitHookTask value) throws IOException {
+    Serializer.STRING.serialize(out, value.getRepositoryDir());
+    Serializer.STRING.serialize(out, value.getHooksDir());
+    out.writeBoolean(value.isUseHooksDir());
+    Serializer.STRING.serialize(out, value.getHook());
+
+    out.writeInt(value.getArgs().size());
+    for (String arg : value.getArgs())
+      Serializer.STRING.serialize(out, arg);
+
+    Serializer.STRING.serialize(out, value.getStdin());
+
+    out.writeInt(value.getEnvironment().size());
+    for (Map.Entry<String, String> en : value.getEnvironment().entrySet()) {
+      Serializer.STRING.serialize(out, en.getKey());
+      Serializer.STRING.serialize(out, en.getValue());
+    }
+  }
+
+  @Override
+  public GitHookTask deserialize(@NotNull DataInput2 input, int available) throws IOException {
+    final String repositoryDir = Serializer.STRING.deserialize(input, available);
+    final String hooksDir = Serializer.STRING.deserialize(input, available);
+    final boolean useHooksDir = input.readBoolean();
+    final String hook = Serializer.STRING.deserialize(input, available);
+
+    final int argsCount = input.readInt();
+    final List<String> args = new ArrayList<>(argsCount);
+    for (int i = 0; i < argsCount; ++i)
+      args.add(Serializer.STRING.deserialize(input, available));
+
+    final String stdin = Serializer.STRING.deserialize(input, available);
+
+    final Map<String, String> environment = new TreeMap<>();
+    final int environmentCount = input.readInt();
+    for (int i = 0; i < environmentCount; ++i)
+      environment.put(Serializer.STRING.deserialize(input, available), Serializer.STRING.deserialize(input, available));
+
+    return new GitHookTask(repositoryDir, hooksDir, useHooksDir, hook, args, stdin, environment);
+  }
+}
@@ -8,7 +8,6 @@
 package svnserver.repository.git.push;
 
 import com.google.common.base.Strings;
-import com.google.common.io.CharStreams;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
@@ -25,14 +24,9 @@ import svnserver.config.ConfigHelper;
 import svnserver.context.LocalContext;
 import svnserver.repository.VcsAccess;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.*;
 
 import static org.eclipse.jgit.lib.ConfigConstants.CONFIG_CORE_SECTION;
 
@@ -50,11 +44,23 @@ public final class GitPushEmbedded implements GitPusher {
   @Nullable
   private final String hooksPathOverride;
   private final boolean useHooksDir;
+  private final boolean postUpdateHook;
+  private final boolean asyncPostReceive;
 
   public GitPushEmbedded(@NotNull LocalContext context, @Nullable String hooksPathOverride, boolean useHooksDir) {
+    this(context, hooksPathOverride, useHooksDir, false, false);
+  }
+
+  /**
+   * @param postUpdateHook   Run post-update hook after post-receive like git receive-pack does.
+   * @param asyncPostReceive Run post-receive and post-update hooks in background by {@link GitHookQueue}.
+   */
+  GitPushEmbedded(@NotNull LocalContext context, @Nullable String hooksPathOverride, boolean useHooksDir, boolean postUpdateHook, boolean asyncPostReceive) {
     this.context = context;
     this.hooksPathOverride = hooksPathOverride;
     this.useHooksDir = useHooksDir;
+    this.postUpdateHook = postUpdateHook;
+    this.asyncPostReceive = asyncPostReceive;
   }
 
   @NotNull
@@ -77,6 +83,8 @@ public final class GitPushEmbedded implements GitPusher {
       case NEW:
       case FAST_FORWARD:
         runReceiveHook(repository, refUpdate, SVNErrorCode.REPOS_POST_COMMIT_HOOK_FAILED, "post-receive", userInfo);
+        if (postUpdateHook)
+          runPostUpdateHook(repository, refUpdate, userInfo);
         return true;
       default:
         log.error("Unexpected push error: {}", result);
@@ -85,101 +93,45 @@ public final class GitPushEmbedded implements GitPusher {
   }
 
   private void runReceiveHook(@NotNull Repository repository, @NotNull RefUpdate refUpdate, @NotNull SVNErrorCode svnErrorCode, @NotNull String hook, @NotNull User userInfo) throws SVNException {
-    runHook(repository, svnErrorCode, hook, userInfo, processBuilder -> {
-      final Process process = processBuilder.start();
-      try (Writer stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
-        stdin.write(getObjectId(refUpdate.getOldObjectId()));
-        stdin.write(' ');
-        stdin.write(getObjectId(refUpdate.getNewObjectId()));
-        stdin.write(' ');
-        stdin.write(refUpdate.getName());
-        stdin.write('\n');
-      }
-      return process;
-    });
+    final String stdin = getObjectId(refUpdate.getOldObjectId()) + ' ' + getObjectId(refUpdate.getNewObjectId()) + ' ' + refUpdate.getName() + '\n';
+    runHook(repository, svnErrorCode, hook, Collections.emptyList(), stdin, userInfo);
   }
 
   private void runUpdateHook(@NotNull Repository repository, @NotNull RefUpdate refUpdate, @NotNull String hook, @NotNull User userInfo) throws SVNException {
-    runHook(repository, SVNErrorCode.REPOS_HOOK_FAILURE, hook, userInfo, processBuilder -> {
-      processBuilder.command().addAll(Arrays.asList(
-          refUpdate.getName(),
-          getObjectId(refUpdate.getOldObjectId()),
-          getObjectId(refUpdate.getNewObjectId())
-      ));
-      return processBuilder.start();
-    });
+    runHook(repository, SVNErrorCode.REPOS_HOOK_FAILURE, hook, Arrays.asList(
+        refUpdate.getName(),
+        getObjectId(refUpdate.getOldObjectId()),
+        getObjectId(refUpdate.getNewObjectId())
+    ), "", userInfo);
+  }
+
+  private void runPostUpdateHook(@NotNull Repository repository, @NotNull RefUpdate refUpdate, @NotNull User userInfo) throws SVNException {
+    runHook(repository, SVNErrorCode.REPOS_POST_COMMIT_HOOK_FAILED, "post-update", Collections.singletonList(refUpdate.getName()), "", userInfo);
   }
 
-  private void runHook(@NotNull Repository repository, @NotNull SVNErrorCode hookErrorCode, @NotNull String hook, @NotNull User userInfo, @NotNull HookRunner runner) throws SVNException {
+  private void runHook(@NotNull Repository repository, @NotNull SVNErrorCode hookErrorCode, @NotNull String hook, @NotNull List<String> args, @NotNull String stdin, @NotNull User userInfo) throws SVNException {
     final Path repositoryDir = repository.getDirectory() == null ? null : repository.getDirectory().toPath();
     if (repositoryDir == null)
       // We don't have a dir where to run hooks :(
       return;
 
-    final String hooksPath = getHooksPath(repository);
-    final Path hooksDir = ConfigHelper.joinPath(repositoryDir, hooksPath);
-
-    final long startTime = System.currentTimeMillis();
-    try {
-      final Path mainHook = ConfigHelper.joinPath(hooksDir, hook);
-      if (Files.exists(mainHook))
-        runHook(hookErrorCode, userInfo, runner, repositoryDir, mainHook);
-
-      if (useHooksDir) {
-        final Path scriptDir = ConfigHelper.joinPath(hooksDir, hook + ".d");
-        if (Files.exists(scriptDir)) {
-          final TreeSet<Path> scripts;
-
-          // See https://docs.gitlab.com/ee/administration/server_hooks.html#chained-hooks-support
-          try (Stream<Path> scriptStream = Files.list(scriptDir).filter(Files::isExecutable).filter(path -> !path.getFileName().endsWith("~"))) {
-            scripts = scriptStream.collect(Collectors.toCollection(TreeSet::new));
-          } catch (IOException e) {
-            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
-          }
-
-          for (Path script : scripts)
-            runHook(hookErrorCode, userInfo, runner, repositoryDir, script);
-        }
-      }
-    } finally {
-      final long endTime = System.currentTimeMillis();
-      log.info("{} hook for repository {} took {}ms", hook, repository.toString(), (endTime - startTime));
-    }
-  }
+    final Path hooksDir = ConfigHelper.joinPath(repositoryDir, getHooksPath(repository));
 
-  private void runHook(@NotNull SVNErrorCode hookErrorCode, @NotNull User userInfo, @NotNull HookRunner runner, @NotNull Path repositoryDir, @NotNull Path script) throws SVNException {
-    final ProcessBuilder processBuilder = new ProcessBuilder(script.toString())
-        .directory(repositoryDir.toFile())
-        .redirectErrorStream(true);
-
-    processBuilder.environment().put("LANG", "en_US.utf8");
-    userInfo.updateEnvironment(processBuilder.environment());
-    context.getShared().sure(UserDB.class).updateEnvironment(processBuilder.environment(), userInfo);
-    context.sure(VcsAccess.class).updateEnvironment(processBuilder.environment());
-
-    Process process = null;
-    try {
-      process = runner.exec(processBuilder);
-
-      // Prevent hanging if hook tries to read from stdin
-      process.getOutputStream().close();
-
-      final String hookMessage;
-      try (Reader stdout = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
-        hookMessage = CharStreams.toString(stdout);
-      }
-
-      final int exitCode = process.waitFor();
-      if (exitCode != 0) {
-        throw new SVNException(SVNErrorMessage.create(hookErrorCode, String.format("Hook %s failed with output:\n%s", script, hookMessage)));
-      }
-    } catch (InterruptedException | IOException e) {
-      log.error("Hook failed: " + script, e);
-      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
-    } finally {
-      if (process != null)
-        process.destroyForcibly();
+    final Map<String, String> environment = new TreeMap<>();
+    final GitHookTask task = new GitHookTask(repositoryDir.toString(), hooksDir.toString(), useHooksDir, hook, args, stdin, environment);
+    if (task.isEmpty())
+      return;
+
+    userInfo.updateEnvironment(environment);
+    context.getShared().sure(UserDB.class).updateEnvironment(environment, userInfo);
+    context.sure(VcsAccess.class).updateEnvironment(environment);
+
+    if (hookErrorCode == SVNErrorCode.REPOS_POST_COMMIT_HOOK_FAILED && asyncPostReceive) {
+      // Hook can't reject push, so client doesn't need to wait for it
+      context.getShared().getOrCreate(GitHookQueue.class, () -> new GitHookQueue(context.getShared().getCacheDB())).submit(task);
+      return;
     }
+    task.run(hookErrorCode);
   }
 
   @NotNull
@@ -193,10 +145,4 @@ public final class GitPushEmbedded implements GitPusher {
 
     return "hooks";
   }
-
-  @FunctionalInterface
-  public interface HookRunner {
-    @NotNull
-    Process exec(@NotNull ProcessBuilder processBuilder) throws IOException;
-  }
 }
@@ -27,10 +27,12 @@ public final class GitPushEmbeddedConfig implements GitPusherConfig {
   private String hooksPath = null;
   @SuppressWarnings("FieldCanBeLocal")
   private boolean useHooksDir = false;
+  @SuppressWarnings("FieldCanBeLocal")
+  private boolean asyncPostReceive = false;
 
   @NotNull
   @Override
   public GitPusher create(@NotNull LocalContext context) {
-    return new GitPushEmbedded(context, hooksPath, useHooksDir);
+    return new GitPushEmbedded(context, hooksPath, useHooksDir, false, asyncPostReceive);
   }
 }
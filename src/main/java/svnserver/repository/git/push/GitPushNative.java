@@ -10,6 +10,7 @@ package svnserver.repository.git.push;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
@@ -41,12 +42,22 @@ final class GitPushNative implements GitPusher {
   @NotNull
   private final LocalContext context;
 
-  GitPushNative(@NotNull LocalContext context) {
+  @Nullable
+  private final GitPushEmbedded inProcess;
+
+  /**
+   * @param inProcess Update branch without git process, running hooks like git receive-pack does.
+   */
+  GitPushNative(@NotNull LocalContext context, boolean inProcess) {
     this.context = context;
+    this.inProcess = inProcess ? new GitPushEmbedded(context, null, false, true, false) : null;
   }
 
   @Override
   public boolean push(@NotNull Repository repository, @NotNull ObjectId commitId, @NotNull String branch, @NotNull User userInfo) throws SVNException, IOException {
+    if (inProcess != null)
+      return inProcess.push(repository, commitId, branch, userInfo);
+
     try {
       repository.getDirectory();
       final ProcessBuilder processBuilder = new ProcessBuilder("git", "push", "--porcelain", "--quiet", ".", commitId.name() + ":" + branch)
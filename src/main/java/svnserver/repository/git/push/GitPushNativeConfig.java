@@ -22,9 +22,12 @@ public final class GitPushNativeConfig implements GitPusherConfig {
   @NotNull
   public static final GitPushNativeConfig instance = new GitPushNativeConfig();
 
+  @SuppressWarnings("FieldCanBeLocal")
+  private boolean inProcess = false;
+
   @NotNull
   @Override
   public GitPusher create(@NotNull LocalContext context) {
-    return new GitPushNative(context);
+    return new GitPushNative(context, inProcess);
   }
 }
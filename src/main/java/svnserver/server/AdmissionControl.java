@@ -0,0 +1,228 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits concurrent sessions globally, per user and per repository.
+ * <p>
+ * Session that exceeds any limit is put into bounded queue without blocking caller thread:
+ * listener is notified when some other session is closed and the queued session fits into limits.
+ * Free slots are given to queued sessions in arrival order. New session bypasses queue only if
+ * no queued session fits into limits, for example when queued sessions wait for other user or repository.
+ * If queue is full or wait timeout is expired, session is rejected.
+ */
+public final class AdmissionControl implements AutoCloseable {
+  private final int maxSessions;
+  private final int maxSessionsPerUser;
+  private final int maxSessionsPerRepository;
+  private final int queueSize;
+  private final long queueTimeout;
+  @NotNull
+  private final Map<String, Integer> userSessions = new HashMap<>();
+  @NotNull
+  private final Map<String, Integer> repositorySessions = new HashMap<>();
+  @NotNull
+  private final Deque<Request> queue = new ArrayDeque<>();
+  @Nullable
+  private ScheduledThreadPoolExecutor timer;
+  private int sessions;
+  private boolean closed;
+
+  public AdmissionControl(int maxSessions, int maxSessionsPerUser, int maxSessionsPerRepository, int queueSize, long queueTimeout) {
+    this.maxSessions = maxSessions;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+    this.maxSessionsPerRepository = maxSessionsPerRepository;
+    this.queueSize = queueSize;
+    this.queueTimeout = queueTimeout;
+  }
+
+  /**
+   * Admit new session or put it into queue.
+   *
+   * @param user       User name.
+   * @param repository Repository name.
+   * @param listener   Listener for queued session. It is called once by thread, that frees slot or expires wait timeout.
+   * @return Ticket, that must be closed on session end, or null if session is queued.
+   * @throws SVNException Session was rejected.
+   */
+  @Nullable
+  public Ticket acquire(@NotNull String user, @NotNull String repository, @NotNull Listener listener) throws SVNException {
+    synchronized (this) {
+      final String reason = overLimit(user, repository);
+      if (reason == null)
+        return admit(user, repository);
+
+      if (closed || queue.size() >= queueSize || queueTimeout <= 0)
+        throw busy(reason);
+
+      final Request request = new Request(user, repository, listener);
+      queue.add(request);
+      request.timeout = getTimer().schedule(() -> expire(request), queueTimeout, TimeUnit.MILLISECONDS);
+      return null;
+    }
+  }
+
+  public synchronized int getSessions() {
+    return sessions;
+  }
+
+  public synchronized int getWaiting() {
+    return queue.size();
+  }
+
+  /**
+   * Reject all queued sessions.
+   */
+  @Override
+  public void close() {
+    final List<Request> rejected;
+    synchronized (this) {
+      closed = true;
+      rejected = new ArrayList<>(queue);
+      queue.clear();
+      if (timer != null)
+        timer.shutdownNow();
+    }
+    for (Request request : rejected)
+      request.listener.rejected(new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Server is shutting down")));
+  }
+
+  @NotNull
+  private ScheduledThreadPoolExecutor getTimer() {
+    if (timer == null) {
+      timer = new ScheduledThreadPoolExecutor(1, r -> {
+        final Thread thread = new Thread(r, "SvnServer-admission");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+
+  private void expire(@NotNull Request request) {
+    final String reason;
+    synchronized (this) {
+      if (!queue.remove(request))
+        return;
+
+      reason = overLimit(request.user, request.repository);
+    }
+    request.listener.rejected(busy(reason != null ? reason : "queue timeout"));
+  }
+
+  private void release(@NotNull String user, @NotNull String repository) {
+    final List<Map.Entry<Request, Ticket>> admitted = new ArrayList<>();
+    synchronized (this) {
+      sessions--;
+      userSessions.computeIfPresent(user, (key, count) -> count > 1 ? count - 1 : null);
+      repositorySessions.computeIfPresent(repository, (key, count) -> count > 1 ? count - 1 : null);
+
+      final Iterator<Request> iter = queue.iterator();
+      while (iter.hasNext()) {
+        final Request request = iter.next();
+        if (overLimit(request.user, request.repository) != null)
+          continue;
+
+        iter.remove();
+        //noinspection ConstantConditions
+        request.timeout.cancel(false);
+        admitted.add(new AbstractMap.SimpleImmutableEntry<>(request, admit(request.user, request.repository)));
+      }
+    }
+    // Listeners resume sessions, so they are called without lock.
+    for (Map.Entry<Request, Ticket> entry : admitted)
+      entry.getKey().listener.admitted(entry.getValue());
+  }
+
+  @NotNull
+  private Ticket admit(@NotNull String user, @NotNull String repository) {
+    sessions++;
+    userSessions.merge(user, 1, Integer::sum);
+    repositorySessions.merge(repository, 1, Integer::sum);
+    return new Ticket(user, repository);
+  }
+
+  @Nullable
+  private String overLimit(@NotNull String user, @NotNull String repository) {
+    if (maxSessions > 0 && sessions >= maxSessions)
+      return "too many sessions";
+
+    if (maxSessionsPerUser > 0 && userSessions.getOrDefault(user, 0) >= maxSessionsPerUser)
+      return "too many sessions for user " + user;
+
+    if (maxSessionsPerRepository > 0 && repositorySessions.getOrDefault(repository, 0) >= maxSessionsPerRepository)
+      return "too many sessions for repository " + repository;
+
+    return null;
+  }
+
+  @NotNull
+  private static SVNException busy(@NotNull String reason) {
+    return new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Server is busy (" + reason + "), try again later"));
+  }
+
+  /**
+   * Listener of queued session.
+   */
+  public interface Listener {
+    void admitted(@NotNull Ticket ticket);
+
+    void rejected(@NotNull SVNException e);
+  }
+
+  private static final class Request {
+    @NotNull
+    private final String user;
+    @NotNull
+    private final String repository;
+    @NotNull
+    private final Listener listener;
+    @Nullable
+    private ScheduledFuture<?> timeout;
+
+    private Request(@NotNull String user, @NotNull String repository, @NotNull Listener listener) {
+      this.user = user;
+      this.repository = repository;
+      this.listener = listener;
+    }
+  }
+
+  public final class Ticket implements AutoCloseable {
+    @NotNull
+    private final String user;
+    @NotNull
+    private final String repository;
+    @NotNull
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private Ticket(@NotNull String user, @NotNull String repository) {
+      this.user = user;
+      this.repository = repository;
+    }
+
+    @Override
+    public void close() {
+      // Ticket may be closed by worker thread and by failed resume concurrently.
+      if (closed.compareAndSet(false, true))
+        release(user, repository);
+    }
+  }
+}
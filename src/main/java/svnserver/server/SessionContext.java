@@ -25,6 +25,7 @@ import svnserver.repository.VcsAccess;
 import svnserver.repository.git.GitBranch;
 import svnserver.repository.git.GitFile;
 import svnserver.server.command.BaseCmd;
+import svnserver.server.command.DeltaProducer;
 import svnserver.server.msg.ClientInfo;
 import svnserver.server.step.Step;
 
@@ -76,6 +77,11 @@ public final class SessionContext {
     this.capabilities = new HashSet<>(Arrays.asList(clientInfo.getCapabilities()));
   }
 
+  @NotNull
+  RepositoryInfo getRepositoryInfo() {
+    return repositoryInfo;
+  }
+
   @NotNull
   public GitBranch getBranch() {
     return repositoryInfo.getBranch();
@@ -120,6 +126,11 @@ public final class SessionContext {
     return SVNDeltaCompression.None;
   }
 
+  @NotNull
+  public DeltaProducer getDeltaProducer() {
+    return server.getDeltaProducer();
+  }
+
   public void authenticate(boolean allowAnonymous) throws IOException, SVNException {
     if (!user.isAnonymous())
       throw new IllegalStateException();
@@ -160,6 +171,13 @@ public final class SessionContext {
     return stepStack.poll();
   }
 
+  /**
+   * Session is waiting for next client command and has no buffered client data.
+   */
+  boolean isIdle() {
+    return stepStack.isEmpty() && !parser.hasBufferedData();
+  }
+
   /**
    * Get repository file.
    *
@@ -8,6 +8,7 @@
 package svnserver.server;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
@@ -15,6 +16,7 @@ import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
 import org.tmatesoft.svn.core.io.SVNCapability;
 import svnserver.Loggers;
+import svnserver.TemporaryBufferPool;
 import svnserver.auth.AnonymousAuthenticator;
 import svnserver.auth.Authenticator;
 import svnserver.auth.User;
@@ -29,7 +31,16 @@ import svnserver.parser.token.ListEndToken;
 import svnserver.repository.RepositoryInfo;
 import svnserver.repository.RepositoryMapping;
 import svnserver.repository.git.GitBranch;
+import svnserver.repository.git.GitCommitCache;
+import svnserver.repository.git.GitIndexingPool;
+import svnserver.repository.git.GitMetadataProducer;
+import svnserver.repository.git.GitPathCache;
+import svnserver.repository.git.GitRefWatcher;
+import svnserver.repository.git.GitTreeCache;
+import svnserver.repository.git.push.GitHookQueue;
 import svnserver.server.command.*;
+import svnserver.server.engine.ClientConnection;
+import svnserver.server.engine.ConnectionEngine;
 import svnserver.server.msg.AuthReq;
 import svnserver.server.msg.ClientInfo;
 import svnserver.server.step.Step;
@@ -39,7 +50,9 @@ import java.io.IOException;
 import java.net.*;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -77,8 +90,6 @@ public final class SvnServer extends Thread {
       SVNErrorCode.AUTHZ_UNWRITABLE
   )));
   @NotNull
-  private static AtomicInteger threadNumber = new AtomicInteger(1);
-  @NotNull
   private final Map<String, BaseCmd<?>> commands = new HashMap<>();
   @NotNull
   private final Map<Long, Socket> connections = new ConcurrentHashMap<>();
@@ -95,30 +106,31 @@ public final class SvnServer extends Thread {
   @NotNull
   private final SharedContext sharedContext;
   @NotNull
-  private final ThreadPoolExecutor threadPoolExecutor;
+  private final ConnectionEngine connectionEngine;
+  @NotNull
+  private final AdmissionControl admissionControl;
+  @NotNull
+  private final DeltaProducer deltaProducer;
 
   public SvnServer(@NotNull Path basePath, @NotNull Config config) throws Exception {
     super("SvnServer");
     setDaemon(true);
     this.config = config;
 
-    final ThreadFactory threadFactory = r -> {
-      final Thread thread = new Thread(r, String.format("SvnServer-thread-%s", threadNumber.incrementAndGet()));
-      thread.setDaemon(true);
-      return thread;
-    };
-    threadPoolExecutor = new ThreadPoolExecutor(
-        0,
-        Integer.MAX_VALUE,
-        60,
-        TimeUnit.SECONDS,
-        new SynchronousQueue<>(),
-        threadFactory,
-        new ThreadPoolExecutor.AbortPolicy()
-    );
-
-    sharedContext = SharedContext.create(basePath, config.getRealm(), config.getCacheConfig().createCache(basePath), config.getShared());
+    connectionEngine = config.getConnectionEngine().create();
+    admissionControl = config.getAdmission().create();
+    deltaProducer = config.getDeltaProducer().create(config.getDeltaCache().create(basePath));
+
+    sharedContext = SharedContext.create(basePath, config.getRealm(), config.getCacheConfig().createCache(basePath), config.getCacheConfig().getIndexPath(basePath), config.getShared());
     sharedContext.add(UserDB.class, config.getUserDB().create(sharedContext));
+    sharedContext.add(GitCommitCache.class, new GitCommitCache(config.getCommitCacheSize()));
+    sharedContext.add(GitTreeCache.class, new GitTreeCache(config.getTreeCacheSize()));
+    sharedContext.add(GitPathCache.class, new GitPathCache(config.getPathCacheSize()));
+    sharedContext.add(TemporaryBufferPool.class, config.getTemporaryBuffers().create());
+    sharedContext.add(GitIndexingPool.class, new GitIndexingPool(config.canUseParallelIndexing() ? Runtime.getRuntime().availableProcessors() : 0));
+    sharedContext.add(GitHookQueue.class, config.getHookQueue().create(sharedContext.getCacheDB()));
+    if (config.getWatchRefs())
+      sharedContext.add(GitRefWatcher.class, new GitRefWatcher());
 
     // Keep order as in https://svn.apache.org/repos/asf/subversion/trunk/subversion/libsvn_ra_svn/protocol
 
@@ -158,8 +170,11 @@ public final class SvnServer extends Thread {
     repositoryMapping = config.getRepositoryMapping().create(sharedContext, config.canUseParallelIndexing());
 
     sharedContext.add(RepositoryMapping.class, repositoryMapping);
+    // Shared objects are closed in reverse order of addition, so workers are stopped before repositories are closed.
+    // Also initial indexing is not precomputed, because repositories are loaded before producer is added.
+    sharedContext.add(GitMetadataProducer.class, config.getMetadataProducer().create());
 
-    serverSocket = new ServerSocket();
+    serverSocket = connectionEngine.createServerSocket();
     serverSocket.setReuseAddress(config.getReuseAddress());
     serverSocket.bind(new InetSocketAddress(InetAddress.getByName(config.getHost()), config.getPort()));
 
@@ -201,75 +216,73 @@ public final class SvnServer extends Thread {
       final long sessionId = lastSessionId.incrementAndGet();
       connections.put(sessionId, client);
 
-      final Runnable task = () -> {
-        try (Socket clientSocket = client;
-             SvnServerWriter writer = new SvnServerWriter(clientSocket.getOutputStream())) {
-          log.info("New connection from: {}", client.getRemoteSocketAddress());
-          serveClient(clientSocket, writer);
-        } catch (EOFException | SocketException ignore) {
-          // client disconnect is not a error
-        } catch (SVNException | IOException e) {
-          log.warn("Exception:", e);
-        } finally {
-          shutdownConnection(sessionId);
-        }
-      };
-
       try {
-        threadPoolExecutor.execute(task);
+        connectionEngine.execute(new Connection(sessionId, client));
       } catch (RejectedExecutionException e) {
         shutdownConnection(sessionId);
       }
     }
   }
 
-  private void serveClient(@NotNull Socket socket, @NotNull SvnServerWriter writer) throws IOException, SVNException {
+  @Nullable
+  private SessionContext openSession(@NotNull Socket socket, @NotNull SvnServerWriter writer) throws IOException, SVNException {
     socket.setTcpNoDelay(true);
-    final SvnServerParser parser = new SvnServerParser(socket.getInputStream());
+    final SvnServerParser parser = new SvnServerParser(socket.getInputStream(), writer);
 
     final ClientInfo clientInfo = exchangeCapabilities(parser, writer);
 
     final RepositoryInfo repositoryInfo = RepositoryMapping.findRepositoryInfo(repositoryMapping, clientInfo.getUrl(), writer);
     if (repositoryInfo == null)
-      return;
+      return null;
 
     final SessionContext context = new SessionContext(parser, writer, this, repositoryInfo, clientInfo);
     context.authenticate(true);
+    return context;
+  }
+
+  private void startSession(@NotNull SessionContext context) throws IOException, SVNException {
     final GitBranch branch = context.getBranch();
-    branch.updateRevisions();
-    sendAnnounce(writer, repositoryInfo);
+    // Watched repositories are updated in background on ref changes, connection doesn't read refs.
+    if (!branch.getRepository().isRefWatched() && !branch.isUpToDate())
+      branch.updateRevisions();
 
-    while (!isInterrupted()) {
-      try {
-        Step step = context.poll();
-        if (step != null) {
-          step.process(context);
-          continue;
-        }
+    sendAnnounce(context.getWriter(), context.getRepositoryInfo());
+  }
+
+  private void serveCommand(@NotNull SessionContext context) throws IOException {
+    try {
+      Step step = context.poll();
+      if (step != null) {
+        step.process(context);
+        return;
+      }
 
-        parser.readToken(ListBeginToken.class);
+      final SvnServerParser parser = context.getParser();
+      parser.readToken(ListBeginToken.class);
 
-        final String cmd = parser.readText();
-        final BaseCmd<?> command = commands.get(cmd);
-        if (command != null) {
-          log.debug("Receive command: {}", cmd);
-          processCommand(context, command, parser);
-        } else {
-          context.skipUnsupportedCommand(cmd);
-        }
-      } catch (SVNException e) {
-        if (WARNING_CODES.contains(e.getErrorMessage().getErrorCode())) {
-          log.warn("Command execution error: {}", e.getMessage());
-        } else {
-          log.error("Command execution error", e);
-        }
-        BaseCmd.sendError(writer, e.getErrorMessage());
+      final String cmd = parser.readText();
+      final BaseCmd<?> command = commands.get(cmd);
+      if (command != null) {
+        log.debug("Receive command: {}", cmd);
+        processCommand(context, command, parser);
+      } else {
+        context.skipUnsupportedCommand(cmd);
       }
+    } catch (SVNException e) {
+      if (WARNING_CODES.contains(e.getErrorMessage().getErrorCode())) {
+        log.warn("Command execution error: {}", e.getMessage());
+      } else {
+        log.error("Command execution error", e);
+      }
+      BaseCmd.sendError(context.getWriter(), e.getErrorMessage());
     }
   }
 
   private void shutdownConnection(long sessionId) {
     final Socket client = connections.remove(sessionId);
+    if (client == null)
+      return;
+
     log.info("Connection from {} closed", client.getRemoteSocketAddress());
     try {
       client.close();
@@ -407,10 +420,11 @@ public final class SvnServer extends Thread {
 
   public void shutdown(long millis) throws Exception {
     startShutdown();
-    if (!threadPoolExecutor.awaitTermination(millis, TimeUnit.MILLISECONDS)) {
+    if (!connectionEngine.awaitTermination(millis)) {
       forceShutdown();
     }
     join(millis);
+    deltaProducer.close();
     sharedContext.close();
     log.info("Server shutdown complete");
   }
@@ -419,7 +433,9 @@ public final class SvnServer extends Thread {
     if (stopped.compareAndSet(false, true)) {
       log.info("Shutdown server");
       serverSocket.close();
-      threadPoolExecutor.shutdown();
+      // Queued sessions are rejected while connection engine still accepts them
+      admissionControl.close();
+      connectionEngine.shutdown();
     }
   }
 
@@ -427,11 +443,169 @@ public final class SvnServer extends Thread {
     for (Socket socket : connections.values()) {
       socket.close();
     }
-    threadPoolExecutor.awaitTermination(FORCE_SHUTDOWN, TimeUnit.MILLISECONDS);
+    connectionEngine.awaitTermination(FORCE_SHUTDOWN);
   }
 
   @NotNull
   SVNDeltaCompression getCompressionLevel() {
     return config.getCompressionLevel();
   }
+
+  @NotNull
+  DeltaProducer getDeltaProducer() {
+    return deltaProducer;
+  }
+
+  private final class Connection implements ClientConnection, AdmissionControl.Listener {
+    /**
+     * Admission is in progress: worker thread still owns connection.
+     */
+    private static final int ADMISSION_PENDING = 0;
+    /**
+     * Session is queued and worker thread has released connection.
+     */
+    private static final int ADMISSION_QUEUED = 1;
+    /**
+     * Admission control has made decision.
+     */
+    private static final int ADMISSION_DONE = 2;
+
+    private final long sessionId;
+    @NotNull
+    private final Socket socket;
+    @Nullable
+    private SvnServerWriter writer;
+    /**
+     * Authenticated session, waiting for admission.
+     */
+    @Nullable
+    private SessionContext session;
+    /**
+     * Started session.
+     */
+    @Nullable
+    private SessionContext context;
+    @NotNull
+    private final AtomicInteger admission = new AtomicInteger(ADMISSION_PENDING);
+    // Written by admission control thread, read by worker thread.
+    @Nullable
+    private volatile AdmissionControl.Ticket ticket;
+    @Nullable
+    private volatile SVNException rejection;
+
+    private Connection(long sessionId, @NotNull Socket socket) {
+      this.sessionId = sessionId;
+      this.socket = socket;
+    }
+
+    @NotNull
+    @Override
+    public Socket getSocket() {
+      return socket;
+    }
+
+    @Override
+    public boolean serve(boolean untilIdle) {
+      // Resumed connection has incoming data, so at least one command must be served.
+      boolean resumed = context != null;
+      boolean idle = false;
+      boolean queued = false;
+      try {
+        if (session == null) {
+          log.info("New connection from: {}", socket.getRemoteSocketAddress());
+          writer = new SvnServerWriter(socket.getOutputStream(), config.getWriteBufferSize());
+          session = openSession(socket, writer);
+          if (session == null)
+            return false;
+
+          try {
+            final AdmissionControl.Ticket acquired = admissionControl.acquire(session.getUser().getUsername(), session.getBranch().getRepository().getContext().getName(), this);
+            if (acquired != null) {
+              ticket = acquired;
+              admission.set(ADMISSION_DONE);
+            }
+          } catch (SVNException e) {
+            rejection = e;
+            admission.set(ADMISSION_DONE);
+          }
+          // Listener may be already called by other thread: then session continues on this thread.
+          if (admission.compareAndSet(ADMISSION_PENDING, ADMISSION_QUEUED)) {
+            // Connection is resumed by admitted() or rejected() without holding worker thread.
+            log.info("Session from {} is queued", socket.getRemoteSocketAddress());
+            queued = true;
+            return false;
+          }
+        }
+        if (context == null) {
+          if (rejection != null) {
+            log.warn("Session from {} rejected: {}", socket.getRemoteSocketAddress(), rejection.getMessage());
+            BaseCmd.sendError(session.getWriter(), rejection.getErrorMessage());
+            return false;
+          }
+          startSession(session);
+          context = session;
+        }
+        while (!isInterrupted()) {
+          if (untilIdle && !resumed && context.isIdle()) {
+            // Client may wait for our response
+            context.getWriter().flush();
+            idle = true;
+            break;
+          }
+          resumed = false;
+          serveCommand(context);
+        }
+      } catch (EOFException | SocketException ignore) {
+        // client disconnect is not a error
+      } catch (SVNException | IOException e) {
+        log.warn("Exception:", e);
+      } finally {
+        if (!idle && !queued)
+          close();
+      }
+      return idle;
+    }
+
+    @Override
+    public void admitted(@NotNull AdmissionControl.Ticket ticket) {
+      this.ticket = ticket;
+      decided();
+    }
+
+    @Override
+    public void rejected(@NotNull SVNException e) {
+      this.rejection = e;
+      decided();
+    }
+
+    private void decided() {
+      // Resume only connection, that was released by worker thread.
+      if (admission.getAndSet(ADMISSION_DONE) == ADMISSION_QUEUED)
+        resume();
+    }
+
+    private void resume() {
+      try {
+        connectionEngine.execute(this);
+      } catch (RejectedExecutionException e) {
+        close();
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        if (writer != null)
+          writer.close();
+      } catch (IOException ignore) {
+        // client disconnect is not a error
+      } finally {
+        final AdmissionControl.Ticket ticket = this.ticket;
+        if (ticket != null)
+          ticket.close();
+
+        shutdownConnection(sessionId);
+      }
+    }
+  }
 }
@@ -228,18 +228,6 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
     }
   }
 
-  public static class DeltaChunkParams {
-    @NotNull
-    private final String token;
-    @NotNull
-    private final byte[] chunk;
-
-    public DeltaChunkParams(@NotNull String token, @NotNull byte[] chunk) {
-      this.token = token;
-      this.chunk = chunk;
-    }
-  }
-
   private static class FileUpdater implements Closeable {
     @NotNull
     private final GitDeltaConsumer deltaConsumer;
@@ -289,6 +277,8 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
   }
 
   private static final class EditorPipeline implements Closeable {
+    @NotNull
+    private static final String deltaChunkCmd = "textdelta-chunk";
     @NotNull
     private final EntryUpdater rootEntry;
     @NotNull
@@ -331,7 +321,6 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
       commands.put("open-file", new LambdaCmd<>(OpenParams.class, this::openFile));
       commands.put("close-dir", new LambdaCmd<>(TokenParams.class, this::closeDir));
       commands.put("close-file", new LambdaCmd<>(ChecksumParams.class, this::closeFile));
-      commands.put("textdelta-chunk", new LambdaCmd<>(DeltaChunkParams.class, this::deltaChunk));
       commands.put("textdelta-end", new LambdaCmd<>(TokenParams.class, this::deltaEnd));
       commands.put("apply-textdelta", new LambdaCmd<>(ChecksumParams.class, this::deltaApply));
 
@@ -496,8 +485,27 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
       }
     }
 
-    private void deltaChunk(@NotNull SessionContext context, @NotNull DeltaChunkParams args) throws SVNException {
-      getFile(args.token).reader.nextWindow(args.chunk, 0, args.chunk.length, "", getFile(args.token).deltaConsumer);
+    /**
+     * <pre>
+     * textdelta-chunk
+     *   params: ( file-token:string chunk:string )
+     * </pre>
+     * Chunk is passed to delta reader directly from parser buffer without intermediate copy.
+     */
+    private void deltaChunk(@NotNull SvnServerParser parser) throws IOException, SVNException {
+      parser.readToken(ListBeginToken.class);
+      final String token = parser.readText();
+      try {
+        final FileUpdater file = getFile(token);
+        if (!parser.readBinary((data, offset, length) -> file.reader.nextWindow(data, offset, length, "", file.deltaConsumer)))
+          throw new IOException("Unexpected end of list: textdelta-chunk data expected");
+      } catch (SVNException e) {
+        // Skip rest of command, so aborted editor continues from next command
+        parser.skipItems();
+        parser.readToken(ListEndToken.class);
+        throw e;
+      }
+      parser.readToken(ListEndToken.class);
     }
 
     private void deltaEnd(@NotNull SessionContext context, @NotNull TokenParams args) throws SVNException {
@@ -633,7 +641,8 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
         command = commands.get(cmd);
       }
 
-      if (command == null) {
+      final boolean deltaChunk = cmd.equals(deltaChunkCmd);
+      if (command == null && !deltaChunk) {
         context.skipUnsupportedCommand(cmd);
         return;
       }
@@ -644,9 +653,14 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
       }
 
       try {
-        Object param = MessageParser.parse(command.getArguments(), parser);
-        parser.readToken(ListEndToken.class);
-        command.process(context, param);
+        if (deltaChunk) {
+          deltaChunk(parser);
+          parser.readToken(ListEndToken.class);
+        } else {
+          Object param = MessageParser.parse(command.getArguments(), parser);
+          parser.readToken(ListEndToken.class);
+          command.process(context, param);
+        }
       } catch (SVNException e) {
         aborted = true;
         throw e;
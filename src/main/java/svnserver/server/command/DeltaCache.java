@@ -0,0 +1,189 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mapdb.DB;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Shared cache of encoded svndiff windows for full-text file sends.
+ * <p>
+ * Memory tier is LRU bounded by total windows size. Optional disk tier is written through,
+ * so entries survive memory eviction and server restart. Disk tier is bounded by store size.
+ */
+public final class DeltaCache implements AutoCloseable {
+  // Approximate memory overhead per cached window.
+  private static final int WINDOW_OVERHEAD = 16;
+
+  private final long memorySize;
+  private final long maxFileSize;
+  @NotNull
+  private final LinkedHashMap<String, List<byte[]>> memory = new LinkedHashMap<>(16, 0.75f, true);
+  @Nullable
+  private final DB diskDb;
+  @Nullable
+  private final HTreeMap<String, byte[]> disk;
+  private long usedSize;
+  private long hits;
+  private long misses;
+
+  /**
+   * @param memorySize  Memory tier size limit in bytes. Zero disables cache.
+   * @param maxFileSize Larger files are not cached.
+   * @param diskDb      Disk tier storage.
+   * @param diskSize    Disk tier size limit in bytes.
+   */
+  public DeltaCache(long memorySize, long maxFileSize, @Nullable DB diskDb, long diskSize) {
+    this.memorySize = memorySize;
+    this.maxFileSize = maxFileSize;
+    this.diskDb = diskDb;
+    this.disk = diskDb == null ? null : diskDb
+        .hashMap("deltas", Serializer.STRING, Serializer.BYTE_ARRAY)
+        .expireStoreSize(diskSize)
+        .expireAfterCreate()
+        .expireAfterGet()
+        .createOrOpen();
+  }
+
+  public boolean isEnabled() {
+    return memorySize > 0;
+  }
+
+  /**
+   * Checks if file with given size should be cached.
+   */
+  boolean isCacheable(long fileSize) {
+    return isEnabled() && fileSize <= maxFileSize;
+  }
+
+  @Nullable
+  List<byte[]> get(@NotNull String key) {
+    if (!isEnabled())
+      return null;
+
+    synchronized (memory) {
+      final List<byte[]> windows = memory.get(key);
+      if (windows != null) {
+        hits++;
+        return windows;
+      }
+    }
+
+    final byte[] packed = disk == null ? null : disk.get(key);
+    if (packed == null) {
+      synchronized (memory) {
+        misses++;
+      }
+      return null;
+    }
+
+    final List<byte[]> windows = unpack(packed);
+    synchronized (memory) {
+      hits++;
+      putMemory(key, windows);
+    }
+    return windows;
+  }
+
+  void put(@NotNull String key, @NotNull List<byte[]> windows) {
+    if (!isEnabled())
+      return;
+
+    synchronized (memory) {
+      putMemory(key, windows);
+    }
+    if (disk != null)
+      disk.put(key, pack(windows));
+  }
+
+  public long getHits() {
+    synchronized (memory) {
+      return hits;
+    }
+  }
+
+  public long getMisses() {
+    synchronized (memory) {
+      return misses;
+    }
+  }
+
+  public long getUsedSize() {
+    synchronized (memory) {
+      return usedSize;
+    }
+  }
+
+  private void putMemory(@NotNull String key, @NotNull List<byte[]> windows) {
+    final long size = weight(windows);
+    if (size > memorySize)
+      return;
+
+    final List<byte[]> old = memory.put(key, windows);
+    if (old != null)
+      usedSize -= weight(old);
+
+    usedSize += size;
+    final Iterator<List<byte[]>> iter = memory.values().iterator();
+    while (usedSize > memorySize && iter.hasNext()) {
+      usedSize -= weight(iter.next());
+      iter.remove();
+    }
+  }
+
+  private static long weight(@NotNull List<byte[]> windows) {
+    long result = 0;
+    for (byte[] window : windows)
+      result += window.length + WINDOW_OVERHEAD;
+
+    return result;
+  }
+
+  @NotNull
+  private static byte[] pack(@NotNull List<byte[]> windows) {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (DataOutputStream stream = new DataOutputStream(buffer)) {
+      stream.writeInt(windows.size());
+      for (byte[] window : windows) {
+        stream.writeInt(window.length);
+        stream.write(window);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  @NotNull
+  private static List<byte[]> unpack(@NotNull byte[] packed) {
+    try (DataInputStream stream = new DataInputStream(new ByteArrayInputStream(packed))) {
+      final int count = stream.readInt();
+      final List<byte[]> windows = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i) {
+        final byte[] window = new byte[stream.readInt()];
+        stream.readFully(window);
+        windows.add(window);
+      }
+      return windows;
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (diskDb != null)
+      diskDb.close();
+  }
+}
@@ -11,11 +11,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.tmatesoft.svn.core.*;
-import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
-import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
-import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
-import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
-import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
 import svnserver.Loggers;
 import svnserver.StringHelper;
 import svnserver.parser.MessageParser;
@@ -32,6 +27,9 @@ import svnserver.server.step.CheckPermissionStep;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Delta commands.
@@ -196,6 +194,8 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
     private final Map<String, SetPathParams> paths = new HashMap<>();
     @NotNull
     private final Deque<HeaderEntry> pathStack = new ArrayDeque<>();
+    @NotNull
+    private final Map<String, Future<DeltaProducer.FileDelta>> prefetched = new HashMap<>();
     private int lastTokenId;
 
     ReportPipeline(@NotNull DeltaParams params) {
@@ -392,7 +392,16 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
         newFile = context.getFile(targetRev, targetPath);
 
       final GitFile oldFile = getPrevFile(context, path, context.getFile(rootRev, fullPath));
-      updateEntry(context, path, oldFile, newFile, tokenId, path.isEmpty(), rootParams.depth, params.getDepth());
+      try {
+        updateEntry(context, path, oldFile, newFile, tokenId, path.isEmpty(), rootParams.depth, params.getDepth());
+      } finally {
+        // Queued tasks are skipped. Running task is not interrupted: interrupt during channel I/O closes
+        // pack file channel, that is shared with other readers.
+        for (Future<DeltaProducer.FileDelta> future : prefetched.values())
+          future.cancel(false);
+
+        prefetched.clear();
+      }
       writer
           .listBegin()
           .word("close-dir")
@@ -476,6 +485,7 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
         removeEntry(context, entryPath, newFile.getLastChange().getId(), tokenId);
       }
 
+      final List<EntryUpdate> updates = new ArrayList<>();
       for (GitFile newEntry : newFile.getEntries()) {
         final String entryPath = joinPath(wcPath, newEntry.getFileName());
         final GitFile oldEntry = getPrevFile(context, entryPath, oldEntries.get(newEntry.getFileName()));
@@ -490,12 +500,62 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
           continue;
 
         final Depth entryDepth = getWcDepth(entryPath, wcDepth);
-        updateEntry(context, entryPath, action == Depth.Action.Upgrade ? null : oldEntry, newEntry, tokenId, false, entryDepth, requestedDepth.deepen());
+        updates.add(new EntryUpdate(entryPath, action == Depth.Action.Upgrade ? null : oldEntry, newEntry, entryDepth));
+      }
+
+      final DeltaProducer producer = context.getDeltaProducer();
+      int submitted = 0;
+      for (int i = 0; i < updates.size(); ++i) {
+        // Keep worker pool busy with upcoming files while current entry is written.
+        if (producer.getPrefetch() > 0) {
+          for (; submitted < Math.min(updates.size(), i + producer.getPrefetch()); ++submitted)
+            prefetch(context, producer, updates.get(submitted));
+        }
+
+        final EntryUpdate update = updates.get(i);
+        updateEntry(context, update.wcPath, update.oldFile, update.newFile, tokenId, false, update.wcDepth, requestedDepth.deepen());
+      }
+    }
+
+    private void prefetch(@NotNull SessionContext context, @NotNull DeltaProducer producer, @NotNull EntryUpdate update) throws IOException {
+      final GitFile oldFile = update.oldFile;
+      final GitFile newFile = update.newFile;
+      if (newFile.isDirectory() || (oldFile != null && !oldFile.getKind().equals(newFile.getKind())))
+        return;
+
+      if (oldFile != null && newFile.getContentHash().equals(oldFile.getContentHash()))
+        return;
+
+      if (!context.canRead(newFile.getFullPath()))
+        return;
+
+      prefetched.put(update.wcPath, producer.submit(oldFile, newFile, context.getCompression(), params.sendDeltas()));
+    }
+
+    @Nullable
+    private DeltaProducer.FileDelta takePrefetched(@NotNull String wcPath, @NotNull GitFile newFile) {
+      final Future<DeltaProducer.FileDelta> future = prefetched.remove(wcPath);
+      if (future == null)
+        return null;
+
+      try {
+        final DeltaProducer.FileDelta delta = future.get();
+        return delta != null && delta.target == newFile ? delta : null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } catch (ExecutionException | CancellationException e) {
+        // Session thread computes delta by itself and reports error in the usual way.
+        log.debug("Delta precomputation failed: {}", wcPath, e);
+        return null;
       }
     }
 
     private void updateProps(@NotNull SessionContext context, @NotNull String type, @NotNull String tokenId, @Nullable GitFile oldFile, @NotNull GitFile newFile) throws IOException, SVNException {
-      final Map<String, String> propsDiff = getPropertiesDiff(oldFile, newFile);
+      updateProps(context, type, tokenId, oldFile, getPropertiesDiff(oldFile, newFile));
+    }
+
+    private void updateProps(@NotNull SessionContext context, @NotNull String type, @NotNull String tokenId, @Nullable GitFile oldFile, @NotNull Map<String, String> propsDiff) throws IOException, SVNException {
       if (oldFile == null)
         getWriter(context);
 
@@ -505,18 +565,23 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
 
     private void updateFile(@NotNull SessionContext context, @NotNull String wcPath, @Nullable GitFile prevFile, @NotNull GitFile newFile, @NotNull String parentTokenId) throws IOException, SVNException {
       final String tokenId = createTokenId();
-      final String md5 = newFile.getMd5();
+      final DeltaProducer.FileDelta prefetchedDelta = takePrefetched(wcPath, newFile);
+      // Text checksum is sent in close-file after content, so it is taken from delta generation when possible
+      // instead of reading file content twice.
+      final String[] md5 = {prefetchedDelta != null ? prefetchedDelta.md5 : null};
       try (final HeaderEntry header = sendEntryHeader(context, wcPath, prevFile, newFile, "file", parentTokenId, tokenId, writer -> writer
           .listBegin()
           .word("close-file")
           .listBegin()
           .string(tokenId)
           .listBegin()
-          .string(md5)
+          .string(md5[0] != null ? md5[0] : newFile.getMd5())
           .listEnd()
           .listEnd()
           .listEnd())) {
         final GitFile oldFile = header.file;
+        // Added file may be sent as copy, so delta source can differ from predicted one.
+        final DeltaProducer.FileDelta delta = prefetchedDelta != null && prefetchedDelta.source == oldFile ? prefetchedDelta : null;
         if (oldFile == null || !newFile.getContentHash().equals(oldFile.getContentHash())) {
           final SvnServerWriter writer = getWriter(context);
           writer
@@ -530,43 +595,21 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
               .listEnd();
 
           if (params.sendDeltas()) {
-            final SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
-            try (InputStream source = oldFile == null ? SVNFileUtil.DUMMY_IN : oldFile.openStream();
-                 InputStream target = newFile.openStream()) {
-              final SVNDeltaCompression compression = context.getCompression();
-              final String validateMd5 = deltaGenerator.sendDelta(newFile.getFileName(), source, 0, target, new ISVNDeltaConsumer() {
-                private boolean header = true;
-
-                @Override
-                public void applyTextDelta(String path, String baseChecksum) {
-                }
-
-                @Override
-                public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
-                  try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
-                    diffWindow.writeTo(stream, header, compression);
-                    header = false;
-                    writer
-                        .listBegin()
-                        .word("textdelta-chunk")
-                        .listBegin()
-                        .string(tokenId)
-                        .binary(stream.toByteArray())
-                        .listEnd()
-                        .listEnd();
-                    return null;
-                  } catch (IOException e) {
-                    throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR), e);
-                  }
-                }
-
-                @Override
-                public void textDeltaEnd(String path) {
-                }
-              }, true);
-              if (!validateMd5.equals(md5)) {
-                throw new IllegalStateException("MD5 checksum mismatch: some shit happends.");
-              }
+            final DeltaProducer.WindowConsumer consumer = window -> writer
+                .listBegin()
+                .word("textdelta-chunk")
+                .listBegin()
+                .string(tokenId)
+                .binary(window)
+                .listEnd()
+                .listEnd();
+            if (delta != null) {
+              for (byte[] window : delta.windows)
+                consumer.accept(window);
+            } else {
+              final String computedMd5 = context.getDeltaProducer().sendDelta(oldFile, newFile, context.getCompression(), consumer, md5[0]);
+              if (computedMd5 != null)
+                md5[0] = computedMd5;
             }
           }
           writer
@@ -577,7 +620,10 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
               .listEnd()
               .listEnd();
         }
-        updateProps(context, "file", tokenId, oldFile, newFile);
+        if (delta != null)
+          updateProps(context, "file", tokenId, oldFile, delta.propsDiff);
+        else
+          updateProps(context, "file", tokenId, oldFile, newFile);
       }
     }
 
@@ -772,6 +818,24 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
           .listEnd();
     }
 
+    private static final class EntryUpdate {
+      @NotNull
+      private final String wcPath;
+      @Nullable
+      private final GitFile oldFile;
+      @NotNull
+      private final GitFile newFile;
+      @NotNull
+      private final Depth wcDepth;
+
+      private EntryUpdate(@NotNull String wcPath, @Nullable GitFile oldFile, @NotNull GitFile newFile, @NotNull Depth wcDepth) {
+        this.wcPath = wcPath;
+        this.oldFile = oldFile;
+        this.newFile = newFile;
+        this.wcDepth = wcDepth;
+      }
+    }
+
     @FunctionalInterface
     private interface HeaderWriter {
       void write(@NotNull SvnServerWriter writer) throws IOException, SVNException;
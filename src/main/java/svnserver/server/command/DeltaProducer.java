@@ -0,0 +1,254 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.command;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.slf4j.Logger;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import svnserver.Loggers;
+import svnserver.repository.git.GitFile;
+import svnserver.repository.git.GitObject;
+import svnserver.repository.git.GitPackDelta;
+import svnserver.repository.git.filter.GitFilter;
+import svnserver.repository.git.filter.GitFilterRaw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool for file delta precomputation.
+ * <p>
+ * Report pipeline submits upcoming files of directory and writes computed
+ * results in protocol order, so update/checkout of large tree uses several cores.
+ */
+public final class DeltaProducer implements AutoCloseable {
+  @NotNull
+  private static final Logger log = Loggers.svn;
+  @NotNull
+  private static final AtomicInteger threadNumber = new AtomicInteger(0);
+  // Limit for stored pack delta and for base content, that is loaded when delta can't be expressed by svndiff copies.
+  private static final int MAX_PACK_DELTA_SIZE = 16 * 1024 * 1024;
+  @Nullable
+  private final ExecutorService executor;
+  @NotNull
+  private final DeltaCache cache;
+  private final int prefetch;
+  private final long maxFileSize;
+  private final boolean reusePackDeltas;
+
+  /**
+   * @param threads         Worker threads count.
+   * @param prefetch        Maximum files count computed ahead of session thread per directory. Zero disables precomputation.
+   * @param maxFileSize     Larger files are streamed by session thread to avoid whole delta buffering.
+   * @param reusePackDeltas Convert deltas stored in git pack files instead of generating them from content.
+   * @param cache           Full-text delta cache.
+   */
+  public DeltaProducer(int threads, int prefetch, long maxFileSize, boolean reusePackDeltas, @NotNull DeltaCache cache) {
+    this.cache = cache;
+    this.reusePackDeltas = reusePackDeltas;
+    this.prefetch = threads > 0 ? Math.max(prefetch, 0) : 0;
+    this.maxFileSize = maxFileSize;
+    if (this.prefetch > 0) {
+      final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        final Thread thread = new Thread(r, "SvnServer-delta-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      pool.allowCoreThreadTimeOut(true);
+      executor = pool;
+    } else {
+      executor = null;
+    }
+  }
+
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  @NotNull
+  Future<FileDelta> submit(@Nullable GitFile source, @NotNull GitFile target, @NotNull SVNDeltaCompression compression, boolean sendDeltas) {
+    if (executor == null)
+      throw new IllegalStateException("Delta precomputation is disabled");
+
+    return executor.submit(() -> {
+      // Size check must not read content. File with unknown size is streamed by session thread,
+      // that fills file metadata cache for next requests.
+      final long size = target.getKnownSize();
+      if (size == GitFilter.UNKNOWN_SIZE || size > maxFileSize)
+        return null;
+
+      return compute(source, target, compression, sendDeltas);
+    });
+  }
+
+  @NotNull
+  private FileDelta compute(@Nullable GitFile source, @NotNull GitFile target, @NotNull SVNDeltaCompression compression, boolean sendDeltas) throws IOException, SVNException {
+    final Map<String, String> propsDiff = DeltaCmd.getPropertiesDiff(source, target);
+    if (!sendDeltas || (source != null && source.getContentHash().equals(target.getContentHash())))
+      return new FileDelta(source, target, target.getMd5(), propsDiff, Collections.emptyList());
+
+    final List<byte[]> windows = new ArrayList<>();
+    final String md5 = sendDelta(source, target, compression, windows::add, null);
+    return new FileDelta(source, target, md5 != null ? md5 : target.getMd5(), propsDiff, windows);
+  }
+
+  /**
+   * Send file content delta.
+   *
+   * @param md5 Expected content md5 for validation, if already known.
+   * @return Content md5 if it was computed while generating delta, null if delta was taken from cache.
+   */
+  @Nullable
+  String sendDelta(@Nullable GitFile source, @NotNull GitFile target, @NotNull SVNDeltaCompression compression, @NotNull WindowConsumer consumer, @Nullable String md5) throws IOException, SVNException {
+    if (source != null && reusePackDeltas && sendPackDelta(source, target, compression, consumer))
+      return null;
+
+    final long size = target.getKnownSize();
+    if (source != null || size == GitFilter.UNKNOWN_SIZE || !cache.isCacheable(size))
+      return generateDelta(source, target, compression, consumer, md5);
+
+    // Full-text delta depends only on content and compression, so it can be shared between sessions.
+    final String key = target.getContentHash() + " " + compression;
+    List<byte[]> windows = cache.get(key);
+    String computedMd5 = null;
+    if (windows == null) {
+      windows = new ArrayList<>();
+      computedMd5 = generateDelta(null, target, compression, windows::add, md5);
+      cache.put(key, windows);
+    }
+    for (byte[] window : windows)
+      consumer.accept(window);
+
+    return computedMd5;
+  }
+
+  /**
+   * Send delta stored in git pack, if target blob is stored as delta against source blob.
+   *
+   * @return False if there is no suitable pack delta and nothing was sent.
+   */
+  private static boolean sendPackDelta(@NotNull GitFile source, @NotNull GitFile target, @NotNull SVNDeltaCompression compression, @NotNull WindowConsumer consumer) throws IOException {
+    // Pack delta is delta of raw blob content.
+    if (!(source.getFilter() instanceof GitFilterRaw) || !(target.getFilter() instanceof GitFilterRaw))
+      return false;
+
+    final GitObject<ObjectId> sourceId = source.getObjectId();
+    final GitObject<ObjectId> targetId = target.getObjectId();
+    if (sourceId == null || targetId == null || sourceId.getRepo() != targetId.getRepo())
+      return false;
+
+    final PackDeltaConverter converter;
+    try {
+      final byte[] delta = GitPackDelta.load(targetId.getRepo(), targetId.getObject(), sourceId.getObject(), MAX_PACK_DELTA_SIZE);
+      if (delta == null)
+        return false;
+
+      converter = new PackDeltaConverter(delta);
+    } catch (IOException e) {
+      log.debug("Can't read pack delta of {}, fallback to delta generation", target.getFullPath(), e);
+      return false;
+    }
+    // Empty target still needs one window, leave it to generic generator.
+    if (converter.getWindowCount() == 0)
+      return false;
+
+    if (converter.isBaseRequired() && converter.getBaseSize() > MAX_PACK_DELTA_SIZE)
+      return false;
+
+    converter.send(() -> sourceId.openObject().getCachedBytes(MAX_PACK_DELTA_SIZE), compression, consumer);
+    return true;
+  }
+
+  /**
+   * Target content md5 is computed while streaming, target stream also fills file metadata cache.
+   */
+  @NotNull
+  private static String generateDelta(@Nullable GitFile source, @NotNull GitFile target, @NotNull SVNDeltaCompression compression, @NotNull WindowConsumer consumer, @Nullable String md5) throws IOException, SVNException {
+    try (InputStream sourceStream = source == null ? SVNFileUtil.DUMMY_IN : source.openStream();
+         InputStream targetStream = target.openStream()) {
+      final String validateMd5 = new SVNDeltaGenerator().sendDelta(target.getFileName(), sourceStream, 0, targetStream, new ISVNDeltaConsumer() {
+        private boolean header = true;
+
+        @Override
+        public void applyTextDelta(String path, String baseChecksum) {
+        }
+
+        @Override
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+          try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
+            diffWindow.writeTo(stream, header, compression);
+            header = false;
+            consumer.accept(stream.toByteArray());
+            return null;
+          } catch (IOException e) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR), e);
+          }
+        }
+
+        @Override
+        public void textDeltaEnd(String path) {
+        }
+      }, true);
+      if (md5 != null && !validateMd5.equals(md5)) {
+        throw new IllegalStateException("MD5 checksum mismatch: some shit happends.");
+      }
+      return validateMd5;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null)
+      executor.shutdownNow();
+
+    cache.close();
+  }
+
+  @FunctionalInterface
+  interface WindowConsumer {
+    void accept(@NotNull byte[] window) throws IOException;
+  }
+
+  static final class FileDelta {
+    @Nullable
+    final GitFile source;
+    @NotNull
+    final GitFile target;
+    @NotNull
+    final String md5;
+    @NotNull
+    final Map<String, String> propsDiff;
+    @NotNull
+    final List<byte[]> windows;
+
+    private FileDelta(@Nullable GitFile source, @NotNull GitFile target, @NotNull String md5, @NotNull Map<String, String> propsDiff, @NotNull List<byte[]> windows) {
+      this.source = source;
+      this.target = target;
+      this.md5 = md5;
+      this.propsDiff = propsDiff;
+      this.windows = windows;
+    }
+  }
+}
@@ -8,6 +8,7 @@
 package svnserver.server.command;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
@@ -18,6 +19,7 @@ import svnserver.repository.git.GitFile;
 import svnserver.repository.git.GitRevision;
 import svnserver.server.SessionContext;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -42,6 +44,8 @@ import java.io.InputStream;
  */
 public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
   private static final int WINDOW_SIZE = 1024 * 100;
+  // Files up to this size are read into memory before response header.
+  private static final long MAX_BUFFERED_SIZE = 1024 * 1024;
 
   @NotNull
   @Override
@@ -66,6 +70,9 @@ public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
     if (fileInfo.isDirectory())
       throw new SVNException(SVNErrorMessage.create(SVNErrorCode.ILLEGAL_TARGET, fullPath + " is a directory in revision " + revision.getId()));
 
+    // Checksum is sent before content. Small file is read once into memory: content stream fills file metadata cache,
+    // so checksum is not computed by separate content read. Large files are still read twice.
+    final byte[] content = args.wantContents ? readSmallContent(fileInfo) : null;
     writer
         .listBegin()
         .word("success")
@@ -76,13 +83,20 @@ public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
         .listEnd()
         .listEnd();
     if (args.wantContents) {
-      byte[] buffer = new byte[WINDOW_SIZE];
-      try (final InputStream stream = fileInfo.openStream()) {
-        while (true) {
-          int read = StreamHelper.readFully(stream, buffer, 0, buffer.length);
-          writer.binary(buffer, 0, read);
-          if (read == 0) {
-            break;
+      if (content != null) {
+        for (int offset = 0; offset < content.length; offset += WINDOW_SIZE)
+          writer.binary(content, offset, Math.min(WINDOW_SIZE, content.length - offset));
+
+        writer.binary(content, 0, 0);
+      } else {
+        byte[] buffer = new byte[WINDOW_SIZE];
+        try (final InputStream stream = fileInfo.openStream()) {
+          while (true) {
+            int read = StreamHelper.readFully(stream, buffer, 0, buffer.length);
+            writer.binary(buffer, 0, read);
+            if (read == 0) {
+              break;
+            }
           }
         }
       }
@@ -95,6 +109,33 @@ public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
     }
   }
 
+  /**
+   * Read file content if it is not larger than {@link #MAX_BUFFERED_SIZE}.
+   * <p>
+   * Size is checked by content reading when it is not known yet, so size check does not read content separately.
+   *
+   * @return File content or null for large file.
+   */
+  @Nullable
+  private static byte[] readSmallContent(@NotNull GitFile fileInfo) throws IOException {
+    if (fileInfo.getKnownSize() > MAX_BUFFERED_SIZE)
+      return null;
+
+    try (final InputStream stream = fileInfo.openStream()) {
+      final ByteArrayOutputStream content = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[WINDOW_SIZE];
+      while (true) {
+        final int read = stream.read(buffer);
+        if (read < 0)
+          return content.toByteArray();
+
+        content.write(buffer, 0, read);
+        if (content.size() > MAX_BUFFERED_SIZE)
+          return null;
+      }
+    }
+  }
+
   @Override
   protected void permissionCheck(@NotNull SessionContext context, @NotNull Params args) throws IOException, SVNException {
     context.checkRead(context.getRepositoryPath(args.path));
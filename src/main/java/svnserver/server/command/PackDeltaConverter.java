@@ -0,0 +1,328 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
+import org.tmatesoft.svn.core.io.diff.SVNDiffInstruction;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts git binary delta to svndiff windows.
+ * <p>
+ * Svndiff windows are limited by 100 KiB of source and target view and source view can't slide backwards.
+ * Git copies, that don't fit into source view, are sent as new data taken from base content.
+ */
+final class PackDeltaConverter {
+  // Same as SVN_DELTA_WINDOW_SIZE.
+  static final int WINDOW_SIZE = 100 * 1024;
+  // Git delta copy size is encoded in 3 bytes, zero means 0x10000.
+  private static final int GIT_COPY_ZERO_SIZE = 0x10000;
+
+  @FunctionalInterface
+  interface BaseLoader {
+    @NotNull
+    byte[] load() throws IOException;
+  }
+
+  @NotNull
+  private final byte[] delta;
+  private final long baseSize;
+  private final long resultSize;
+  private final int opsOffset;
+  @NotNull
+  private final List<Window> windows = new ArrayList<>();
+  private boolean needBase;
+
+  // Source view of previous window with copy instructions.
+  private long lastViewStart = 0;
+  private long lastViewEnd = 0;
+  @Nullable
+  private Window current;
+
+  /**
+   * Parse git delta and split it into svndiff windows.
+   *
+   * @param delta Git binary delta.
+   */
+  PackDeltaConverter(@NotNull byte[] delta) throws IOException {
+    this.delta = delta;
+    final int[] pos = {0};
+    baseSize = readVarInt(delta, pos);
+    resultSize = readVarInt(delta, pos);
+    opsOffset = pos[0];
+    split();
+  }
+
+  long getBaseSize() {
+    return baseSize;
+  }
+
+  long getResultSize() {
+    return resultSize;
+  }
+
+  /**
+   * @return True if some copies from base are sent as new data, so base content is required.
+   */
+  boolean isBaseRequired() {
+    return needBase;
+  }
+
+  int getWindowCount() {
+    return windows.size();
+  }
+
+  /**
+   * Encode svndiff windows.
+   *
+   * @param base        Base content loader, called only if {@link #isBaseRequired()}.
+   * @param compression Svndiff compression.
+   * @param consumer    Encoded window consumer.
+   */
+  void send(@NotNull BaseLoader base, @NotNull SVNDeltaCompression compression, @NotNull DeltaProducer.WindowConsumer consumer) throws IOException {
+    final byte[] baseData = needBase ? base.load() : null;
+    if (baseData != null && baseData.length != baseSize)
+      throw new IOException("Unexpected delta base size: " + baseData.length + " (expected: " + baseSize + ")");
+
+    boolean header = true;
+    for (Window window : windows) {
+      try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
+        window.toDiffWindow(baseData).writeTo(stream, header, compression);
+        header = false;
+        consumer.accept(stream.toByteArray());
+      }
+    }
+  }
+
+  @NotNull
+  List<SVNDiffWindow> toDiffWindows(@Nullable byte[] baseData) {
+    final List<SVNDiffWindow> result = new ArrayList<>(windows.size());
+    for (Window window : windows)
+      result.add(window.toDiffWindow(baseData));
+
+    return result;
+  }
+
+  private void split() throws IOException {
+    int pos = opsOffset;
+    long target = 0;
+    while (pos < delta.length) {
+      final int cmd = delta[pos++] & 0xFF;
+      if ((cmd & 0x80) != 0) {
+        long offset = 0;
+        int size = 0;
+        for (int i = 0; i < 4; ++i) {
+          if ((cmd & (1 << i)) != 0)
+            offset |= (long) copyOperand(pos++) << (i * 8);
+        }
+        for (int i = 0; i < 3; ++i) {
+          if ((cmd & (0x10 << i)) != 0)
+            size |= copyOperand(pos++) << (i * 8);
+        }
+        if (size == 0)
+          size = GIT_COPY_ZERO_SIZE;
+
+        if (offset + size > baseSize)
+          throw new IOException("Delta copy is out of base bounds");
+
+        addCopy(offset, size);
+        target += size;
+      } else if (cmd != 0) {
+        if (pos + cmd > delta.length)
+          throw new IOException("Delta insert is out of delta bounds");
+
+        addInsert(pos, cmd);
+        pos += cmd;
+        target += cmd;
+      } else {
+        throw new IOException("Unexpected delta command: 0");
+      }
+    }
+    if (target != resultSize)
+      throw new IOException("Unexpected delta result size: " + target + " (expected: " + resultSize + ")");
+
+    flush();
+  }
+
+  private int copyOperand(int pos) throws IOException {
+    if (pos >= delta.length)
+      throw new IOException("Delta copy is out of delta bounds");
+
+    return delta[pos] & 0xFF;
+  }
+
+  private void addCopy(long offset, int size) {
+    while (size > 0) {
+      final Window window = window();
+      final int length = Math.min(size, WINDOW_SIZE - window.targetLength);
+      if (!window.tryCopy(offset, length)) {
+        // Try again in new window before sending copy as new data.
+        if (window.targetLength > 0) {
+          flush();
+          continue;
+        }
+        window.addLiteral(Source.BASE, offset, length);
+        needBase = true;
+      }
+      offset += length;
+      size -= length;
+      flushFull();
+    }
+  }
+
+  private void addInsert(int offset, int size) {
+    while (size > 0) {
+      final Window window = window();
+      final int length = Math.min(size, WINDOW_SIZE - window.targetLength);
+      window.addLiteral(Source.DELTA, offset, length);
+      offset += length;
+      size -= length;
+      flushFull();
+    }
+  }
+
+  @NotNull
+  private Window window() {
+    if (current == null)
+      current = new Window();
+
+    return current;
+  }
+
+  private void flushFull() {
+    if (current != null && current.targetLength == WINDOW_SIZE)
+      flush();
+  }
+
+  private void flush() {
+    if (current == null)
+      return;
+
+    if (current.hasView()) {
+      // Source view end can't move backwards too.
+      current.viewEnd = Math.max(current.viewEnd, lastViewEnd);
+      lastViewStart = current.viewStart;
+      lastViewEnd = current.viewEnd;
+    } else {
+      // Window without copy instructions uses empty source view at offset of previous view.
+      current.viewStart = lastViewStart;
+      current.viewEnd = lastViewStart;
+    }
+    windows.add(current);
+    current = null;
+  }
+
+  private static long readVarInt(@NotNull byte[] data, @NotNull int[] pos) throws IOException {
+    long result = 0;
+    int shift = 0;
+    int c;
+    do {
+      if (pos[0] >= data.length)
+        throw new IOException("Unexpected end of delta header");
+
+      c = data[pos[0]++] & 0xFF;
+      result |= (long) (c & 0x7F) << shift;
+      shift += 7;
+    } while ((c & 0x80) != 0);
+    return result;
+  }
+
+  private enum Source {
+    BASE,
+    DELTA
+  }
+
+  private static final class Instruction {
+    // Null for copy from source view.
+    @Nullable
+    private final Source source;
+    private final long offset;
+    private final int length;
+
+    private Instruction(@Nullable Source source, long offset, int length) {
+      this.source = source;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private final class Window {
+    @NotNull
+    private final List<Instruction> instructions = new ArrayList<>();
+    private int targetLength;
+    private int newDataLength;
+    private long viewStart = -1;
+    private long viewEnd = -1;
+
+    private boolean hasView() {
+      return viewStart >= 0;
+    }
+
+    private boolean tryCopy(long offset, int length) {
+      final boolean empty = !hasView();
+      final long start = empty ? offset : Math.min(viewStart, offset);
+      final long end = empty ? offset + length : Math.max(viewEnd, offset + length);
+      if (start < lastViewStart || Math.max(end, lastViewEnd) - start > WINDOW_SIZE)
+        return false;
+
+      viewStart = start;
+      viewEnd = end;
+      instructions.add(new Instruction(null, offset, length));
+      targetLength += length;
+      return true;
+    }
+
+    private void addLiteral(@NotNull Source source, long offset, int length) {
+      instructions.add(new Instruction(source, offset, length));
+      targetLength += length;
+      newDataLength += length;
+    }
+
+    @NotNull
+    private SVNDiffWindow toDiffWindow(@Nullable byte[] baseData) {
+      final long sourceOffset = viewStart;
+      final int sourceLength = (int) (viewEnd - viewStart);
+      final ByteBuffer instructionData = ByteBuffer.allocate(instructions.size() * 11);
+      final byte[] newData = new byte[newDataLength];
+      int newDataOffset = 0;
+      for (Instruction instruction : instructions) {
+        if (instruction.source == null) {
+          new SVNDiffInstruction(SVNDiffInstruction.COPY_FROM_SOURCE, instruction.length, (int) (instruction.offset - sourceOffset)).writeTo(instructionData);
+        } else {
+          new SVNDiffInstruction(SVNDiffInstruction.COPY_FROM_NEW_DATA, instruction.length, newDataOffset).writeTo(instructionData);
+          if (instruction.source == Source.BASE) {
+            if (baseData == null)
+              throw new IllegalStateException("Delta base content is required");
+
+            System.arraycopy(baseData, (int) instruction.offset, newData, newDataOffset, instruction.length);
+          } else {
+            System.arraycopy(delta, (int) instruction.offset, newData, newDataOffset, instruction.length);
+          }
+          newDataOffset += instruction.length;
+        }
+      }
+      final int instructionsLength = instructionData.position();
+      final ByteBuffer data = ByteBuffer.allocate(instructionsLength + newData.length);
+      data.put(instructionData.array(), 0, instructionsLength);
+      data.put(newData);
+      data.flip();
+
+      final SVNDiffWindow window = new SVNDiffWindow(sourceOffset, sourceLength, targetLength, instructionsLength, newData.length);
+      window.setData(data);
+      return window;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.Socket;
+
+/**
+ * Accepted svn client connection.
+ */
+public interface ClientConnection {
+  @NotNull
+  Socket getSocket();
+
+  /**
+   * Serve client commands.
+   *
+   * @param untilIdle Return control when session waits for next client command instead of blocking on read.
+   * @return Returns true if connection is alive and idle. On false connection is already closed
+   * or suspended by server: suspended connection is passed to {@link ConnectionEngine#execute} again on resume.
+   */
+  boolean serve(boolean untilIdle);
+
+  /**
+   * Close connection.
+   */
+  void close();
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Strategy for serving accepted client connections.
+ */
+public interface ConnectionEngine {
+  @NotNull
+  default ServerSocket createServerSocket() throws IOException {
+    return new ServerSocket();
+  }
+
+  /**
+   * Start serving connection.
+   *
+   * @param connection Accepted connection.
+   * @throws RejectedExecutionException If engine can't accept new connections.
+   */
+  void execute(@NotNull ClientConnection connection) throws RejectedExecutionException;
+
+  /**
+   * Stop accepting new connections. Already running commands are not interrupted.
+   */
+  void shutdown();
+
+  boolean awaitTermination(long millis) throws InterruptedException;
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import svnserver.Loggers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection engine with bounded worker pool.
+ * <p>
+ * Worker thread is used only while a command is executed. Between commands connection
+ * socket is switched to non-blocking mode and waits in selector for next client request.
+ */
+final class SelectorEngine implements ConnectionEngine {
+  @NotNull
+  private static final Logger log = Loggers.svn;
+
+  @NotNull
+  private final ThreadPoolExecutor workers;
+  @NotNull
+  private final Selector selector;
+  @NotNull
+  private final Thread selectorThread;
+  @NotNull
+  private final Queue<ClientConnection> parked = new ConcurrentLinkedQueue<>();
+  @NotNull
+  private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+  SelectorEngine(int workerThreads) {
+    workers = new ThreadPoolExecutor(
+        workerThreads,
+        workerThreads,
+        60,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        ThreadPerConnectionEngineConfig.createThreadFactory("SvnServer-worker-%s")
+    );
+    workers.allowCoreThreadTimeOut(true);
+    try {
+      selector = Selector.open();
+    } catch (IOException e) {
+      throw new IllegalStateException("Can't open selector", e);
+    }
+    selectorThread = new Thread(this::selectLoop, "SvnServer-selector");
+    selectorThread.setDaemon(true);
+    selectorThread.start();
+  }
+
+  @NotNull
+  @Override
+  public ServerSocket createServerSocket() throws IOException {
+    // Accepted sockets must have channel for selector registration.
+    return ServerSocketChannel.open().socket();
+  }
+
+  @Override
+  public void execute(@NotNull ClientConnection connection) {
+    if (connection.getSocket().getChannel() == null)
+      throw new IllegalStateException("Connection socket has no channel");
+
+    workers.execute(() -> serve(connection));
+  }
+
+  private void serve(@NotNull ClientConnection connection) {
+    if (connection.serve(true))
+      park(connection);
+  }
+
+  private void park(@NotNull ClientConnection connection) {
+    if (stopped.get()) {
+      connection.close();
+      return;
+    }
+    try {
+      connection.getSocket().getChannel().configureBlocking(false);
+    } catch (IOException e) {
+      log.warn("Can't switch connection to non-blocking mode", e);
+      connection.close();
+      return;
+    }
+    parked.add(connection);
+    selector.wakeup();
+    // Selector thread may be already finished.
+    if (stopped.get() && parked.remove(connection))
+      connection.close();
+  }
+
+  private void resume(@NotNull ClientConnection connection) {
+    try {
+      connection.getSocket().getChannel().configureBlocking(true);
+      workers.execute(() -> serve(connection));
+    } catch (IOException | RejectedExecutionException e) {
+      connection.close();
+    }
+  }
+
+  private void selectLoop() {
+    try {
+      while (!stopped.get()) {
+        selector.select();
+
+        ClientConnection connection;
+        while ((connection = parked.poll()) != null) {
+          try {
+            connection.getSocket().getChannel().register(selector, SelectionKey.OP_READ, connection);
+          } catch (ClosedChannelException e) {
+            connection.close();
+          }
+        }
+
+        List<ClientConnection> ready = takeReady();
+        while (!ready.isEmpty()) {
+          // Cancelled keys are deregistered only by next select operation,
+          // channel can't be switched back to blocking mode until that.
+          selector.selectNow();
+          for (ClientConnection item : ready)
+            resume(item);
+
+          ready = takeReady();
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      log.error("Selector failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        if (key.isValid())
+          ((ClientConnection) key.attachment()).close();
+      }
+
+      ClientConnection connection;
+      while ((connection = parked.poll()) != null)
+        connection.close();
+
+      try {
+        selector.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  @NotNull
+  private List<ClientConnection> takeReady() {
+    final List<ClientConnection> result = new ArrayList<>();
+    final Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+    while (iter.hasNext()) {
+      final SelectionKey key = iter.next();
+      iter.remove();
+      key.cancel();
+      result.add((ClientConnection) key.attachment());
+    }
+    return result;
+  }
+
+  @Override
+  public void shutdown() {
+    if (stopped.compareAndSet(false, true)) {
+      selector.wakeup();
+      workers.shutdown();
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long millis) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + millis;
+    if (!workers.awaitTermination(millis, TimeUnit.MILLISECONDS))
+      return false;
+
+    selectorThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+    return !selectorThread.isAlive();
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.config.ConnectionEngineConfig;
+import svnserver.config.serializer.ConfigType;
+
+/**
+ * Park idle connections in NIO selector and serve commands by bounded worker pool.
+ */
+@ConfigType("selector")
+public final class SelectorEngineConfig implements ConnectionEngineConfig {
+  /**
+   * Worker thread count. Zero means "four threads per CPU core".
+   */
+  private int workerThreads = 0;
+
+  public SelectorEngineConfig() {
+  }
+
+  public SelectorEngineConfig(int workerThreads) {
+    this.workerThreads = workerThreads;
+  }
+
+  @NotNull
+  @Override
+  public ConnectionEngine create() {
+    final int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors() * 4;
+    return new SelectorEngine(threads);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.*;
+
+/**
+ * Serve every connection by dedicated thread.
+ */
+final class ThreadConnectionEngine implements ConnectionEngine {
+  @NotNull
+  private final ThreadPoolExecutor executor;
+
+  ThreadConnectionEngine(@NotNull ThreadFactory threadFactory) {
+    executor = new ThreadPoolExecutor(
+        0,
+        Integer.MAX_VALUE,
+        60,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        threadFactory,
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+  }
+
+  @Override
+  public void execute(@NotNull ClientConnection connection) {
+    executor.execute(() -> connection.serve(false));
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public boolean awaitTermination(long millis) throws InterruptedException {
+    return executor.awaitTermination(millis, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.config.ConnectionEngineConfig;
+import svnserver.config.serializer.ConfigType;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serve every connection by dedicated platform thread.
+ */
+@ConfigType("threadPerConnection")
+public final class ThreadPerConnectionEngineConfig implements ConnectionEngineConfig {
+  @NotNull
+  public static final ThreadPerConnectionEngineConfig instance = new ThreadPerConnectionEngineConfig();
+  @NotNull
+  private static final AtomicInteger threadNumber = new AtomicInteger(1);
+
+  @NotNull
+  @Override
+  public ConnectionEngine create() {
+    return new ThreadConnectionEngine(createThreadFactory("SvnServer-thread-%s"));
+  }
+
+  @NotNull
+  static ThreadFactory createThreadFactory(@NotNull String nameFormat) {
+    return r -> {
+      final Thread thread = new Thread(r, String.format(nameFormat, threadNumber.incrementAndGet()));
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
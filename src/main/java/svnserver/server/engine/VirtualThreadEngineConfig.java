@@ -0,0 +1,52 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import svnserver.Loggers;
+import svnserver.config.ConnectionEngineConfig;
+import svnserver.config.serializer.ConfigType;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Serve every connection by dedicated virtual thread (JDK 21+).
+ * <p>
+ * Falls back to platform threads on older JVMs.
+ */
+@ConfigType("virtualThreads")
+public final class VirtualThreadEngineConfig implements ConnectionEngineConfig {
+  @NotNull
+  private static final Logger log = Loggers.svn;
+
+  @NotNull
+  @Override
+  public ConnectionEngine create() {
+    final ThreadFactory threadFactory = createVirtualThreadFactory();
+    if (threadFactory == null) {
+      log.warn("Virtual threads are not supported by JVM {}, fallback to platform threads", System.getProperty("java.version"));
+      return ThreadPerConnectionEngineConfig.instance.create();
+    }
+    return new ThreadConnectionEngine(threadFactory);
+  }
+
+  @Nullable
+  private static ThreadFactory createVirtualThreadFactory() {
+    // Reflection is used to keep Java 8 source compatibility.
+    try {
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builderClass.getMethod("name", String.class, long.class).invoke(builder, "SvnServer-vthread-", 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
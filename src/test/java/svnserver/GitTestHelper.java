@@ -0,0 +1,168 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver;
+
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.SkipException;
+import svnserver.config.GitRepositoryConfig;
+import svnserver.context.LocalContext;
+import svnserver.context.SharedContext;
+import svnserver.repository.git.GitCreateMode;
+import svnserver.repository.git.GitRepository;
+import svnserver.repository.git.push.GitPushEmbedded;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helper for tests that work with git repository directly.
+ */
+public final class GitTestHelper {
+  @NotNull
+  private static final PersonIdent ident = new PersonIdent("Test", "test@example.com");
+
+  private GitTestHelper() {
+  }
+
+  /**
+   * Create commit object without flushing inserter.
+   */
+  @NotNull
+  public static ObjectId createCommit(@NotNull ObjectInserter inserter, @Nullable ObjectId parent, @NotNull ObjectId treeId, @NotNull String message) throws IOException {
+    final CommitBuilder commitBuilder = new CommitBuilder();
+    commitBuilder.setAuthor(ident);
+    commitBuilder.setCommitter(ident);
+    commitBuilder.setMessage(message);
+    commitBuilder.setTreeId(treeId);
+    if (parent != null)
+      commitBuilder.setParentId(parent);
+
+    return inserter.insert(commitBuilder);
+  }
+
+  /**
+   * Create commit with single file.txt file without updating any ref.
+   *
+   * @param content File content, also used as commit message.
+   */
+  @NotNull
+  public static ObjectId createCommit(@NotNull Repository git, @NotNull ObjectId parent, @NotNull String content) throws IOException {
+    try (ObjectInserter inserter = git.newObjectInserter()) {
+      final TreeFormatter treeBuilder = new TreeFormatter();
+      treeBuilder.append("file.txt", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8)));
+      final ObjectId commitId = createCommit(inserter, parent, inserter.insert(treeBuilder), content);
+      inserter.flush();
+      return commitId;
+    }
+  }
+
+  public static void checkShell() {
+    if (SvnTestHelper.findExecutable("sh") == null)
+      throw new SkipException("Shell executable not found");
+  }
+
+  public static void createHook(@NotNull Path hooks, @NotNull String name, @NotNull String script) throws IOException {
+    final Path hook = Files.createDirectories(hooks).resolve(name);
+    Files.write(hook, ("#!/bin/sh\n" + script + "\n").getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(hook.toFile().setExecutable(true));
+  }
+
+  /**
+   * Read file written by hook into repository directory.
+   */
+  @NotNull
+  public static String readLog(@NotNull Repository git, @NotNull String name) throws IOException {
+    return new String(Files.readAllBytes(git.getDirectory().toPath().resolve(name)), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Temporary directory with example git repository and shared context with in-memory cache database.
+   */
+  public static final class Fixture implements AutoCloseable {
+    @NotNull
+    private final Path tempDir;
+    @NotNull
+    private final List<Repository> repositories = new ArrayList<>();
+    @NotNull
+    private final Repository git;
+    @NotNull
+    private final SharedContext shared;
+
+    public Fixture() throws Exception {
+      tempDir = TestHelper.createTempDir("git-as-svn");
+      try {
+        git = createGit("repo.git");
+        shared = SharedContext.create(tempDir, "realm", DBMaker.memoryDB().make(), Collections.emptyList());
+      } catch (Exception e) {
+        closeRepositories();
+        throw e;
+      }
+    }
+
+    /**
+     * Create one more example repository, that is closed with fixture.
+     */
+    @NotNull
+    public Repository createGit(@NotNull String name) throws IOException {
+      final Repository repository = GitCreateMode.EXAMPLE.createRepository(tempDir.resolve(name), Collections.singleton(Constants.MASTER));
+      repositories.add(repository);
+      return repository;
+    }
+
+    @NotNull
+    public GitRepository createRepository() throws IOException {
+      return createRepository(git);
+    }
+
+    /**
+     * Wrap git repository with master branch like repository config does.
+     */
+    @NotNull
+    public GitRepository createRepository(@NotNull Repository repository) throws IOException {
+      final LocalContext local = new LocalContext(shared, "test");
+      return GitRepositoryConfig.createRepository(local, null, repository, new GitPushEmbedded(local, null, false), Collections.singleton(Constants.MASTER), true);
+    }
+
+    @NotNull
+    public Repository getGit() {
+      return git;
+    }
+
+    @NotNull
+    public SharedContext getShared() {
+      return shared;
+    }
+
+    @Override
+    public void close() throws Exception {
+      try {
+        shared.close();
+      } finally {
+        closeRepositories();
+      }
+    }
+
+    private void closeRepositories() throws IOException {
+      try {
+        for (Repository repository : repositories)
+          repository.close();
+      } finally {
+        TestHelper.deleteDirectory(tempDir);
+      }
+    }
+  }
+}
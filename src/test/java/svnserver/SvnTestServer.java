@@ -36,6 +36,7 @@ import svnserver.ext.gitlfs.storage.memory.LfsMemoryStorage;
 import svnserver.ext.web.config.WebServerConfig;
 import svnserver.repository.RepositoryMapping;
 import svnserver.repository.VcsAccess;
+import svnserver.repository.git.GitBranch;
 import svnserver.repository.git.GitRepository;
 import svnserver.repository.git.push.GitPushEmbedded;
 import svnserver.server.SvnServer;
@@ -44,6 +45,7 @@ import svnserver.tester.SvnTester;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -92,6 +94,7 @@ public final class SvnTestServer implements SvnTester {
                         @Nullable Function<Path, RepositoryMappingConfig> mappingConfigCreator,
                         boolean anonymousRead,
                         @NotNull LfsMode lfsMode,
+                        @Nullable Consumer<Config> configCustomizer,
                         @NotNull SharedConfig... shared) throws Exception {
     SVNFileUtil.setSleepForTimestamp(false);
     this.repository = repository;
@@ -145,6 +148,10 @@ public final class SvnTestServer implements SvnTester {
 
     Collections.addAll(config.getShared(), shared);
 
+    if (configCustomizer != null) {
+      configCustomizer.accept(config);
+    }
+
     server = new SvnServer(tempDirectory, config);
     server.start();
     log.info("Temporary server started (url: {}, path: {}, branch: {} as {})", getUrl(), repository.getDirectory(), srcBranch, testBranch);
@@ -212,7 +219,7 @@ public final class SvnTestServer implements SvnTester {
 
   @NotNull
   public static SvnTestServer createEmpty(@Nullable UserDBConfig userDBConfig, @Nullable Function<Path, RepositoryMappingConfig> mappingConfigCreator, boolean anonymousRead, @NotNull LfsMode lfsMode, @NotNull SharedConfig... shared) throws Exception {
-    return new SvnTestServer(TestHelper.emptyRepository(), Constants.MASTER, "", false, userDBConfig, mappingConfigCreator, anonymousRead, lfsMode, shared);
+    return new SvnTestServer(TestHelper.emptyRepository(), Constants.MASTER, "", false, userDBConfig, mappingConfigCreator, anonymousRead, lfsMode, null, shared);
   }
 
   @NotNull
@@ -220,9 +227,17 @@ public final class SvnTestServer implements SvnTester {
     return createEmpty(userDBConfig, null, anonymousRead, LfsMode.Memory, shared);
   }
 
+  /**
+   * Create empty repository server with customized server configuration.
+   */
+  @NotNull
+  public static SvnTestServer createEmpty(@NotNull Consumer<Config> configCustomizer) throws Exception {
+    return new SvnTestServer(TestHelper.emptyRepository(), Constants.MASTER, "", false, null, null, false, LfsMode.Memory, configCustomizer);
+  }
+
   @NotNull
   public static SvnTestServer createMasterRepository() throws Exception {
-    return new SvnTestServer(new FileRepository(TestHelper.findGitPath().toFile()), null, "", true, null, null, true, LfsMode.Memory);
+    return new SvnTestServer(new FileRepository(TestHelper.findGitPath().toFile()), null, "", true, null, null, true, LfsMode.Memory, null);
   }
 
   @NotNull
@@ -319,6 +334,13 @@ public final class SvnTestServer implements SvnTester {
           Collections.singleton(branch),
           true
       );
+      // Same as repository list mapping: watched repositories are not updated by connections.
+      try {
+        for (GitBranch branch : repository.getBranches().values())
+          branch.updateRevisions();
+      } catch (SVNException e) {
+        throw new IOException(e);
+      }
 
       return () -> new TreeMap<>(Collections.singletonMap(prefix, repository));
     }
@@ -17,6 +17,7 @@ import org.testng.internal.junit.ArrayAsserts;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Random;
@@ -136,4 +137,70 @@ public final class TemporaryOutputStreamTest {
 
     ArrayAsserts.assertArrayEquals(actualData, expectedData);
   }
+
+  @Test
+  public void checkMemoryContent() throws IOException {
+    final byte[] data = new byte[3000];
+    new Random(0).nextBytes(data);
+    final TemporaryBufferPool pool = new TemporaryBufferPool(4096, 16384, false);
+    try (TemporaryOutputStream stream = new TemporaryOutputStream(pool, MAX_MEMORY_SIZE)) {
+      Assert.assertEquals(stream.memoryContent().remaining(), 0);
+      stream.write(data);
+      final ByteBuffer content = stream.memoryContent();
+      Assert.assertNotNull(content);
+      final byte[] actual = new byte[content.remaining()];
+      content.get(actual);
+      ArrayAsserts.assertArrayEquals(actual, data);
+
+      // Content of several chunks is not joined
+      stream.write(data);
+      Assert.assertNull(stream.memoryContent());
+    }
+    try (TemporaryOutputStream stream = new TemporaryOutputStream(new TemporaryBufferPool(4096, 16384, true), MAX_MEMORY_SIZE)) {
+      stream.write(data);
+      Assert.assertNull(stream.memoryContent());
+    }
+  }
+
+  @NotNull
+  @DataProvider
+  public static Object[][] providerPool() {
+    return new Object[][]{
+        new Object[]{false},
+        new Object[]{true},
+    };
+  }
+
+  @Test(dataProvider = "providerPool")
+  public void checkPoolLimit(boolean offHeap) throws IOException {
+    final TemporaryBufferPool pool = new TemporaryBufferPool(1024, 4096, offHeap);
+    final Random random = new Random(0);
+    final byte[] first = new byte[3000];
+    final byte[] second = new byte[3000];
+    random.nextBytes(first);
+    random.nextBytes(second);
+
+    try (TemporaryOutputStream firstStream = new TemporaryOutputStream(pool, MAX_MEMORY_SIZE);
+         TemporaryOutputStream secondStream = new TemporaryOutputStream(pool, MAX_MEMORY_SIZE)) {
+      firstStream.write(first);
+      secondStream.write(second);
+      Assert.assertNull(firstStream.tempFile());
+      // Only one chunk is left in pool for second stream
+      Assert.assertNotNull(secondStream.tempFile());
+      Assert.assertEquals(pool.getAllocated(), 4096);
+
+      try (InputStream firstInput = firstStream.toInputStream();
+           InputStream secondInput = secondStream.toInputStream()) {
+        ArrayAsserts.assertArrayEquals(IOUtils.toByteArray(firstInput), first);
+        ArrayAsserts.assertArrayEquals(IOUtils.toByteArray(secondInput), second);
+      }
+    }
+
+    // Released chunks are reused
+    try (TemporaryOutputStream stream = new TemporaryOutputStream(pool, MAX_MEMORY_SIZE)) {
+      stream.write(new byte[4096]);
+      Assert.assertNull(stream.tempFile());
+    }
+    Assert.assertEquals(pool.getAllocated(), 4096);
+  }
 }
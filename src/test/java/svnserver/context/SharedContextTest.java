@@ -0,0 +1,78 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.context;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.TestHelper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shared context test.
+ */
+public final class SharedContextTest {
+  /**
+   * Objects are closed in reverse order of addition independently of their hash codes.
+   */
+  @Test
+  public void closeOrder() throws Exception {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final List<String> closed = new ArrayList<>();
+      final SharedContext context = SharedContext.create(tempDir, "realm", DBMaker.memoryDB().make(), Collections.emptyList());
+      context.add(First.class, new First(closed));
+      context.add(Second.class, new Second(closed));
+      context.add(Third.class, new Third(closed));
+      context.remove(Second.class);
+      context.add(Second.class, new Second(closed));
+      context.close();
+      Assert.assertEquals(closed, Arrays.asList("Second", "Third", "First"));
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  private static class Item implements Shared {
+    @NotNull
+    private final List<String> closed;
+
+    private Item(@NotNull List<String> closed) {
+      this.closed = closed;
+    }
+
+    @Override
+    public void close() {
+      closed.add(getClass().getSimpleName());
+    }
+  }
+
+  private static final class First extends Item {
+    private First(@NotNull List<String> closed) {
+      super(closed);
+    }
+  }
+
+  private static final class Second extends Item {
+    private Second(@NotNull List<String> closed) {
+      super(closed);
+    }
+  }
+
+  private static final class Third extends Item {
+    private Third(@NotNull List<String> closed) {
+      super(closed);
+    }
+  }
+}
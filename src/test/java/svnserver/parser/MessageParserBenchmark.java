@@ -0,0 +1,49 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.jetbrains.annotations.NotNull;
+import svnserver.server.command.DeltaCmd;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Microbenchmark for {@link MessageParser}.
+ * <p>
+ * Measures message decoding cost for typical report message (set-path) without network and command processing.
+ * Run manually: it is not a part of test suite.
+ */
+public final class MessageParserBenchmark {
+  private static final int MESSAGES = 100_000;
+  private static final int ROUNDS = 50;
+
+  public static void main(@NotNull String[] args) throws IOException {
+    final byte[] message = "( 21:some/path/to/file.txt 42 false ( ) infinity ) ".getBytes(StandardCharsets.UTF_8);
+    final byte[] data = new byte[message.length * MESSAGES];
+    for (int i = 0; i < MESSAGES; ++i)
+      System.arraycopy(message, 0, data, i * message.length, message.length);
+
+    final long[] times = new long[ROUNDS];
+    for (int round = 0; round < ROUNDS; ++round) {
+      final SvnServerParser parser = new SvnServerParser(new ByteArrayInputStream(data));
+      final long start = System.nanoTime();
+      for (int i = 0; i < MESSAGES; ++i)
+        MessageParser.parse(DeltaCmd.SetPathParams.class, parser);
+
+      times[round] = System.nanoTime() - start;
+    }
+
+    // First half of rounds is warm-up
+    final long[] measured = Arrays.copyOfRange(times, ROUNDS / 2, ROUNDS);
+    Arrays.sort(measured);
+    System.out.printf("set-path: %d ns/message (median of %d rounds)%n", measured[measured.length / 2] / MESSAGES, measured.length);
+  }
+}
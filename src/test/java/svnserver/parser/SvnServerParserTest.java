@@ -133,6 +133,7 @@ public final class SvnServerParserTest {
       writer.write(new StringToken(data));
       writer.write(new StringToken(data));
       writer.write(new WordToken("end"));
+      writer.flush();
       streamData = outputStream.toByteArray();
     }
     try (ByteArrayInputStream inputStream = new ByteArrayInputStream(streamData)) {
@@ -142,4 +143,78 @@ public final class SvnServerParserTest {
       Assert.assertEquals(parser.readToken(WordToken.class), new WordToken("end"));
     }
   }
+
+  @Test
+  public void testBinaryStream() throws IOException {
+    @SuppressWarnings("MagicNumber") final byte[] data = new byte[0x1000];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) i;
+    }
+    final byte[] streamData;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+         final SvnServerWriter writer = new SvnServerWriter(outputStream)) {
+      writer.listBegin();
+      writer.write(new StringToken(data));
+      writer.write(new StringToken(new byte[0]));
+      writer.listEnd();
+      writer.write(new WordToken("end"));
+      writer.flush();
+      streamData = outputStream.toByteArray();
+    }
+    // Buffer is much smaller than payload, so content must be passed by chunks
+    try (ByteArrayInputStream inputStream = new ByteArrayInputStream(streamData)) {
+      final SvnServerParser parser = new SvnServerParser(inputStream, 100);
+      parser.readToken(ListBeginToken.class);
+      final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      Assert.assertTrue(parser.readBinary(actual::write));
+      ArrayAsserts.assertArrayEquals(actual.toByteArray(), data);
+      Assert.assertTrue(parser.readBinary((buffer, offset, length) -> Assert.fail()));
+      Assert.assertFalse(parser.readBinary((buffer, offset, length) -> Assert.fail()));
+      Assert.assertEquals(parser.getDepth(), 0);
+      Assert.assertEquals(parser.readText(), "end");
+    }
+  }
+
+  /**
+   * Rest of string is skipped after consumer failure.
+   */
+  @Test
+  public void testBinaryConsumerFailure() throws IOException {
+    final byte[] data = new byte[1000];
+    final byte[] streamData;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+         final SvnServerWriter writer = new SvnServerWriter(outputStream)) {
+      writer.listBegin();
+      writer.write(new StringToken(data));
+      writer.listEnd();
+      writer.write(new WordToken("end"));
+      writer.flush();
+      streamData = outputStream.toByteArray();
+    }
+    try (ByteArrayInputStream inputStream = new ByteArrayInputStream(streamData)) {
+      final SvnServerParser parser = new SvnServerParser(inputStream, 100);
+      parser.readToken(ListBeginToken.class);
+      try {
+        parser.readBinary((buffer, offset, length) -> {
+          throw new IllegalStateException();
+        });
+        Assert.fail();
+      } catch (IllegalStateException ignored) {
+      }
+      parser.readToken(ListEndToken.class);
+      Assert.assertEquals(parser.readText(), "end");
+    }
+  }
+
+  @Test
+  public void testTokenReuse() throws IOException {
+    try (InputStream stream = new ByteArrayInputStream("word 5 word 100000 5 ".getBytes(StandardCharsets.UTF_8))) {
+      final SvnServerParser parser = new SvnServerParser(stream);
+      final WordToken word = parser.readToken(WordToken.class);
+      final NumberToken number = parser.readToken(NumberToken.class);
+      Assert.assertSame(parser.readToken(WordToken.class), word);
+      Assert.assertEquals(parser.readNumber(), 100000);
+      Assert.assertSame(parser.readToken(NumberToken.class), number);
+    }
+  }
 }
@@ -0,0 +1,85 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import svnserver.parser.token.NumberToken;
+import svnserver.parser.token.StringToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer tests.
+ */
+public final class SvnServerWriterTest {
+  @DataProvider
+  public static Object[][] strings() {
+    final StringBuilder longText = new StringBuilder();
+    for (int i = 0; i < 100; ++i)
+      longText.append("aЖ€😀");
+
+    return new Object[][]{
+        new Object[]{longText.toString()},
+        new Object[]{""},
+        new Object[]{"simple ascii"},
+        new Object[]{"Тест"},
+        new Object[]{"€ and 中文"},
+        new Object[]{"emoji 😀 pair"},
+        new Object[]{"unpaired \uD83D high"},
+        new Object[]{"unpaired \uDE00 low"},
+        new Object[]{"trailing high \uD83D"},
+    };
+  }
+
+  @Test(dataProvider = "strings")
+  public void utf8(String text) throws IOException {
+    // Small buffer forces buffer flush inside of string
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (SvnServerWriter writer = new SvnServerWriter(actual, 1)) {
+      writer.string(text);
+    }
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new StringToken(text.getBytes(StandardCharsets.UTF_8)).write(expected);
+
+    Assert.assertEquals(actual.toByteArray(), expected.toByteArray());
+  }
+
+  @Test
+  public void numbers() throws IOException {
+    final long[] numbers = {0, 7, 10, 1234567890123L, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    try (SvnServerWriter writer = new SvnServerWriter(actual)) {
+      for (long number : numbers) {
+        writer.number(number);
+        NumberToken.write(expected, number);
+      }
+    }
+    Assert.assertEquals(new String(actual.toByteArray(), StandardCharsets.US_ASCII), new String(expected.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void flushCoalescing() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final SvnServerWriter writer = new SvnServerWriter(stream);
+    writer.listBegin().word("success").listEnd();
+    writer.listBegin().word("success").listEnd();
+    Assert.assertEquals(stream.size(), 0);
+
+    // Parser flushes output before blocking on input
+    final SvnServerParser parser = new SvnServerParser(new ByteArrayInputStream("word ".getBytes(StandardCharsets.US_ASCII)), writer);
+    Assert.assertEquals(parser.readText(), "word");
+    Assert.assertEquals(new String(stream.toByteArray(), StandardCharsets.US_ASCII), "( success ) \n( success ) \n");
+  }
+}
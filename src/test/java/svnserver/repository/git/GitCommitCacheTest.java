@@ -0,0 +1,75 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static svnserver.GitTestHelper.createCommit;
+
+/**
+ * Commit metadata cache test.
+ */
+public final class GitCommitCacheTest {
+  @Test
+  public void commitInfo() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null))) {
+      final ObjectId treeId;
+      final ObjectId commitId;
+      try (ObjectInserter inserter = git.newObjectInserter()) {
+        treeId = inserter.insert(new TreeFormatter());
+        commitId = createCommit(inserter, null, treeId, "  Commit message\n\n");
+        inserter.flush();
+      }
+
+      final GitCommitCache cache = new GitCommitCache();
+      final GitCommitCache.CommitInfo info = cache.get(git, commitId);
+      Assert.assertEquals(info.getTree(), treeId);
+      Assert.assertEquals(info.getAuthor(), "Test <test@example.com>");
+      Assert.assertEquals(info.getLog(), "Commit message");
+
+      Assert.assertSame(cache.get(git, commitId), info);
+      Assert.assertEquals(cache.getHits(), 1);
+      Assert.assertEquals(cache.getMisses(), 1);
+    }
+  }
+
+  @Test
+  public void lruEviction() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null))) {
+      final ObjectId[] commits = new ObjectId[3];
+      try (ObjectInserter inserter = git.newObjectInserter()) {
+        final ObjectId treeId = inserter.insert(new TreeFormatter());
+        for (int i = 0; i < commits.length; ++i)
+          commits[i] = createCommit(inserter, null, treeId, "Commit " + i);
+
+        inserter.flush();
+      }
+
+      // Cache has room only for two commits.
+      final GitCommitCache cache = new GitCommitCache(500);
+      cache.get(git, commits[0]);
+      cache.get(git, commits[1]);
+      // Touch first commit, so second becomes eldest.
+      cache.get(git, commits[0]);
+      cache.get(git, commits[2]);
+      Assert.assertTrue(cache.getUsedSize() <= 500);
+
+      cache.get(git, commits[0]);
+      cache.get(git, commits[2]);
+      Assert.assertEquals(cache.getMisses(), 3);
+      cache.get(git, commits[1]);
+      Assert.assertEquals(cache.getMisses(), 4);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Indexing worker pool test.
+ */
+public final class GitIndexingPoolTest {
+  /**
+   * Disabled parallel indexing runs tasks by caller thread.
+   */
+  @Test
+  public void sequential() throws Exception {
+    try (GitIndexingPool pool = new GitIndexingPool(0)) {
+      final Thread caller = Thread.currentThread();
+      final List<Callable<Thread>> tasks = new ArrayList<>();
+      for (int i = 0; i < 10; ++i)
+        tasks.add(Thread::currentThread);
+
+      for (Thread thread : pool.invokeAll(tasks))
+        Assert.assertSame(thread, caller);
+    }
+  }
+
+  @Test
+  public void keepOrder() throws Exception {
+    try (GitIndexingPool pool = new GitIndexingPool(4)) {
+      final List<Callable<Integer>> tasks = new ArrayList<>();
+      final List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 100; ++i) {
+        final int value = i;
+        tasks.add(() -> {
+          Thread.sleep(value % 3);
+          return value;
+        });
+        expected.add(value);
+      }
+      Assert.assertEquals(pool.invokeAll(tasks), expected);
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "broken")
+  public void failure() throws Exception {
+    try (GitIndexingPool pool = new GitIndexingPool(2)) {
+      final List<Callable<Integer>> tasks = new ArrayList<>();
+      tasks.add(() -> 1);
+      tasks.add(() -> {
+        throw new IOException("broken");
+      });
+      pool.invokeAll(tasks);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import svnserver.GitTestHelper;
+import svnserver.StringHelper;
+import svnserver.SvnTestServer;
+import svnserver.context.LocalContext;
+import svnserver.repository.git.filter.GitBlobMetadata;
+import svnserver.repository.git.filter.GitFilterHelper;
+import svnserver.repository.git.filter.GitFilterRaw;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import static svnserver.SvnTestHelper.checkFileContent;
+import static svnserver.SvnTestHelper.createFile;
+import static svnserver.server.SvnFilePropertyTest.propsBinary;
+import static svnserver.server.SvnFilePropertyTest.propsEolNative;
+
+/**
+ * Background file metadata precomputation test.
+ */
+public final class GitMetadataProducerTest {
+  @Test
+  public void newRevisionFiles() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty()) {
+      final GitMetadataProducer producer = server.getContext().sure(GitMetadataProducer.class);
+      final SVNRepository repo = server.openSvnRepository();
+      final byte[] text = "hello\n".getBytes(StandardCharsets.UTF_8);
+      final byte[] data = {1, 0, 2};
+      createFile(repo, "/text.txt", text, propsEolNative);
+      createFile(repo, "/data.bin", data, propsBinary);
+
+      Assert.assertTrue(producer.awaitIdle(30_000));
+      Assert.assertEquals(producer.getProcessed(), 2);
+      Assert.assertEquals(producer.getDropped(), 0);
+
+      // Metadata is computed by producer, not by client request.
+      final Map<ObjectId, GitBlobMetadata> cache = GitFilterHelper.getMetadataCache(new GitFilterRaw(new LocalContext(server.getContext(), "test")), server.getContext().getCacheDB());
+      checkMetadata(cache, text, false);
+      checkMetadata(cache, data, true);
+
+      checkFileContent(repo, "/text.txt", "hello\n");
+    }
+  }
+
+  @Test
+  public void disabled() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture();
+         GitMetadataProducer producer = new GitMetadataProducer(0, 16)) {
+      final GitBranch branch = fixture.createRepository().getBranches().firstEntry().getValue();
+      final String refName = Constants.R_HEADS + Constants.MASTER;
+      final RefUpdate refUpdate = fixture.getGit().updateRef(refName);
+      refUpdate.setNewObjectId(GitTestHelper.createCommit(fixture.getGit(), fixture.getGit().exactRef(refName).getObjectId(), "content"));
+      Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+      branch.updateRevisions();
+
+      final GitFile file = branch.getLatestRevision().getFile("/file.txt");
+      Assert.assertNotNull(file);
+      final Map<ObjectId, GitBlobMetadata> cache = GitFilterHelper.getMetadataCache(file.getFilter(), fixture.getShared().getCacheDB());
+      final Map<ObjectId, GitBlobMetadata> expected = new HashMap<>(cache);
+
+      producer.submit(branch, 1, branch.getLatestRevision().getId());
+      Assert.assertTrue(producer.awaitIdle(0));
+      Assert.assertEquals(producer.getProcessed(), 0);
+      Assert.assertEquals(producer.getDropped(), 0);
+      Assert.assertEquals(new HashMap<>(cache), expected);
+      Assert.assertNull(cache.get(file.getObjectId().getObject()));
+    }
+  }
+
+  private static void checkMetadata(@NotNull Map<ObjectId, GitBlobMetadata> cache, @NotNull byte[] content, boolean binary) throws Exception {
+    final GitBlobMetadata metadata = cache.get(new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, content));
+    Assert.assertNotNull(metadata);
+    Assert.assertEquals(metadata.getMd5(), StringHelper.toHex(MessageDigest.getInstance("MD5").digest(content)));
+    Assert.assertEquals(metadata.getSize(), content.length);
+    Assert.assertEquals(metadata.getBinary(), Boolean.valueOf(binary));
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.internal.storage.pack.DeltaIndex;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.PackParser;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Reading deltas from git pack files test.
+ */
+public final class GitPackDeltaTest {
+  private static final int OBJ_REF_DELTA = 7;
+
+  @Test
+  public void refDelta() throws Exception {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try (Repository repo = new FileRepositoryBuilder().setGitDir(tempDir.resolve(".git").toFile()).build()) {
+      repo.create(true);
+
+      final byte[] base = new byte[64 * 1024];
+      new Random(1).nextBytes(base);
+      final byte[] target = base.clone();
+      target[1000] ^= 0x55;
+      final byte[] delta = gitDelta(base, target);
+
+      final ObjectId baseId;
+      final ObjectId targetId;
+      try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+        baseId = formatter.idFor(Constants.OBJ_BLOB, base);
+        targetId = formatter.idFor(Constants.OBJ_BLOB, target);
+      }
+      // Received pack: new blob is stored as delta against existing one.
+      final ByteArrayOutputStream pack = new ByteArrayOutputStream();
+      pack.write(Constants.PACK_SIGNATURE);
+      pack.write(new byte[]{0, 0, 0, 2, 0, 0, 0, 2});
+      writeEntry(pack, Constants.OBJ_BLOB, base.length, null, base);
+      writeEntry(pack, OBJ_REF_DELTA, delta.length, baseId, delta);
+      final MessageDigest digest = Constants.newMessageDigest();
+      digest.update(pack.toByteArray());
+      pack.write(digest.digest());
+
+      try (ObjectInserter inserter = repo.newObjectInserter()) {
+        final PackParser parser = inserter.newPackParser(new ByteArrayInputStream(pack.toByteArray()));
+        parser.parse(NullProgressMonitor.INSTANCE);
+        inserter.flush();
+      }
+
+      Assert.assertEquals(GitPackDelta.load(repo, targetId, baseId, Integer.MAX_VALUE), delta);
+      // Wrong base.
+      Assert.assertNull(GitPackDelta.load(repo, targetId, targetId, Integer.MAX_VALUE));
+      // Base is stored as whole object.
+      Assert.assertNull(GitPackDelta.load(repo, baseId, targetId, Integer.MAX_VALUE));
+      // Delta is too large.
+      Assert.assertNull(GitPackDelta.load(repo, targetId, baseId, delta.length - 1));
+
+      // Pack is truncated inside of object header.
+      final PackFile packFile = ((ObjectDirectory) repo.getObjectDatabase()).getPacks().iterator().next();
+      final long offset = packFile.getIndex().findOffset(targetId);
+      try (FileChannel channel = FileChannel.open(packFile.getPackFile().toPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(offset + 5);
+      }
+      try {
+        GitPackDelta.load(repo, targetId, baseId, Integer.MAX_VALUE);
+        Assert.fail();
+      } catch (IOException ignored) {
+      }
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  private static void writeEntry(@NotNull ByteArrayOutputStream pack, int type, long size, @Nullable AnyObjectId baseId, @NotNull byte[] data) throws IOException {
+    int c = (type << 4) | (int) (size & 0x0F);
+    size >>>= 4;
+    while (size != 0) {
+      pack.write(c | 0x80);
+      c = (int) (size & 0x7F);
+      size >>>= 7;
+    }
+    pack.write(c);
+    if (baseId != null)
+      baseId.copyRawTo(pack);
+
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream stream = new DeflaterOutputStream(compressed)) {
+      stream.write(data);
+    }
+    compressed.writeTo(pack);
+  }
+
+  @NotNull
+  private static byte[] gitDelta(@NotNull byte[] base, @NotNull byte[] target) throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    new DeltaIndex(base).encode(stream, target);
+    return stream.toByteArray();
+  }
+}
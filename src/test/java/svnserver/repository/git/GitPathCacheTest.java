@@ -0,0 +1,86 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.GitTestHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resolved path cache test.
+ */
+public final class GitPathCacheTest {
+  @Test
+  public void resolve() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture();
+         Repository git = new InMemoryRepository(new DfsRepositoryDescription(null))) {
+      git.create();
+      createCommit(git);
+
+      final GitPathCache pathCache = new GitPathCache(16);
+      fixture.getShared().add(GitPathCache.class, pathCache);
+      final GitRepository repository = fixture.createRepository(git);
+      final GitBranch branch = repository.getBranches().firstEntry().getValue();
+      branch.updateRevisions();
+      final GitRevision revision = branch.getLatestRevision();
+
+      final GitFile file = revision.getFile("/a/b/file.txt");
+      Assert.assertNotNull(file);
+      Assert.assertEquals(pathCache.getHits(), 0);
+
+      // Full path is resolved by single lookup.
+      final GitFile cached = revision.getFile("a//b/file.txt/");
+      Assert.assertNotNull(cached);
+      Assert.assertEquals(pathCache.getHits(), 1);
+      Assert.assertEquals(cached.getFullPath(), file.getFullPath());
+      Assert.assertEquals(cached.getObjectId(), file.getObjectId());
+      Assert.assertEquals(cached.getProperties(), file.getProperties());
+
+      // Sibling lookup continues from resolved parent directory.
+      final GitFile sibling = revision.getFile("/a/b/other.txt");
+      Assert.assertNotNull(sibling);
+      Assert.assertEquals(sibling.getFullPath(), "/a/b/other.txt");
+      Assert.assertEquals(pathCache.getHits(), 2);
+
+      // Missing directory is cached, so nested paths are not walked.
+      Assert.assertNull(revision.getFile("/a/missing/file.txt"));
+      Assert.assertEquals(pathCache.getHits(), 3);
+      Assert.assertNull(revision.getFile("/a/missing/file.txt"));
+      Assert.assertNull(revision.getFile("/a/missing"));
+      Assert.assertEquals(pathCache.getHits(), 5);
+    }
+  }
+
+  private static void createCommit(@NotNull Repository git) throws IOException {
+    try (ObjectInserter inserter = git.newObjectInserter()) {
+      final ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, "content".getBytes(StandardCharsets.UTF_8));
+      final TreeFormatter dirB = new TreeFormatter();
+      dirB.append("file.txt", FileMode.REGULAR_FILE, blobId);
+      dirB.append("other.txt", FileMode.REGULAR_FILE, blobId);
+      final TreeFormatter dirA = new TreeFormatter();
+      dirA.append("b", FileMode.TREE, inserter.insert(dirB));
+      final TreeFormatter root = new TreeFormatter();
+      root.append(".gitattributes", FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, "*.txt eol=lf\n".getBytes(StandardCharsets.UTF_8)));
+      root.append("a", FileMode.TREE, inserter.insert(dirA));
+
+      final ObjectId commitId = GitTestHelper.createCommit(inserter, null, inserter.insert(root), "Initial commit");
+      inserter.flush();
+
+      final RefUpdate refUpdate = git.updateRef(Constants.R_HEADS + Constants.MASTER);
+      refUpdate.setNewObjectId(commitId);
+      refUpdate.update();
+    }
+  }
+}
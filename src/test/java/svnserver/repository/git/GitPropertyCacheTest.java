@@ -0,0 +1,78 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.repository.git.prop.GitProperty;
+import svnserver.repository.git.prop.GitPropertyFactory;
+import svnserver.repository.git.prop.PropertyMapping;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parsed properties cache test.
+ */
+public final class GitPropertyCacheTest {
+  @Test
+  public void deduplicate() throws IOException {
+    final GitPropertyCache cache = new GitPropertyCache(100);
+    final GitProperty[] first = cache.put(id(1), parse("*.txt eol=lf\n"));
+    final GitProperty[] second = cache.put(id(2), parse("*.txt eol=lf\n"));
+
+    Assert.assertTrue(first.length > 0);
+    Assert.assertEquals(second.length, first.length);
+    for (int i = 0; i < first.length; ++i)
+      Assert.assertSame(second[i], first[i]);
+
+    Assert.assertSame(cache.get(id(1)), first);
+    Assert.assertSame(cache.put(id(3), new GitProperty[0]), GitProperty.emptyArray);
+  }
+
+  @Test
+  public void lruEviction() throws IOException, InterruptedException {
+    final int weight = parse("*.txt eol=lf\n").length + 1;
+    // Cache has room only for two entries.
+    final GitPropertyCache cache = new GitPropertyCache(weight * 2 + 1);
+    cache.put(id(1), parse("*.txt eol=lf\n"));
+    Thread.sleep(1);
+    cache.put(id(2), parse("*.txt eol=lf\n"));
+    Thread.sleep(1);
+    // Touch first entry, so second becomes eldest.
+    Assert.assertNotNull(cache.get(id(1)));
+    Thread.sleep(1);
+    cache.put(id(3), parse("*.txt eol=lf\n"));
+
+    Assert.assertNotNull(cache.get(id(1)));
+    Assert.assertNull(cache.get(id(2)));
+    Assert.assertNotNull(cache.get(id(3)));
+    Assert.assertEquals(cache.getEntries(), 2);
+    Assert.assertEquals(cache.getWeight(), weight * 2);
+    Assert.assertEquals(cache.getHits(), 3);
+    Assert.assertEquals(cache.getMisses(), 1);
+    Assert.assertEquals(cache.getEvictions(), 1);
+  }
+
+  @NotNull
+  private static GitProperty[] parse(@NotNull String content) throws IOException {
+    final GitPropertyFactory factory = PropertyMapping.getFactory(".gitattributes");
+    Assert.assertNotNull(factory);
+    return factory.create(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @NotNull
+  private static ObjectId id(int value) {
+    final byte[] raw = new byte[20];
+    raw[0] = (byte) value;
+    return ObjectId.fromRaw(raw);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.file.RefDirectory;
+import org.eclipse.jgit.lib.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.GitTestHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import static svnserver.GitTestHelper.createCommit;
+
+/**
+ * Test for GitRefWatcher.
+ */
+public final class GitRefWatcherTest {
+  @Test(timeOut = 60000)
+  public void looseRef() throws Exception {
+    check(false);
+  }
+
+  @Test(timeOut = 60000)
+  public void packedRef() throws Exception {
+    check(true);
+  }
+
+  /**
+   * Ref change is detected without watch event.
+   */
+  @Test
+  public void upToDate() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture()) {
+      final Repository git = fixture.getGit();
+      final GitRepository repository = fixture.createRepository();
+      Assert.assertFalse(repository.isRefWatched());
+
+      final GitBranch branch = repository.getBranches().firstEntry().getValue();
+      Assert.assertFalse(branch.isUpToDate());
+      branch.updateRevisions();
+      Assert.assertTrue(branch.isUpToDate());
+
+      final String refName = Constants.R_HEADS + Constants.MASTER;
+      final RefUpdate refUpdate = git.updateRef(refName);
+      refUpdate.setNewObjectId(createCommit(git, git.exactRef(refName).getObjectId(), "content"));
+      Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+      Assert.assertFalse(branch.isUpToDate());
+
+      branch.updateRevisions();
+      Assert.assertTrue(branch.isUpToDate());
+    }
+  }
+
+  /**
+   * Ref change without watch event is found by periodic comparison.
+   */
+  @Test(timeOut = 60000)
+  public void lostEvent() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture()) {
+      final Repository git = fixture.getGit();
+      final GitRepository repository = fixture.createRepository();
+      final GitBranch branch = repository.getBranches().firstEntry().getValue();
+      branch.updateRevisions();
+      final int revision = branch.getLatestRevision().getId();
+
+      final String refName = Constants.R_HEADS + Constants.MASTER;
+      final RefUpdate refUpdate = git.updateRef(refName);
+      refUpdate.setNewObjectId(createCommit(git, git.exactRef(refName).getObjectId(), "content"));
+      Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+
+      // Ref was changed before watching, so watcher gets no event for it.
+      try (GitRefWatcher watcher = new GitRefWatcher(50)) {
+        Assert.assertTrue(watcher.register(repository));
+        while (branch.getLatestRevision().getId() == revision)
+          Thread.sleep(10);
+      }
+      Assert.assertEquals(branch.getLatestRevision().getId(), revision + 1);
+      Assert.assertTrue(branch.isUpToDate());
+    }
+  }
+
+  private static void check(boolean packed) throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture()) {
+      final Repository git = fixture.getGit();
+      fixture.getShared().add(GitRefWatcher.class, new GitRefWatcher());
+      final GitRepository repository = fixture.createRepository();
+      Assert.assertTrue(repository.isRefWatched());
+
+      final GitBranch branch = repository.getBranches().firstEntry().getValue();
+      branch.updateRevisions();
+      final int revision = branch.getLatestRevision().getId();
+
+      final String refName = Constants.R_HEADS + Constants.MASTER;
+      final ObjectId commitId = createCommit(git, git.exactRef(refName).getObjectId(), "content");
+      if (packed) {
+        // Rewrite packed-refs like external git process does.
+        ((RefDirectory) git.getRefDatabase()).pack(Collections.singletonList(refName));
+        final Path packedRefs = git.getDirectory().toPath().resolve("packed-refs");
+        final Path lock = git.getDirectory().toPath().resolve("packed-refs.lock");
+        Files.write(lock, (commitId.name() + " " + refName + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(lock, packedRefs, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } else {
+        final RefUpdate refUpdate = git.updateRef(refName);
+        refUpdate.setNewObjectId(commitId);
+        Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+      }
+
+      while (branch.getLatestRevision().getId() == revision)
+        Thread.sleep(10);
+
+      Assert.assertEquals(branch.getLatestRevision().getId(), revision + 1);
+      Assert.assertEquals(branch.getLatestRevision().getGitNewCommit(), commitId);
+    }
+  }
+}
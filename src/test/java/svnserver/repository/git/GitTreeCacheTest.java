@@ -0,0 +1,87 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Parsed tree cache test.
+ */
+public final class GitTreeCacheTest {
+  @Test
+  public void treeEntries() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null))) {
+      final ObjectId blobId;
+      final ObjectId treeId;
+      try (ObjectInserter inserter = git.newObjectInserter()) {
+        blobId = inserter.insert(Constants.OBJ_BLOB, "content".getBytes(StandardCharsets.UTF_8));
+        treeId = createTree(inserter, blobId, "a.txt", "b.txt");
+        inserter.flush();
+      }
+
+      final GitTreeCache cache = new GitTreeCache();
+      final List<GitTreeEntry> entries = cache.get(new GitObject<>(git, treeId));
+      Assert.assertEquals(entries.size(), 2);
+      Assert.assertEquals(entries.get(0).getFileName(), "a.txt");
+      Assert.assertEquals(entries.get(0).getFileMode(), FileMode.REGULAR_FILE);
+      Assert.assertEquals(entries.get(0).getObjectId().getObject(), blobId);
+      Assert.assertSame(entries.get(0).getObjectId().getRepo(), git);
+
+      Assert.assertSame(cache.get(new GitObject<>(git, treeId.copy())), entries);
+      Assert.assertEquals(cache.getHits(), 1);
+      Assert.assertEquals(cache.getMisses(), 1);
+    }
+  }
+
+  @Test
+  public void lruEviction() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null))) {
+      final ObjectId[] trees = new ObjectId[3];
+      try (ObjectInserter inserter = git.newObjectInserter()) {
+        final ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, "content".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < trees.length; ++i)
+          trees[i] = createTree(inserter, blobId, "file" + i);
+
+        inserter.flush();
+      }
+
+      // Every tree takes two slots, cache has room only for two trees.
+      final GitTreeCache cache = new GitTreeCache(5);
+      cache.get(new GitObject<>(git, trees[0]));
+      cache.get(new GitObject<>(git, trees[1]));
+      // Touch first tree, so second becomes eldest.
+      cache.get(new GitObject<>(git, trees[0]));
+      cache.get(new GitObject<>(git, trees[2]));
+      Assert.assertEquals(cache.getUsedEntries(), 4);
+
+      cache.get(new GitObject<>(git, trees[0]));
+      cache.get(new GitObject<>(git, trees[2]));
+      Assert.assertEquals(cache.getMisses(), 3);
+      cache.get(new GitObject<>(git, trees[1]));
+      Assert.assertEquals(cache.getMisses(), 4);
+    }
+  }
+
+  @NotNull
+  private static ObjectId createTree(@NotNull ObjectInserter inserter, @NotNull ObjectId blobId, @NotNull String... names) throws IOException {
+    final TreeFormatter treeBuilder = new TreeFormatter();
+    for (String name : names)
+      treeBuilder.append(name, FileMode.REGULAR_FILE, blobId);
+
+    return inserter.insert(treeBuilder);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import svnserver.GitTestHelper;
+import svnserver.UserType;
+import svnserver.auth.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Test for commit on top of concurrently changed branch.
+ */
+public final class GitWriterTest {
+  @NotNull
+  private static final User user = User.create("test", "Test", "test@example.com", null, UserType.Local, null);
+  @NotNull
+  private static final String refName = Constants.R_HEADS + Constants.MASTER;
+
+  /**
+   * Commit of other file is rebuilt on top of concurrent push.
+   */
+  @Test
+  public void rebaseOnConcurrentPush() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture()) {
+      final Repository git = fixture.getGit();
+      final GitBranch branch = createBranch(fixture);
+      final int revision = branch.getLatestRevision().getId();
+
+      final ObjectId pushed = push(git, "external.txt");
+
+      final GitRevision result = commit(branch, "local.txt");
+      Assert.assertNotNull(result);
+      Assert.assertEquals(result.getId(), revision + 2);
+
+      try (RevWalk revWalk = new RevWalk(git)) {
+        final RevCommit commit = revWalk.parseCommit(git.exactRef(refName).getObjectId());
+        Assert.assertEquals(commit.getParent(0), pushed);
+        Assert.assertNotNull(TreeWalk.forPath(git, "external.txt", commit.getTree()));
+        Assert.assertNotNull(TreeWalk.forPath(git, "local.txt", commit.getTree()));
+      }
+    }
+  }
+
+  /**
+   * Commit of same file as concurrent push is rejected.
+   */
+  @Test
+  public void conflictOnConcurrentPush() throws Exception {
+    try (GitTestHelper.Fixture fixture = new GitTestHelper.Fixture()) {
+      final Repository git = fixture.getGit();
+      final GitBranch branch = createBranch(fixture);
+
+      final ObjectId pushed = push(git, "local.txt");
+
+      try {
+        commit(branch, "local.txt");
+        Assert.fail();
+      } catch (SVNException e) {
+        Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.WC_NOT_UP_TO_DATE);
+      }
+      Assert.assertEquals(git.exactRef(refName).getObjectId(), pushed);
+    }
+  }
+
+  @NotNull
+  private static GitBranch createBranch(@NotNull GitTestHelper.Fixture fixture) throws Exception {
+    final GitBranch branch = fixture.createRepository().getBranches().firstEntry().getValue();
+    branch.updateRevisions();
+    return branch;
+  }
+
+  /**
+   * Add file to branch bypassing git-as-svn.
+   */
+  @NotNull
+  private static ObjectId push(@NotNull Repository git, @NotNull String fileName) throws IOException {
+    final ObjectId parent = git.exactRef(refName).getObjectId();
+    try (ObjectInserter inserter = git.newObjectInserter();
+         RevWalk revWalk = new RevWalk(git)) {
+      final TreeFormatter treeBuilder = new TreeFormatter();
+      try (TreeWalk attributes = TreeWalk.forPath(git, ".gitattributes", revWalk.parseCommit(parent).getTree())) {
+        Assert.assertNotNull(attributes);
+        treeBuilder.append(".gitattributes", FileMode.REGULAR_FILE, attributes.getObjectId(0));
+      }
+      treeBuilder.append(fileName, FileMode.REGULAR_FILE, inserter.insert(Constants.OBJ_BLOB, "external\n".getBytes(StandardCharsets.UTF_8)));
+      final ObjectId commitId = GitTestHelper.createCommit(inserter, parent, inserter.insert(treeBuilder), "External commit");
+      inserter.flush();
+
+      final RefUpdate refUpdate = git.updateRef(refName);
+      refUpdate.setNewObjectId(commitId);
+      Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+      return commitId;
+    }
+  }
+
+  /**
+   * Add file like commit command does.
+   */
+  @Nullable
+  private static GitRevision commit(@NotNull GitBranch branch, @NotNull String fileName) throws Exception {
+    try (GitWriter writer = branch.createWriter(user)) {
+      final GitFile root = branch.getLatestRevision().getFile("");
+      Assert.assertNotNull(root);
+      final GitDeltaConsumer deltaConsumer = writer.createFile(root, fileName);
+      deltaConsumer.getProperties().put(SVNProperty.EOL_STYLE, SVNProperty.EOL_STYLE_NATIVE);
+      deltaConsumer.applyTextDelta(fileName, null);
+      new SVNDeltaGenerator().sendDelta(fileName, new ByteArrayInputStream("local\n".getBytes(StandardCharsets.UTF_8)), deltaConsumer, true);
+
+      return branch.getRepository().wrapLockWrite(lockStorage -> {
+        for (int pass = 0; pass < 10; ++pass) {
+          final GitWriter.GitCommitBuilder builder = writer.createCommitBuilder(lockStorage, Collections.emptyMap());
+          builder.saveFile(fileName, deltaConsumer, false);
+          final GitRevision revision = builder.commit(user, "Local commit");
+          if (revision != null)
+            return revision;
+        }
+        return null;
+      });
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Concurrent cache test.
+ */
+public final class ConcurrentCacheTest {
+  @Test
+  public void lruEviction() throws InterruptedException {
+    final ConcurrentCache<String, String> cache = new ConcurrentCache<>(2, value -> 1);
+    cache.put("a", "A");
+    Thread.sleep(1);
+    cache.put("b", "B");
+    Thread.sleep(1);
+    // Touch first entry, so second becomes eldest.
+    Assert.assertEquals(cache.get("a"), "A");
+    Thread.sleep(1);
+    cache.put("c", "C");
+
+    Assert.assertEquals(cache.size(), 2);
+    Assert.assertEquals(cache.getWeight(), 2);
+    Assert.assertNull(cache.get("b"));
+    Assert.assertEquals(cache.get("a"), "A");
+    Assert.assertEquals(cache.get("c"), "C");
+    Assert.assertEquals(cache.getHits(), 3);
+    Assert.assertEquals(cache.getMisses(), 1);
+    Assert.assertEquals(cache.getEvictions(), 1);
+  }
+
+  @Test
+  public void weight() {
+    final ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, String::length);
+    // Value heavier than limit is not cached.
+    cache.put("big", "01234567890");
+    Assert.assertEquals(cache.size(), 0);
+
+    cache.put("a", "0123");
+    cache.put("a", "01234");
+    Assert.assertEquals(cache.getWeight(), 5);
+
+    cache.clear();
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.getWeight(), 0);
+  }
+
+  @Test
+  public void disabled() {
+    final ConcurrentCache<String, String> cache = new ConcurrentCache<>(0, value -> 1);
+    cache.put("a", "A");
+    Assert.assertNull(cache.get("a"));
+    Assert.assertEquals(cache.getWeight(), 0);
+  }
+
+  @Test(timeOut = 60000)
+  public void concurrentAccess() throws Exception {
+    final int maxWeight = 1000;
+    final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(maxWeight, value -> value % 10 + 1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; ++thread) {
+        futures.add(executor.submit(() -> {
+          final ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < 100000; ++i) {
+            final int key = random.nextInt(5000);
+            final Integer value = cache.get(key);
+            if (value == null) {
+              cache.put(key, key);
+            } else {
+              Assert.assertEquals(value.intValue(), key);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures)
+        future.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertTrue(cache.getWeight() <= maxWeight);
+    Assert.assertEquals(cache.getHits() + cache.getMisses(), 800000);
+    cache.clear();
+    Assert.assertEquals(cache.getWeight(), 0);
+  }
+}
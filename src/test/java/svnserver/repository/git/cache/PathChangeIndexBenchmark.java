@@ -0,0 +1,119 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Benchmark for {@link PathChangeIndex}.
+ * <p>
+ * Reports heap usage per path compared to plain {@code HashMap<String, int[]>} and lookup cost.
+ * Run manually with fixed heap (for example, {@code -Xms2g -Xmx2g}): it is not a part of test suite.
+ */
+public final class PathChangeIndexBenchmark {
+  private static final int PATHS = 1_000_000;
+  private static final int CHANGES = 4_000_000;
+  private static final int LOOKUPS = 1_000_000;
+  private static final int ROUNDS = 10;
+
+  public static void main(@NotNull String[] args) {
+    final String[] paths = new String[PATHS];
+    for (int i = 0; i < PATHS; ++i)
+      paths[i] = String.format("project%d/src/main/java/module%d/package%d/File%d.java", i % 7, (i / 7) % 101, (i / 707) % 50, i);
+
+    final Random random = new Random(42);
+    final int[] changedPaths = new int[CHANGES];
+    for (int i = 0; i < CHANGES; ++i)
+      changedPaths[i] = i < PATHS ? i : random.nextInt(PATHS);
+
+    final long baseline = usedMemory();
+    Map<String, int[]> map = new HashMap<>();
+    for (int i = 0; i < CHANGES; ++i) {
+      // Path strings are created from revision data, so they are not shared with input array.
+      map.compute(new String(paths[changedPaths[i]].toCharArray()), (key, list) -> {
+        final int[] result = list == null ? new int[1] : Arrays.copyOf(list, list.length + 1);
+        result[result.length - 1] = 0;
+        return result;
+      });
+    }
+    final long mapMemory = usedMemory() - baseline;
+    System.out.printf("HashMap<String, int[]>: %d bytes/path%n", mapMemory / map.size());
+
+    final long[] mapTimes = new long[ROUNDS];
+    int checksum = 0;
+    for (int round = 0; round < ROUNDS; ++round) {
+      final String[] keys = lookupKeys(paths, round);
+      final long start = System.nanoTime();
+      for (String key : keys)
+        checksum += map.get(key).length;
+
+      mapTimes[round] = System.nanoTime() - start;
+    }
+    System.out.printf("HashMap.get: %d ns/lookup%n", median(mapTimes) / LOOKUPS);
+    //noinspection UnusedAssignment
+    map = null;
+
+    final long indexBaseline = usedMemory();
+    final PathChangeIndex index = new PathChangeIndex();
+    for (int i = 0; i < CHANGES; ++i)
+      index.add(paths[changedPaths[i]], i, (i & 15) == 0);
+
+    final long indexMemory = usedMemory() - indexBaseline;
+    System.out.printf("PathChangeIndex: %d bytes/path%n", indexMemory / index.size());
+
+    final long[] headTimes = new long[ROUNDS];
+    final long[] historyTimes = new long[ROUNDS];
+    for (int round = 0; round < ROUNDS; ++round) {
+      String[] keys = lookupKeys(paths, round);
+      long start = System.nanoTime();
+      for (String key : keys)
+        checksum += index.getLastChange(key, CHANGES);
+
+      headTimes[round] = System.nanoTime() - start;
+      keys = lookupKeys(paths, round);
+      start = System.nanoTime();
+      for (String key : keys)
+        checksum += index.getLastChange(key, CHANGES / 2);
+
+      historyTimes[round] = System.nanoTime() - start;
+    }
+    // First half of rounds is warm-up
+    System.out.printf("getLastChange (head): %d ns/lookup%n", median(headTimes) / LOOKUPS);
+    System.out.printf("getLastChange (history): %d ns/lookup%n", median(historyTimes) / LOOKUPS);
+    System.out.printf("checksum: %d%n", checksum);
+  }
+
+  /**
+   * Path strings are built for every request, so lookup keys are fresh copies without cached hash code.
+   */
+  @NotNull
+  private static String[] lookupKeys(@NotNull String[] paths, int seed) {
+    final Random random = new Random(seed);
+    final String[] result = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; ++i)
+      result[i] = new String(paths[random.nextInt(PATHS)].toCharArray());
+
+    return result;
+  }
+
+  private static long median(@NotNull long[] times) {
+    final long[] measured = Arrays.copyOfRange(times, times.length / 2, times.length);
+    Arrays.sort(measured);
+    return measured[measured.length / 2];
+  }
+
+  private static long usedMemory() {
+    final Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; ++i)
+      System.gc();
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
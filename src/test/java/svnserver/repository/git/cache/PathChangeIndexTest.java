@@ -0,0 +1,81 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Path change index test.
+ */
+public final class PathChangeIndexTest {
+  @Test
+  public void simple() {
+    final PathChangeIndex index = new PathChangeIndex();
+    index.add("a", 5, false);
+    index.add("a/b", 5, false);
+    index.add("a/b", 7, true);
+    index.add("a/b", 9, false);
+
+    Assert.assertEquals(index.getLastChange("a/b", 4), PathChangeIndex.NO_FILE);
+    Assert.assertEquals(index.getLastChange("a/b", 5), 5);
+    Assert.assertEquals(index.getLastChange("a/b", 6), 5);
+    Assert.assertEquals(index.getLastChange("a/b", 7), PathChangeIndex.NO_FILE);
+    Assert.assertEquals(index.getLastChange("a/b", 8), PathChangeIndex.NO_FILE);
+    Assert.assertEquals(index.getLastChange("a/b", 9), 9);
+    Assert.assertEquals(index.getLastChange("a/b", 100), 9);
+    Assert.assertEquals(index.getLastChange("a", 100), 5);
+    Assert.assertEquals(index.getLastChange("a/c", 100), PathChangeIndex.NO_FILE);
+    Assert.assertEquals(index.getLastChange("b", 100), PathChangeIndex.NO_FILE);
+    Assert.assertEquals(index.size(), 2);
+
+    index.clear();
+    Assert.assertEquals(index.size(), 0);
+    Assert.assertEquals(index.getLastChange("a/b", 100), PathChangeIndex.NO_FILE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void revisionOrder() {
+    final PathChangeIndex index = new PathChangeIndex();
+    index.add("a", 5, false);
+    index.add("a", 5, false);
+  }
+
+  @Test
+  public void random() {
+    final Random random = new Random(0);
+    final PathChangeIndex index = new PathChangeIndex();
+    final Map<String, List<Integer>> expected = new HashMap<>();
+    for (int revision = 1; revision < 2000; revision += 1 + random.nextInt(300)) {
+      for (int i = 0; i < 50; ++i) {
+        final String path = "dir" + random.nextInt(10) + "/file" + random.nextInt(100);
+        final boolean removed = random.nextInt(5) == 0;
+        final List<Integer> list = expected.computeIfAbsent(path, s -> new ArrayList<>());
+        if (!list.isEmpty() && Math.abs(list.get(list.size() - 1)) == revision)
+          continue;
+
+        list.add(removed ? -revision : revision);
+        index.add(path, revision, removed);
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : expected.entrySet()) {
+      for (int revision = 0; revision < 2100; ++revision) {
+        int lastChange = PathChangeIndex.NO_FILE;
+        for (int change : entry.getValue()) {
+          if (Math.abs(change) > revision)
+            break;
+
+          lastChange = change < 0 ? PathChangeIndex.NO_FILE : change;
+        }
+        Assert.assertEquals(index.getLastChange(entry.getKey(), revision), lastChange, entry.getKey() + "@" + revision);
+      }
+    }
+  }
+}
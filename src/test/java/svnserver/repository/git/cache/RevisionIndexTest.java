@@ -0,0 +1,129 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.cache;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.TestHelper;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Persistent revision index test.
+ */
+public final class RevisionIndexTest {
+  @Test
+  public void appendAndRead() throws IOException {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final RevisionIndex index = new RevisionIndex(tempDir.resolve("index").resolve("branch.idx"));
+      Assert.assertTrue(index.read().isEmpty());
+
+      index.append(Arrays.asList(entry(1, null), entry(2, "foo")));
+      index.append(Collections.singletonList(entry(3, "bar")));
+
+      final List<RevisionIndex.Entry> entries = index.read();
+      Assert.assertEquals(entries.size(), 3);
+      checkEntry(entries.get(0), entry(1, null));
+      checkEntry(entries.get(1), entry(2, "foo"));
+      checkEntry(entries.get(2), entry(3, "bar"));
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  /**
+   * Records cross read buffer boundary or don't fit into read buffer.
+   */
+  @Test
+  public void largeIndex() throws IOException {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final RevisionIndex index = new RevisionIndex(tempDir.resolve("branch.idx"));
+      final List<RevisionIndex.Entry> expected = new ArrayList<>();
+      for (int i = 0; i < 20000; ++i)
+        expected.add(entry(i, "path/" + i));
+
+      final char[] longPath = new char[3 * 1024 * 1024];
+      Arrays.fill(longPath, 'a');
+      expected.add(entry(20000, new String(longPath)));
+      expected.add(entry(20001, "last"));
+      index.append(expected);
+
+      final List<RevisionIndex.Entry> entries = index.read();
+      Assert.assertEquals(entries.size(), expected.size());
+      for (int i = 0; i < entries.size(); ++i)
+        checkEntry(entries.get(i), expected.get(i));
+
+      index.reset();
+      Assert.assertTrue(index.read().isEmpty());
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  @Test
+  public void truncatedTail() throws IOException {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final RevisionIndex index = new RevisionIndex(tempDir.resolve("branch.idx"));
+      index.append(Arrays.asList(entry(1, "foo"), entry(2, "bar")));
+      final long size = Files.size(index.getFile());
+      try (FileChannel channel = FileChannel.open(index.getFile(), StandardOpenOption.WRITE)) {
+        channel.truncate(size - 3);
+      }
+
+      // Incomplete record is dropped, so new records are appended after last complete one.
+      Assert.assertEquals(index.read().size(), 1);
+      index.append(Collections.singletonList(entry(3, "baz")));
+      final List<RevisionIndex.Entry> entries = index.read();
+      Assert.assertEquals(entries.size(), 2);
+      checkEntry(entries.get(1), entry(3, "baz"));
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  @Test
+  public void invalidHeader() throws IOException {
+    final Path tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final RevisionIndex index = new RevisionIndex(tempDir.resolve("branch.idx"));
+      Files.write(index.getFile(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+      Assert.assertTrue(index.read().isEmpty());
+      Assert.assertEquals(Files.size(index.getFile()), 0);
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  private static RevisionIndex.Entry entry(int id, String path) {
+    final ObjectId cacheCommit = ObjectId.fromString(String.format("%040x", id));
+    if (path == null)
+      return new RevisionIndex.Entry(cacheCommit, id, null, Collections.emptyMap(), Collections.emptyMap());
+
+    final Map<String, Boolean> changes = new LinkedHashMap<>();
+    changes.put(path, false);
+    changes.put(path + "/removed", true);
+    return new RevisionIndex.Entry(cacheCommit, id * 100, ObjectId.fromString(String.format("%040x", id + 1000)), Collections.singletonMap(path, "old/" + path), changes);
+  }
+
+  private static void checkEntry(RevisionIndex.Entry actual, RevisionIndex.Entry expected) {
+    Assert.assertEquals(actual.getCacheCommit(), expected.getCacheCommit());
+    Assert.assertEquals(actual.getCommitTime(), expected.getCommitTime());
+    Assert.assertEquals(actual.getGitCommitId(), expected.getGitCommitId());
+    Assert.assertEquals(actual.getRenames(), expected.getRenames());
+    Assert.assertEquals(new ArrayList<>(actual.getChanges().entrySet()), new ArrayList<>(expected.getChanges().entrySet()));
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.filter;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.auth.User;
+import svnserver.repository.git.GitObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filter blob metadata cache test.
+ */
+public final class GitFilterHelperTest {
+  private static final String CONTENT = "hello\n";
+  private static final String CONTENT_MD5 = "b1946ac92492d2347c6235b4d2611184";
+
+  @Test
+  public void metadataSinglePass() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null));
+         DB db = DBMaker.memoryDB().make()) {
+      final GitObject<ObjectId> blob = insert(git, CONTENT.getBytes(StandardCharsets.UTF_8));
+      final CountingFilter filter = new CountingFilter(db);
+
+      Assert.assertEquals(filter.getMd5(blob), CONTENT_MD5);
+      Assert.assertEquals(filter.getSize(blob), CONTENT.length());
+      Assert.assertFalse(filter.isBinary(blob));
+      Assert.assertEquals(filter.opened, 1);
+    }
+  }
+
+  @Test
+  public void binaryFlagMerge() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null));
+         DB db = DBMaker.memoryDB().make()) {
+      final GitObject<ObjectId> blob = insert(git, new byte[]{1, 0, 2});
+      final CountingFilter filter = new CountingFilter(db);
+
+      Assert.assertTrue(filter.isBinary(blob));
+      Assert.assertEquals(filter.opened, 1);
+      Assert.assertEquals(filter.getSize(blob), 3);
+      Assert.assertEquals(filter.opened, 2);
+      filter.getMd5(blob);
+      Assert.assertTrue(filter.isBinary(blob));
+      Assert.assertEquals(filter.opened, 2);
+
+      // Record is persistent in cache database.
+      final CountingFilter reopened = new CountingFilter(db);
+      Assert.assertEquals(reopened.getSize(blob), 3);
+      Assert.assertTrue(reopened.isBinary(blob));
+      Assert.assertEquals(reopened.opened, 0);
+    }
+  }
+
+  @Test
+  public void streamFillsMetadata() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null));
+         DB db = DBMaker.memoryDB().make()) {
+      final GitObject<ObjectId> blob = insert(git, CONTENT.getBytes(StandardCharsets.UTF_8));
+      final CountingFilter filter = new CountingFilter(db);
+
+      // Partially read stream does not store anything.
+      try (InputStream stream = GitFilterHelper.inputStreamWithMetadata(filter, filter.cache, blob)) {
+        Assert.assertEquals(stream.read(new byte[2]), 2);
+      }
+      try (InputStream stream = GitFilterHelper.inputStreamWithMetadata(filter, filter.cache, blob)) {
+        Assert.assertEquals(stream.read(), 'h');
+        Assert.assertEquals(stream.skip(2), 2);
+        Assert.assertEquals(IOUtils.toString(stream, StandardCharsets.UTF_8), "lo\n");
+      }
+      Assert.assertEquals(filter.opened, 2);
+
+      Assert.assertEquals(filter.getMd5(blob), CONTENT_MD5);
+      Assert.assertEquals(filter.getSize(blob), CONTENT.length());
+      Assert.assertFalse(filter.isBinary(blob));
+      Assert.assertEquals(filter.opened, 2);
+    }
+  }
+
+  @Test
+  public void knownSizeWithoutContentRead() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null));
+         DB db = DBMaker.memoryDB().make()) {
+      final GitObject<ObjectId> blob = insert(git, CONTENT.getBytes(StandardCharsets.UTF_8));
+      final CountingFilter filter = new CountingFilter(db);
+
+      Assert.assertEquals(filter.getKnownSize(blob), GitFilter.UNKNOWN_SIZE);
+      Assert.assertEquals(filter.opened, 0);
+
+      try (InputStream stream = GitFilterHelper.inputStreamWithMetadata(filter, filter.cache, blob)) {
+        Assert.assertEquals(IOUtils.toString(stream, StandardCharsets.UTF_8), CONTENT);
+      }
+      Assert.assertEquals(filter.getKnownSize(blob), CONTENT.length());
+      Assert.assertEquals(filter.opened, 1);
+    }
+  }
+
+  @Test
+  public void legacyMigration() throws IOException {
+    try (Repository git = new InMemoryRepository(new DfsRepositoryDescription(null));
+         DB db = DBMaker.memoryDB().make()) {
+      final GitObject<ObjectId> blob = insert(git, CONTENT.getBytes(StandardCharsets.UTF_8));
+      final String name = blob.getObject().name();
+      final HTreeMap<String, String> legacyMd5 = db.hashMap("cache.filter.test.md5", Serializer.STRING, Serializer.STRING).create();
+      final HTreeMap<String, Long> legacySize = db.hashMap("cache.filter.test.size", Serializer.STRING, Serializer.LONG).create();
+      final HTreeMap<String, Boolean> legacyBinary = db.hashMap("cache.binary", Serializer.STRING, Serializer.BOOLEAN).create();
+      legacyMd5.put(name, CONTENT_MD5);
+      legacySize.put(name, (long) CONTENT.length());
+      legacyBinary.put("test " + name, false);
+      legacyBinary.put("other " + name, true);
+
+      final CountingFilter filter = new CountingFilter(db);
+      Assert.assertEquals(filter.getMd5(blob), CONTENT_MD5);
+      Assert.assertEquals(filter.getSize(blob), CONTENT.length());
+      Assert.assertFalse(filter.isBinary(blob));
+      Assert.assertEquals(filter.opened, 0);
+
+      Assert.assertTrue(legacyMd5.isEmpty());
+      Assert.assertTrue(legacySize.isEmpty());
+      // Records of other filters are left for their own migration.
+      Assert.assertEquals(legacyBinary.size(), 1);
+      Assert.assertTrue(legacyBinary.get("other " + name));
+    }
+  }
+
+  @NotNull
+  private static GitObject<ObjectId> insert(@NotNull Repository git, @NotNull byte[] content) throws IOException {
+    try (ObjectInserter inserter = git.newObjectInserter()) {
+      final ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, content);
+      inserter.flush();
+      return new GitObject<>(git, blobId);
+    }
+  }
+
+  private static final class CountingFilter implements GitFilter {
+    @NotNull
+    private final HTreeMap<ObjectId, GitBlobMetadata> cache;
+    private int opened;
+
+    private CountingFilter(@NotNull DB db) {
+      this.cache = GitFilterHelper.getMetadataCache(this, db);
+    }
+
+    @NotNull
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @NotNull
+    @Override
+    public String getMd5(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+      return GitFilterHelper.getMd5(this, cache, objectId);
+    }
+
+    @Override
+    public long getSize(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+      return GitFilterHelper.getSize(this, cache, objectId);
+    }
+
+    @Override
+    public long getKnownSize(@NotNull GitObject<? extends ObjectId> objectId) {
+      return GitFilterHelper.getKnownSize(cache, objectId);
+    }
+
+    @Override
+    public boolean isBinary(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+      return GitFilterHelper.isBinary(this, cache, objectId);
+    }
+
+    @NotNull
+    @Override
+    public InputStream inputStream(@NotNull GitObject<? extends ObjectId> objectId) throws IOException {
+      opened++;
+      return objectId.openObject().openStream();
+    }
+
+    @NotNull
+    @Override
+    public OutputStream outputStream(@NotNull OutputStream stream, @NotNull User user) {
+      return stream;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.push;
+
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.UserType;
+import svnserver.VcsAccessEveryone;
+import svnserver.auth.LocalUserDB;
+import svnserver.auth.User;
+import svnserver.auth.UserDB;
+import svnserver.context.LocalContext;
+import svnserver.context.SharedContext;
+import svnserver.repository.VcsAccess;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static svnserver.GitTestHelper.*;
+
+/**
+ * Test for asynchronous post-receive hooks of embedded pusher.
+ */
+public final class GitPushEmbeddedTest {
+  @NotNull
+  private static final User user = User.create("test", "Test", "test@example.com", null, UserType.Local, null);
+  @NotNull
+  private static final String refName = Constants.R_HEADS + Constants.MASTER;
+  private static final long TIMEOUT = 30000;
+
+  /**
+   * Push doesn't wait for post-receive hook, hooks run in push order.
+   */
+  @Test
+  public void asyncPostReceive() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository git = fixture.getGit();
+      createHook(git.getDirectory().toPath().resolve("hooks"), "post-receive", "while [ ! -f \"$GIT_DIR/release\" ]; do sleep 0.1; done\nread old new ref\necho \"$GAS_LOGIN $new\" >> \"$GIT_DIR/post-receive.log\"");
+      final GitHookQueue queue = new GitHookQueue(fixture.getShared().getCacheDB(), 16, 0, 0);
+      fixture.getShared().add(GitHookQueue.class, queue);
+      final GitPushEmbedded pusher = createPusher(fixture.getShared());
+
+      final ObjectId first = createCommit(git, git.exactRef(refName).getObjectId(), "first");
+      Assert.assertTrue(pusher.push(git, first, refName, user));
+      final ObjectId second = createCommit(git, first, "second");
+      Assert.assertTrue(pusher.push(git, second, refName, user));
+      Assert.assertEquals(git.exactRef(refName).getObjectId(), second);
+      Assert.assertEquals(queue.getQueueDepth(), 2);
+      Assert.assertFalse(Files.exists(git.getDirectory().toPath().resolve("post-receive.log")));
+
+      Files.createFile(git.getDirectory().toPath().resolve("release"));
+      Assert.assertTrue(queue.awaitIdle(TIMEOUT));
+      Assert.assertEquals(readLog(git, "post-receive.log"), "test " + first.name() + "\ntest " + second.name() + "\n");
+      Assert.assertEquals(queue.getProcessed(), 2);
+      Assert.assertEquals(queue.getFailed(), 0);
+    }
+  }
+
+  /**
+   * Failed hook is retried.
+   */
+  @Test
+  public void retryFailedHook() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository git = fixture.getGit();
+      createHook(git.getDirectory().toPath().resolve("hooks"), "post-receive", "if [ ! -f \"$GIT_DIR/failed\" ]; then touch \"$GIT_DIR/failed\"; exit 1; fi\ncat > \"$GIT_DIR/post-receive.log\"");
+      final GitHookQueue queue = new GitHookQueue(fixture.getShared().getCacheDB(), 16, 1, 0);
+      fixture.getShared().add(GitHookQueue.class, queue);
+
+      final ObjectId oldId = git.exactRef(refName).getObjectId();
+      final ObjectId newId = createCommit(git, oldId, "retry");
+      Assert.assertTrue(createPusher(fixture.getShared()).push(git, newId, refName, user));
+      Assert.assertTrue(queue.awaitIdle(TIMEOUT));
+
+      Assert.assertEquals(readLog(git, "post-receive.log"), oldId.name() + " " + newId.name() + " " + refName + "\n");
+      Assert.assertEquals(queue.getProcessed(), 1);
+      Assert.assertEquals(queue.getFailed(), 0);
+    }
+  }
+
+  /**
+   * Hook that was not completed before shutdown is run on next start.
+   */
+  @Test
+  public void resumeAfterRestart() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository git = fixture.getGit();
+      final SharedContext shared = fixture.getShared();
+      final DB db = shared.getCacheDB();
+      final Path repositoryDir = git.getDirectory().toPath();
+      createHook(git.getDirectory().toPath().resolve("hooks"), "post-receive", "touch \"$GIT_DIR/attempt\"\n[ -f \"$GIT_DIR/enabled\" ] || exit 1\ncat > \"$GIT_DIR/post-receive.log\"");
+
+      final ObjectId oldId = git.exactRef(refName).getObjectId();
+      final ObjectId newId = createCommit(git, oldId, "resume");
+      try (GitHookQueue queue = new GitHookQueue(db, 16, 100, TIMEOUT)) {
+        shared.add(GitHookQueue.class, queue);
+        Assert.assertTrue(createPusher(shared).push(git, newId, refName, user));
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!Files.exists(repositoryDir.resolve("attempt")) && System.currentTimeMillis() < deadline)
+          Thread.sleep(10);
+        Assert.assertTrue(Files.exists(repositoryDir.resolve("attempt")));
+      }
+      Assert.assertFalse(Files.exists(repositoryDir.resolve("post-receive.log")));
+
+      Files.createFile(repositoryDir.resolve("enabled"));
+      try (GitHookQueue queue = new GitHookQueue(db, 16, 0, 0)) {
+        queue.ready(shared);
+        Assert.assertTrue(queue.awaitIdle(TIMEOUT));
+        Assert.assertEquals(queue.getProcessed(), 1);
+      }
+      Assert.assertEquals(readLog(git, "post-receive.log"), oldId.name() + " " + newId.name() + " " + refName + "\n");
+
+      try (GitHookQueue queue = new GitHookQueue(db, 16, 0, 0)) {
+        queue.ready(shared);
+        Assert.assertEquals(queue.getQueueDepth(), 0);
+      }
+    }
+  }
+
+  /**
+   * Repositories share bounded worker pool and are not kept after their hooks are completed.
+   */
+  @Test
+  public void sharedWorkers() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository first = fixture.getGit();
+      final Repository second = fixture.createGit("second.git");
+      final GitHookQueue queue = new GitHookQueue(fixture.getShared().getCacheDB(), 16, 0, 0, 1);
+      fixture.getShared().add(GitHookQueue.class, queue);
+      final GitPushEmbedded pusher = createPusher(fixture.getShared());
+      for (Repository git : new Repository[]{first, second}) {
+        createHook(git.getDirectory().toPath().resolve("hooks"), "post-receive", "cat >> \"$GIT_DIR/post-receive.log\"");
+        final ObjectId oldId = git.exactRef(refName).getObjectId();
+        Assert.assertTrue(pusher.push(git, createCommit(git, oldId, "first"), refName, user));
+        Assert.assertTrue(pusher.push(git, createCommit(git, git.exactRef(refName).getObjectId(), "second"), refName, user));
+      }
+      Assert.assertTrue(queue.awaitIdle(TIMEOUT));
+      Assert.assertEquals(queue.getProcessed(), 4);
+
+      final long deadline = System.currentTimeMillis() + TIMEOUT;
+      while (queue.getActiveRepositories() > 0 && System.currentTimeMillis() < deadline)
+        Thread.sleep(10);
+      Assert.assertEquals(queue.getActiveRepositories(), 0);
+      for (Repository git : new Repository[]{first, second})
+        Assert.assertEquals(readLog(git, "post-receive.log").split("\n").length, 2);
+    }
+  }
+
+  @NotNull
+  private static GitPushEmbedded createPusher(@NotNull SharedContext shared) {
+    shared.add(UserDB.class, new LocalUserDB());
+    final LocalContext local = new LocalContext(shared, "test");
+    local.add(VcsAccess.class, new VcsAccessEveryone());
+    return new GitPushEmbedded(local, null, false, false, true);
+  }
+}
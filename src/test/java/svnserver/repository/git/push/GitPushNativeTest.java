@@ -0,0 +1,88 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git.push;
+
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.UserType;
+import svnserver.VcsAccessEveryone;
+import svnserver.auth.LocalUserDB;
+import svnserver.auth.User;
+import svnserver.auth.UserDB;
+import svnserver.context.LocalContext;
+import svnserver.context.SharedContext;
+import svnserver.repository.VcsAccess;
+
+import java.nio.file.Path;
+
+import static svnserver.GitTestHelper.*;
+
+/**
+ * Test for in-process mode of native pusher.
+ */
+public final class GitPushNativeTest {
+  @NotNull
+  private static final User user = User.create("test", "Test", "test@example.com", null, UserType.Local, null);
+  @NotNull
+  private static final String refName = Constants.R_HEADS + Constants.MASTER;
+
+  @Test
+  public void hooks() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository git = fixture.getGit();
+      final Path hooks = git.getDirectory().toPath().resolve("hooks");
+      createHook(hooks, "pre-receive", "cat > \"$GIT_DIR/pre-receive.log\"");
+      createHook(hooks, "update", "echo \"$@\" > \"$GIT_DIR/update.log\"");
+      createHook(hooks, "post-receive", "cat > \"$GIT_DIR/post-receive.log\"");
+      createHook(hooks, "post-update", "echo \"$GAS_LOGIN $@\" > \"$GIT_DIR/post-update.log\"");
+
+      final ObjectId oldId = git.exactRef(refName).getObjectId();
+      final ObjectId newId = createCommit(git, oldId, "content");
+      Assert.assertTrue(createPusher(fixture.getShared()).push(git, newId, refName, user));
+      Assert.assertEquals(git.exactRef(refName).getObjectId(), newId);
+
+      final String receive = oldId.name() + " " + newId.name() + " " + refName + "\n";
+      Assert.assertEquals(readLog(git, "pre-receive.log"), receive);
+      Assert.assertEquals(readLog(git, "update.log"), refName + " " + oldId.name() + " " + newId.name() + "\n");
+      Assert.assertEquals(readLog(git, "post-receive.log"), receive);
+      Assert.assertEquals(readLog(git, "post-update.log"), "test " + refName + "\n");
+    }
+  }
+
+  @Test
+  public void rejectedByHook() throws Exception {
+    checkShell();
+    try (Fixture fixture = new Fixture()) {
+      final Repository git = fixture.getGit();
+      createHook(git.getDirectory().toPath().resolve("hooks"), "pre-receive", "echo Rejected\nexit 1");
+
+      final ObjectId oldId = git.exactRef(refName).getObjectId();
+      try {
+        createPusher(fixture.getShared()).push(git, createCommit(git, oldId, "content"), refName, user);
+        Assert.fail();
+      } catch (SVNException e) {
+        Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.REPOS_HOOK_FAILURE);
+        Assert.assertTrue(e.getMessage().contains("Rejected"));
+      }
+      Assert.assertEquals(git.exactRef(refName).getObjectId(), oldId);
+    }
+  }
+
+  @NotNull
+  private static GitPushNative createPusher(@NotNull SharedContext shared) {
+    shared.add(UserDB.class, new LocalUserDB());
+    final LocalContext local = new LocalContext(shared, "test");
+    local.add(VcsAccess.class, new VcsAccessEveryone());
+    return new GitPushNative(local, true);
+  }
+}
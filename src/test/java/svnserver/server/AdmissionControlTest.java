@@ -0,0 +1,197 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Session admission limits test.
+ */
+public final class AdmissionControlTest {
+  @Test
+  public void unlimited() throws SVNException {
+    final AdmissionControl admission = new AdmissionControl(0, 0, 0, 0, 0);
+    for (int i = 0; i < 100; ++i)
+      Assert.assertNotNull(admission.acquire("user", "repo", new Waiter()));
+
+    Assert.assertEquals(admission.getSessions(), 100);
+  }
+
+  @Test
+  public void perUser() throws SVNException {
+    final AdmissionControl admission = new AdmissionControl(0, 2, 0, 0, 0);
+    acquire(admission, "ci", "repo");
+    acquire(admission, "ci", "repo");
+    checkRejected(admission, "ci", "repo");
+    acquire(admission, "developer", "repo").close();
+  }
+
+  @Test
+  public void perRepository() throws SVNException {
+    final AdmissionControl admission = new AdmissionControl(0, 0, 1, 0, 0);
+    final AdmissionControl.Ticket ticket = acquire(admission, "user", "repo");
+    checkRejected(admission, "other", "repo");
+    acquire(admission, "user", "other").close();
+
+    ticket.close();
+    // Double close must not release foreign slot
+    ticket.close();
+    acquire(admission, "other", "repo");
+    checkRejected(admission, "user", "repo");
+  }
+
+  /**
+   * Ticket closed by several threads at once releases its slot only once.
+   */
+  @Test(timeOut = 10_000)
+  public void concurrentClose() throws Exception {
+    final AdmissionControl admission = new AdmissionControl(0, 0, 0, 0, 0);
+    acquire(admission, "user", "repo");
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int i = 0; i < 100; ++i) {
+        final AdmissionControl.Ticket ticket = acquire(admission, "user", "repo");
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; ++thread) {
+          futures.add(executor.submit(() -> {
+            start.await();
+            ticket.close();
+            return null;
+          }));
+        }
+        start.countDown();
+        for (Future<?> future : futures)
+          future.get();
+
+        Assert.assertEquals(admission.getSessions(), 1);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void queue() throws Exception {
+    final AdmissionControl admission = new AdmissionControl(1, 0, 0, 1, TimeUnit.SECONDS.toMillis(30));
+    final AdmissionControl.Ticket ticket = acquire(admission, "user", "repo");
+
+    final Waiter waiter = new Waiter();
+    Assert.assertNull(admission.acquire("other", "repo", waiter));
+    Assert.assertEquals(admission.getWaiting(), 1);
+    Assert.assertFalse(waiter.isDone());
+
+    // Queue is full
+    checkRejected(admission, "third", "repo");
+
+    ticket.close();
+    Assert.assertTrue(waiter.isDone());
+    Assert.assertEquals(admission.getSessions(), 1);
+    waiter.get().close();
+    Assert.assertEquals(admission.getSessions(), 0);
+  }
+
+  /**
+   * Free slot is given to the oldest queued session, that fits into limits.
+   */
+  @Test(timeOut = 10_000)
+  public void queueOrder() throws Exception {
+    final AdmissionControl admission = new AdmissionControl(2, 0, 1, 10, TimeUnit.SECONDS.toMillis(30));
+    final AdmissionControl.Ticket first = acquire(admission, "user", "repo");
+    final AdmissionControl.Ticket second = acquire(admission, "user", "other");
+
+    final Waiter repo1 = new Waiter();
+    final Waiter other = new Waiter();
+    final Waiter repo2 = new Waiter();
+    Assert.assertNull(admission.acquire("user1", "repo", repo1));
+    Assert.assertNull(admission.acquire("user2", "repo", repo2));
+    Assert.assertNull(admission.acquire("user3", "other", other));
+
+    first.close();
+    Assert.assertTrue(repo1.isDone());
+    Assert.assertFalse(repo2.isDone());
+    Assert.assertFalse(other.isDone());
+    // Newcomer doesn't take slot from queued sessions
+    Assert.assertNull(admission.acquire("user4", "third", new Waiter()));
+
+    // Waiter for "other" is admitted ahead of older waiter for busy "repo"
+    second.close();
+    Assert.assertTrue(other.isDone());
+    Assert.assertFalse(repo2.isDone());
+
+    repo1.get().close();
+    Assert.assertTrue(repo2.isDone());
+    Assert.assertEquals(admission.getWaiting(), 1);
+  }
+
+  @Test(timeOut = 10_000)
+  public void queueTimeout() throws Exception {
+    final AdmissionControl admission = new AdmissionControl(1, 0, 0, 10, 50);
+    acquire(admission, "user", "repo");
+    final Waiter waiter = new Waiter();
+    Assert.assertNull(admission.acquire("other", "repo", waiter));
+    checkRejected(waiter);
+    Assert.assertEquals(admission.getWaiting(), 0);
+  }
+
+  @Test(timeOut = 10_000)
+  public void close() throws Exception {
+    final AdmissionControl admission = new AdmissionControl(1, 0, 0, 10, TimeUnit.SECONDS.toMillis(30));
+    acquire(admission, "user", "repo");
+    final Waiter waiter = new Waiter();
+    Assert.assertNull(admission.acquire("other", "repo", waiter));
+    admission.close();
+    checkRejected(waiter);
+    checkRejected(admission, "third", "repo");
+  }
+
+  @NotNull
+  private static AdmissionControl.Ticket acquire(@NotNull AdmissionControl admission, @NotNull String user, @NotNull String repository) throws SVNException {
+    final AdmissionControl.Ticket ticket = admission.acquire(user, repository, new Waiter());
+    Assert.assertNotNull(ticket);
+    return ticket;
+  }
+
+  private static void checkRejected(@NotNull AdmissionControl admission, @NotNull String user, @NotNull String repository) {
+    try {
+      admission.acquire(user, repository, new Waiter());
+      Assert.fail();
+    } catch (SVNException e) {
+      Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.CANCELLED);
+    }
+  }
+
+  private static void checkRejected(@NotNull Waiter waiter) throws InterruptedException {
+    try {
+      waiter.get();
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertEquals(((SVNException) e.getCause()).getErrorMessage().getErrorCode(), SVNErrorCode.CANCELLED);
+    }
+  }
+
+  private static final class Waiter extends CompletableFuture<AdmissionControl.Ticket> implements AdmissionControl.Listener {
+    @Override
+    public void admitted(@NotNull AdmissionControl.Ticket ticket) {
+      Assert.assertTrue(complete(ticket));
+    }
+
+    @Override
+    public void rejected(@NotNull SVNException e) {
+      Assert.assertTrue(completeExceptionally(e));
+    }
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import svnserver.StringHelper;
+import svnserver.SvnTestServer;
+import svnserver.config.DeltaProducerConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static svnserver.SvnTestHelper.sendDeltaAndClose;
+
+/**
+ * Update and checkout with precomputed file deltas.
+ */
+public final class SvnDeltaProducerTest {
+  private static final int MAX_FILE_SIZE = 128;
+
+  /**
+   * Server with prefetch must send the same editor commands in the same order as server without it,
+   * including files over maxFileSize, that are streamed by session thread.
+   */
+  @Test
+  public void prefetchOrder() throws Exception {
+    final Map<String, String> initial = new TreeMap<>();
+    for (int i = 0; i < 12; ++i)
+      initial.put(String.format("dir/file-%02d", i), content("file " + i, i % 2 == 1));
+    initial.put("dir/sub/inner.txt", content("inner", true));
+    initial.put("top.txt", content("top", false));
+
+    final Map<String, String> changed = new TreeMap<>(initial);
+    changed.put("dir/file-01", content("file 1 changed", true));
+    changed.put("dir/file-02", content("file 2 changed", true));
+    changed.put("dir/file-03", content("file 3 changed", false));
+    changed.put("dir/file-06", content("file 6 changed", false));
+    changed.remove("dir/file-04");
+    changed.put("dir/file-12", content("file 12", false));
+    changed.put("dir/file-13", content("file 13", true));
+    changed.put("dir/sub/inner.txt", content("inner changed", false));
+
+    final List<List<String>> reports = new ArrayList<>();
+    for (DeltaProducerConfig producer : new DeltaProducerConfig[]{
+        new DeltaProducerConfig(1, 0, MAX_FILE_SIZE, false),
+        new DeltaProducerConfig(4, 3, MAX_FILE_SIZE, false),
+    }) {
+      try (SvnTestServer server = SvnTestServer.createEmpty(config -> config.setDeltaProducer(producer))) {
+        final SVNRepository repo = server.openSvnRepository();
+        try {
+          commitInitial(repo, initial);
+          final long initialRevision = repo.getLatestRevision();
+          commitChanges(repo, initial, changed);
+          final long changedRevision = repo.getLatestRevision();
+
+          final Map<String, String> workingCopy = new TreeMap<>();
+          final List<String> report = new ArrayList<>();
+          report.addAll(update(repo, workingCopy, -1, initialRevision));
+          Assert.assertEquals(workingCopy, initial);
+          report.addAll(update(repo, workingCopy, initialRevision, changedRevision));
+          Assert.assertEquals(workingCopy, changed);
+          reports.add(report);
+        } finally {
+          repo.closeSession();
+        }
+      }
+    }
+    Assert.assertEquals(reports.get(1), reports.get(0));
+  }
+
+  private static void commitInitial(@NotNull SVNRepository repo, @NotNull Map<String, String> files) throws SVNException, IOException {
+    final ISVNEditor editor = repo.getCommitEditor("Initial state", null, false, null);
+    editor.openRoot(-1);
+    editor.addDir("/dir", null, -1);
+    for (int i = 0; i < 12; ++i)
+      addFile(editor, files, String.format("dir/file-%02d", i));
+
+    editor.addDir("/dir/sub", null, -1);
+    addFile(editor, files, "dir/sub/inner.txt");
+    editor.closeDir();
+    editor.closeDir();
+    addFile(editor, files, "top.txt");
+    editor.closeDir();
+    editor.closeEdit();
+  }
+
+  private static void commitChanges(@NotNull SVNRepository repo, @NotNull Map<String, String> oldFiles, @NotNull Map<String, String> newFiles) throws SVNException, IOException {
+    final long revision = repo.getLatestRevision();
+    final ISVNEditor editor = repo.getCommitEditor("Modify files", null, false, null);
+    editor.openRoot(-1);
+    editor.openDir("/dir", revision);
+    for (String path : new String[]{"dir/file-01", "dir/file-02", "dir/file-03", "dir/file-06"}) {
+      editor.openFile("/" + path, revision);
+      sendDeltaAndClose(editor, "/" + path, oldFiles.get(path), newFiles.get(path));
+    }
+    editor.deleteEntry("/dir/file-04", revision);
+    addFile(editor, newFiles, "dir/file-12");
+    addFile(editor, newFiles, "dir/file-13");
+    editor.openDir("/dir/sub", revision);
+    editor.openFile("/dir/sub/inner.txt", revision);
+    sendDeltaAndClose(editor, "/dir/sub/inner.txt", oldFiles.get("dir/sub/inner.txt"), newFiles.get("dir/sub/inner.txt"));
+    editor.closeDir();
+    editor.closeDir();
+    editor.closeDir();
+    editor.closeEdit();
+  }
+
+  private static void addFile(@NotNull ISVNEditor editor, @NotNull Map<String, String> files, @NotNull String path) throws SVNException, IOException {
+    editor.addFile("/" + path, null, -1);
+    editor.changeFileProperty("/" + path, SVNProperty.EOL_STYLE, SVNPropertyValue.create(SVNProperty.EOL_STYLE_NATIVE));
+    sendDeltaAndClose(editor, "/" + path, null, files.get(path));
+  }
+
+  /**
+   * @param fromRevision Working copy revision or -1 for checkout.
+   */
+  @NotNull
+  private static List<String> update(@NotNull SVNRepository repo, @NotNull Map<String, String> workingCopy, long fromRevision, long toRevision) throws SVNException {
+    final RecordEditor editor = new RecordEditor(workingCopy);
+    repo.update(toRevision, null, SVNDepth.INFINITY, false, reporter -> {
+      reporter.setPath("", null, fromRevision < 0 ? toRevision : fromRevision, SVNDepth.INFINITY, fromRevision < 0);
+      reporter.finishReport();
+    }, editor);
+    return editor.events;
+  }
+
+  /**
+   * Content is larger than {@link #MAX_FILE_SIZE} for large file.
+   */
+  @NotNull
+  private static String content(@NotNull String name, boolean large) {
+    final StringBuilder result = new StringBuilder();
+    do {
+      result.append(name).append(" line ").append(result.length()).append('\n');
+    } while (large && result.length() <= MAX_FILE_SIZE);
+    return result.toString();
+  }
+
+  /**
+   * Records editor commands in arrival order and applies file deltas to working copy.
+   */
+  private static final class RecordEditor implements ISVNEditor {
+    @NotNull
+    private final Map<String, String> workingCopy;
+    @NotNull
+    private final List<String> events = new ArrayList<>();
+    @NotNull
+    private final SVNDeltaProcessor processor = new SVNDeltaProcessor();
+    @Nullable
+    private ByteArrayOutputStream target;
+
+    private RecordEditor(@NotNull Map<String, String> workingCopy) {
+      this.workingCopy = workingCopy;
+    }
+
+    @Override
+    public void targetRevision(long revision) {
+    }
+
+    @Override
+    public void openRoot(long revision) {
+      events.add("open-root");
+    }
+
+    @Override
+    public void deleteEntry(String path, long revision) {
+      events.add("delete-entry " + path);
+      workingCopy.remove(path);
+      workingCopy.keySet().removeIf(key -> StringHelper.isParentPath(path, key));
+    }
+
+    @Override
+    public void absentDir(String path) {
+      events.add("absent-dir " + path);
+    }
+
+    @Override
+    public void absentFile(String path) {
+      events.add("absent-file " + path);
+    }
+
+    @Override
+    public void addDir(String path, String copyFromPath, long copyFromRevision) {
+      events.add("add-dir " + path);
+    }
+
+    @Override
+    public void openDir(String path, long revision) {
+      events.add("open-dir " + path);
+    }
+
+    @Override
+    public void changeDirProperty(String name, SVNPropertyValue value) {
+      if (!SVNProperty.isEntryProperty(name))
+        events.add("change-dir-prop " + name + " " + value);
+    }
+
+    @Override
+    public void closeDir() {
+      events.add("close-dir");
+    }
+
+    @Override
+    public void addFile(String path, String copyFromPath, long copyFromRevision) {
+      events.add("add-file " + path);
+    }
+
+    @Override
+    public void openFile(String path, long revision) {
+      events.add("open-file " + path);
+    }
+
+    @Override
+    public void changeFileProperty(String path, String name, SVNPropertyValue value) {
+      if (!SVNProperty.isEntryProperty(name))
+        events.add("change-file-prop " + path + " " + name + " " + value);
+    }
+
+    @Override
+    public void applyTextDelta(String path, String baseChecksum) {
+      events.add("apply-textdelta " + path);
+      final String base = workingCopy.getOrDefault(path, "");
+      target = new ByteArrayOutputStream();
+      processor.applyTextDelta(new ByteArrayInputStream(base.getBytes(StandardCharsets.UTF_8)), target, true);
+    }
+
+    @Override
+    public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+      return processor.textDeltaChunk(diffWindow);
+    }
+
+    @Override
+    public void textDeltaEnd(String path) {
+      Assert.assertNotNull(target);
+      final String md5 = processor.textDeltaEnd();
+      workingCopy.put(path, new String(target.toByteArray(), StandardCharsets.UTF_8));
+      events.add("textdelta-end " + path + " " + md5);
+      target = null;
+    }
+
+    @Override
+    public void closeFile(String path, String textChecksum) {
+      Assert.assertEquals(textChecksum, md5(workingCopy.get(path)), path);
+      events.add("close-file " + path + " " + textChecksum);
+    }
+
+    @Override
+    public SVNCommitInfo closeEdit() {
+      events.add("close-edit");
+      return null;
+    }
+
+    @Override
+    public void abortEdit() {
+      Assert.fail("Unexpected abort edit");
+    }
+
+    @NotNull
+    private static String md5(@NotNull String content) {
+      try {
+        return StringHelper.toHex(MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8)));
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
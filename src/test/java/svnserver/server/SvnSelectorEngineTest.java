@@ -0,0 +1,128 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc2.SvnCheckout;
+import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+import svnserver.SvnTestServer;
+import svnserver.TestHelper;
+import svnserver.server.engine.SelectorEngineConfig;
+
+import java.io.File;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static svnserver.SvnTestHelper.checkFileContent;
+import static svnserver.SvnTestHelper.createFile;
+import static svnserver.server.SvnFilePropertyTest.propsEolNative;
+
+/**
+ * Server tests with selector connection engine.
+ * <p>
+ * Server has single worker thread, so every test hangs if idle session is not parked.
+ */
+public final class SvnSelectorEngineTest {
+  private static final long TIMEOUT = 60000;
+
+  @Test(timeOut = TIMEOUT)
+  public void checkoutAndCommit() throws Exception {
+    try (SvnTestServer server = createServer()) {
+      final SVNRepository repo = server.openSvnRepository();
+      try {
+        createFile(repo, "/README.md", "Initial content", propsEolNative);
+
+        final SvnOperationFactory factory = server.createOperationFactory();
+        final SvnCheckout checkout = factory.createCheckout();
+        checkout.setSource(SvnTarget.fromURL(server.getUrl()));
+        checkout.setSingleTarget(SvnTarget.fromFile(server.getTempDirectory().toFile()));
+        checkout.setRevision(SVNRevision.HEAD);
+        checkout.run();
+
+        final Path file = server.getTempDirectory().resolve("README.md");
+        Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "Initial content");
+
+        TestHelper.saveFile(file, "Modified content");
+        final SVNClientManager client = SVNClientManager.newInstance(factory);
+        client.getCommitClient().doCommit(new File[]{file.toFile()}, false, "Modify file", null, null, false, false, SVNDepth.INFINITY);
+
+        // Session of this repository was parked during checkout and commit.
+        Assert.assertEquals(repo.getLatestRevision(), 2);
+        checkFileContent(repo, "/README.md", "Modified content");
+      } finally {
+        repo.closeSession();
+      }
+    }
+  }
+
+  /**
+   * Idle sessions don't hold worker thread between commands.
+   */
+  @Test(timeOut = TIMEOUT)
+  public void parkIdleSessions() throws Exception {
+    try (SvnTestServer server = createServer()) {
+      final List<SVNRepository> sessions = new ArrayList<>();
+      try {
+        for (int i = 0; i < 4; ++i) {
+          final SVNRepository repo = server.openSvnRepository();
+          sessions.add(repo);
+          Assert.assertEquals(repo.getLatestRevision(), 0);
+        }
+        createFile(sessions.get(0), "/test.txt", "content", propsEolNative);
+        for (SVNRepository repo : sessions)
+          Assert.assertEquals(repo.getLatestRevision(), 1);
+      } finally {
+        for (SVNRepository repo : sessions)
+          repo.closeSession();
+      }
+    }
+  }
+
+  /**
+   * Client disconnect frees worker thread both during handshake and while session is parked.
+   */
+  @Test(timeOut = TIMEOUT)
+  public void clientDisconnect() throws Exception {
+    try (SvnTestServer server = createServer()) {
+      final SVNURL url = server.getUrl();
+      try (Socket socket = new Socket(url.getHost(), url.getPort())) {
+        // Wait for greeting: worker is waiting for client handshake now.
+        Assert.assertTrue(socket.getInputStream().read() >= 0);
+      }
+
+      final SVNRepository parked = server.openSvnRepository();
+      Assert.assertEquals(parked.getLatestRevision(), 0);
+      parked.closeSession();
+
+      final SVNRepository repo = server.openSvnRepository();
+      try {
+        createFile(repo, "/test.txt", "content", propsEolNative);
+        Assert.assertEquals(repo.getLatestRevision(), 1);
+      } finally {
+        repo.closeSession();
+      }
+    }
+  }
+
+  @NotNull
+  private static SvnTestServer createServer() throws Exception {
+    return SvnTestServer.createEmpty(config -> config.setConnectionEngine(new SelectorEngineConfig(1)));
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.command;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Full-text delta cache test.
+ */
+public final class DeltaCacheTest {
+  @Test
+  public void lruEviction() {
+    final DeltaCache cache = new DeltaCache(250, 1000, null, 0);
+    cache.put("a", windows(100));
+    cache.put("b", windows(100));
+    // Touch "a", so "b" becomes eldest.
+    Assert.assertNotNull(cache.get("a"));
+    cache.put("c", windows(100));
+
+    Assert.assertNotNull(cache.get("a"));
+    Assert.assertNull(cache.get("b"));
+    Assert.assertNotNull(cache.get("c"));
+    Assert.assertTrue(cache.getUsedSize() <= 250);
+    Assert.assertEquals(cache.getHits(), 3);
+    Assert.assertEquals(cache.getMisses(), 1);
+  }
+
+  @Test
+  public void tooLarge() {
+    final DeltaCache cache = new DeltaCache(100, 1000, null, 0);
+    cache.put("a", windows(200));
+    Assert.assertNull(cache.get("a"));
+    Assert.assertEquals(cache.getUsedSize(), 0);
+  }
+
+  @Test
+  public void disabled() {
+    final DeltaCache cache = new DeltaCache(0, 1000, null, 0);
+    Assert.assertFalse(cache.isCacheable(1));
+    cache.put("a", windows(20));
+    Assert.assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void diskTier() {
+    final DB db = DBMaker.memoryDB().make();
+    try (DeltaCache cache = new DeltaCache(150, 1000, db, 64 * 1024 * 1024)) {
+      final List<byte[]> expected = Arrays.asList(new byte[]{1, 2, 3}, new byte[100]);
+      cache.put("a", expected);
+      cache.put("b", windows(100));
+
+      final List<byte[]> actual = cache.get("a");
+      Assert.assertNotNull(actual);
+      Assert.assertEquals(actual.size(), expected.size());
+      for (int i = 0; i < expected.size(); ++i)
+        Assert.assertEquals(actual.get(i), expected.get(i));
+    }
+  }
+
+  private static List<byte[]> windows(int size) {
+    return Collections.singletonList(new byte[size - 16]);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server.command;
+
+import org.eclipse.jgit.internal.storage.pack.DeltaIndex;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCompression;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaReader;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Git pack delta to svndiff conversion test.
+ */
+public final class PackDeltaConverterTest {
+  @Test
+  public void smallChange() throws IOException, SVNException {
+    final byte[] base = randomData(350 * 1024, 1);
+    final byte[] target = base.clone();
+    target[200 * 1024] ^= 0x55;
+
+    final PackDeltaConverter converter = new PackDeltaConverter(gitDelta(base, target));
+    Assert.assertFalse(converter.isBaseRequired());
+    checkWindows(converter, base);
+    Assert.assertEquals(apply(converter, base), target);
+  }
+
+  @Test
+  public void insertedData() throws IOException, SVNException {
+    final byte[] base = randomData(250 * 1024, 2);
+    final byte[] inserted = randomData(150 * 1024, 3);
+    final byte[] target = new byte[base.length + inserted.length];
+    System.arraycopy(base, 0, target, 0, 1000);
+    System.arraycopy(inserted, 0, target, 1000, inserted.length);
+    System.arraycopy(base, 1000, target, 1000 + inserted.length, base.length - 1000);
+
+    final PackDeltaConverter converter = new PackDeltaConverter(gitDelta(base, target));
+    checkWindows(converter, base);
+    Assert.assertEquals(apply(converter, base), target);
+  }
+
+  @Test
+  public void reorderedBlocks() throws IOException, SVNException {
+    // Copies slide backwards, so they can't be expressed by svndiff source view.
+    final byte[] base = randomData(300 * 1024, 4);
+    final byte[] target = new byte[base.length];
+    final int half = base.length / 2;
+    System.arraycopy(base, half, target, 0, base.length - half);
+    System.arraycopy(base, 0, target, base.length - half, half);
+
+    final PackDeltaConverter converter = new PackDeltaConverter(gitDelta(base, target));
+    Assert.assertTrue(converter.isBaseRequired());
+    checkWindows(converter, base);
+    Assert.assertEquals(apply(converter, base), target);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void corruptDelta() throws IOException {
+    final byte[] delta = gitDelta(randomData(1000, 5), randomData(1000, 6));
+    new PackDeltaConverter(Arrays.copyOf(delta, delta.length - 1));
+  }
+
+  /**
+   * Copy command without operand bytes must be reported as IOException, so caller can fallback to delta generation.
+   */
+  @Test
+  public void truncatedCopy() throws IOException {
+    // Base size 16, result size 4, copy with one offset byte and one size byte.
+    final byte[] delta = {0x10, 0x04, (byte) 0x91, 0x00, 0x04};
+    Assert.assertEquals(new PackDeltaConverter(delta).getWindowCount(), 1);
+    for (int length = 3; length < delta.length; ++length) {
+      try {
+        new PackDeltaConverter(Arrays.copyOf(delta, length));
+        Assert.fail("Truncated delta accepted: " + length);
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  private static void checkWindows(@NotNull PackDeltaConverter converter, @NotNull byte[] base) {
+    long lastOffset = 0;
+    long lastEnd = 0;
+    for (SVNDiffWindow window : converter.toDiffWindows(base)) {
+      Assert.assertTrue(window.getTargetViewLength() <= PackDeltaConverter.WINDOW_SIZE);
+      Assert.assertTrue(window.getSourceViewLength() <= PackDeltaConverter.WINDOW_SIZE);
+      if (window.getSourceViewLength() > 0) {
+        Assert.assertTrue(window.getSourceViewOffset() >= lastOffset);
+        Assert.assertTrue(window.getSourceViewOffset() + window.getSourceViewLength() >= lastEnd);
+        lastOffset = window.getSourceViewOffset();
+        lastEnd = window.getSourceViewOffset() + window.getSourceViewLength();
+      }
+    }
+  }
+
+  @NotNull
+  private static byte[] apply(@NotNull PackDeltaConverter converter, @NotNull byte[] base) throws IOException, SVNException {
+    final List<byte[]> chunks = new ArrayList<>();
+    converter.send(() -> base, SVNDeltaCompression.Zlib, chunks::add);
+
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final SVNDeltaProcessor processor = new SVNDeltaProcessor();
+    processor.applyTextDelta(new ByteArrayInputStream(base), result, false);
+    final SVNDeltaReader reader = new SVNDeltaReader();
+    final ISVNDeltaConsumer consumer = new ISVNDeltaConsumer() {
+      @Override
+      public void applyTextDelta(String path, String baseChecksum) {
+      }
+
+      @Override
+      public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+        return processor.textDeltaChunk(diffWindow);
+      }
+
+      @Override
+      public void textDeltaEnd(String path) {
+      }
+    };
+    for (byte[] chunk : chunks)
+      reader.nextWindow(chunk, 0, chunk.length, "file", consumer);
+
+    processor.textDeltaEnd();
+    return result.toByteArray();
+  }
+
+  @NotNull
+  private static byte[] gitDelta(@NotNull byte[] base, @NotNull byte[] target) throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    new DeltaIndex(base).encode(stream, target);
+    return stream.toByteArray();
+  }
+
+  @NotNull
+  private static byte[] randomData(int size, long seed) {
+    final byte[] data = new byte[size];
+    new Random(seed).nextBytes(data);
+    return data;
+  }
+}